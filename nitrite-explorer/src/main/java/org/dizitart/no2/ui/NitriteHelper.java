@@ -96,11 +96,26 @@ class NitriteHelper {
 
     NitriteMap<?, ?> getMap(String mapName) {
         if (dbStore != null && dbStore.hasMap(mapName)) {
+            if (isIndexMap(mapName)) {
+                // the posting lists of an index map are stored with their own data type
+                return dbStore.openIndexMap(mapName);
+            }
             return dbStore.openMap(mapName);
         }
         return null;
     }
 
+    private boolean isIndexMap(String mapName) {
+        if (!mapName.startsWith(INDEX_PREFIX + INTERNAL_NAME_SEPARATOR)) return false;
+        String suffix = mapName.substring(mapName.lastIndexOf(INTERNAL_NAME_SEPARATOR) + 1);
+        for (IndexType indexType : IndexType.values()) {
+            if (indexType.name().equals(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     boolean isCollection(String mapName) {
         return !mapName.contains(INDEX_META_PREFIX)
                 && !mapName.contains(INDEX_PREFIX + INTERNAL_NAME_SEPARATOR);
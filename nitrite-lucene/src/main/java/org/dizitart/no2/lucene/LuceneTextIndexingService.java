@@ -0,0 +1,297 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.lucene;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.*;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.RAMDirectory;
+import org.dizitart.no2.NitriteId;
+import org.dizitart.no2.exceptions.IndexingException;
+import org.dizitart.no2.fulltext.TextIndexingService;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static org.dizitart.no2.exceptions.ErrorCodes.*;
+import static org.dizitart.no2.exceptions.ErrorMessage.FAILED_TO_QUERY_FTS_DATA;
+import static org.dizitart.no2.exceptions.ErrorMessage.errorMessage;
+
+/**
+ * A {@link TextIndexingService} backed by a Lucene index, either in memory
+ * or in a directory on disk.
+ *
+ * All the writes go through a single shared {@link IndexWriter}, which
+ * buffers them and only makes them durable when the database is committed
+ * via {@link org.dizitart.no2.Nitrite#commit()}, so a batch of changes costs
+ * one Lucene commit. Searches are served by a {@link SearcherManager} opened
+ * from the writer, which sees the uncommitted changes as well. The searcher
+ * is refreshed before every search, which only reopens it if the index has
+ * changed, so a search always sees the writes made before it started.
+ *
+ * A search string is parsed by the Lucene query parser against the indexed
+ * field, so any of its query syntax, including a leading wildcard, can be
+ * used in a text filter.
+ *
+ * [[app-listing]]
+ * [source,java]
+ * .Example
+ * --
+ *  Nitrite db = Nitrite.builder()
+ *         .filePath("/tmp/mydb.db")
+ *         .textIndexingService(new LuceneTextIndexingService("/tmp/mydb-index"))
+ *         .openOrCreate();
+ * --
+ *
+ * @author Anindya Chatterjee
+ * @since 3.4.3
+ */
+public class LuceneTextIndexingService implements TextIndexingService {
+    // internal fields of every lucene document, one per id and indexed field
+    private static final String ID = "_nitrite_id";
+    private static final String KEY = "_nitrite_key";
+    private static final String FIELD = "_nitrite_field";
+
+    private final Directory directory;
+    private final Analyzer analyzer;
+    private final IndexWriter indexWriter;
+    private final SearcherManager searcherManager;
+
+    /**
+     * Instantiates a new in-memory Lucene text indexing service.
+     */
+    public LuceneTextIndexingService() {
+        this(new RAMDirectory(), new StandardAnalyzer());
+    }
+
+    /**
+     * Instantiates a new Lucene text indexing service, which keeps its
+     * index in the directory at `indexPath`. An index already there is
+     * opened as it is.
+     *
+     * @param indexPath the path of the index directory
+     */
+    public LuceneTextIndexingService(String indexPath) {
+        this(openDirectory(indexPath), new StandardAnalyzer());
+    }
+
+    /**
+     * Instantiates a new Lucene text indexing service on a `directory`,
+     * which tokenizes the texts with an `analyzer`.
+     *
+     * @param directory the index directory
+     * @param analyzer  the analyzer
+     */
+    public LuceneTextIndexingService(Directory directory, Analyzer analyzer) {
+        try {
+            this.directory = directory;
+            this.analyzer = analyzer;
+
+            IndexWriterConfig config = new IndexWriterConfig(analyzer);
+            config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+            this.indexWriter = new IndexWriter(directory, config);
+            this.searcherManager = new SearcherManager(indexWriter, true, false, null);
+        } catch (IOException ioe) {
+            throw new IndexingException(errorMessage("could not open full-text index",
+                    IE_FAILED_TO_OPEN_FTS_INDEX), ioe);
+        }
+    }
+
+    @Override
+    public void createIndex(NitriteId id, String field, String text) {
+        // an index being rebuilt may already have an entry of the id
+        write(id, field, text);
+    }
+
+    @Override
+    public void updateIndex(NitriteId id, String field, String text) {
+        write(id, field, text);
+    }
+
+    @Override
+    public void deleteIndex(NitriteId id, String field, String text) {
+        try {
+            indexWriter.deleteDocuments(new Term(KEY, key(id, field)));
+        } catch (IOException ioe) {
+            throw new IndexingException(errorMessage(
+                    "could not remove full-text index for " + id,
+                    IE_REMOVE_FULL_TEXT_INDEX_FAILED), ioe);
+        }
+    }
+
+    @Override
+    public void deleteIndexesByField(String field) {
+        try {
+            indexWriter.deleteDocuments(new Term(FIELD, field));
+        } catch (IOException ioe) {
+            throw new IndexingException(errorMessage(
+                    "could not remove full-text index of " + field,
+                    IE_REMOVE_FULL_TEXT_INDEX_FAILED), ioe);
+        }
+    }
+
+    @Override
+    public Set<NitriteId> searchByIndex(String field, String searchString) {
+        try {
+            QueryParser parser = new QueryParser(field, analyzer);
+            parser.setAllowLeadingWildcard(true);
+            Query query = parser.parse(searchString);
+
+            // only reopens the searcher if the writer has changes, and waits
+            // for a concurrent refresh, so the search sees every prior write
+            searcherManager.maybeRefreshBlocking();
+
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                // all the matches are needed, ranked by their scores
+                int count = searcher.count(query);
+                if (count == 0) return new LinkedHashSet<>();
+
+                TopDocs topDocs = searcher.search(query, count);
+                return nitriteIds(searcher, topDocs.scoreDocs);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException | ParseException e) {
+            throw new IndexingException(FAILED_TO_QUERY_FTS_DATA, e);
+        }
+    }
+
+    @Override
+    public void drop() {
+        clear();
+    }
+
+    @Override
+    public void clear() {
+        try {
+            indexWriter.deleteAll();
+        } catch (IOException ioe) {
+            throw new IndexingException(errorMessage("could not clear full-text index",
+                    IE_REMOVE_FULL_TEXT_INDEX_FAILED), ioe);
+        }
+    }
+
+    @Override
+    public void commit() {
+        try {
+            if (indexWriter.hasUncommittedChanges()) {
+                indexWriter.commit();
+            }
+        } catch (IOException ioe) {
+            throw new IndexingException(errorMessage("could not commit full-text index data",
+                    IE_FAILED_TO_COMMIT_FTS_DATA), ioe);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            searcherManager.close();
+            // commits the pending changes before closing
+            indexWriter.close();
+            directory.close();
+        } catch (IOException ioe) {
+            throw new IndexingException(errorMessage("could not close full-text index",
+                    IE_FAILED_TO_COMMIT_FTS_DATA), ioe);
+        }
+    }
+
+    private void write(NitriteId id, String field, String text) {
+        try {
+            String key = key(id, field);
+            Document document = new Document();
+            document.add(new StringField(KEY, key, Field.Store.NO));
+            document.add(new StringField(FIELD, field, Field.Store.NO));
+            document.add(new NumericDocValuesField(ID, id.getIdValue()));
+            document.add(new TextField(field, text, Field.Store.NO));
+
+            indexWriter.updateDocument(new Term(KEY, key), document);
+        } catch (IOException ioe) {
+            throw new IndexingException(errorMessage(
+                    "could not write full-text index data for " + text,
+                    IE_FAILED_TO_WRITE_FTS_DATA), ioe);
+        }
+    }
+
+    private Set<NitriteId> nitriteIds(IndexSearcher searcher,
+                                      final ScoreDoc[] scoreDocs) throws IOException {
+        // the ids are read from the doc values in the order of the documents,
+        // which the doc values can only be read in, and kept in the order of
+        // their scores
+        Integer[] order = new Integer[scoreDocs.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer first, Integer second) {
+                return Integer.compare(scoreDocs[first].doc, scoreDocs[second].doc);
+            }
+        });
+
+        long[] idValues = new long[scoreDocs.length];
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        LeafReaderContext leaf = null;
+        NumericDocValues docValues = null;
+        for (Integer rank : order) {
+            int doc = scoreDocs[rank].doc;
+            if (leaf == null || doc >= leaf.docBase + leaf.reader().maxDoc()) {
+                leaf = leaves.get(ReaderUtil.subIndex(doc, leaves));
+                docValues = DocValues.getNumeric(leaf.reader(), ID);
+            }
+            docValues.advanceExact(doc - leaf.docBase);
+            idValues[rank] = docValues.longValue();
+        }
+
+        Set<NitriteId> nitriteIds = new LinkedHashSet<>();
+        for (long idValue : idValues) {
+            nitriteIds.add(NitriteId.createId(idValue));
+        }
+        return nitriteIds;
+    }
+
+    private static String key(NitriteId id, String field) {
+        return field + "|" + id.getIdValue();
+    }
+
+    private static Directory openDirectory(String indexPath) {
+        try {
+            return FSDirectory.open(Paths.get(indexPath));
+        } catch (IOException ioe) {
+            throw new IndexingException(errorMessage("could not open full-text index at " + indexPath,
+                    IE_FAILED_TO_OPEN_FTS_INDEX), ioe);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.lucene;
+
+import org.dizitart.no2.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.dizitart.no2.Document.createDocument;
+import static org.dizitart.no2.filters.Filters.text;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Anindya Chatterjee
+ */
+public class LuceneTextIndexingServiceTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Nitrite db;
+    private NitriteCollection collection;
+
+    @Before
+    public void setUp() {
+        db = Nitrite.builder()
+                .textIndexingService(new LuceneTextIndexingService())
+                .openOrCreate();
+        collection = db.getCollection("test");
+        collection.createIndex("body", IndexOptions.indexOptions(IndexType.Fulltext));
+    }
+
+    @After
+    public void tearDown() {
+        if (db != null && !db.isClosed()) {
+            db.close();
+        }
+    }
+
+    @Test
+    public void testSearchWithoutCommit() {
+        collection.insert(createDocument("body", "a quick brown fox"));
+        collection.insert(createDocument("body", "quick hello world"));
+        collection.insert(createDocument("body", "lazy dog"));
+
+        // the searches see the changes not yet committed
+        assertEquals(collection.find(text("body", "quick")).size(), 2);
+        assertEquals(collection.find(text("body", "qui*")).size(), 2);
+        assertEquals(collection.find(text("body", "*ello")).size(), 1);
+        assertEquals(collection.find(text("body", "fox dog")).size(), 2);
+
+        collection.update(text("body", "fox"), createDocument("body", "a slow brown cat"));
+        assertEquals(collection.find(text("body", "fox")).size(), 0);
+        assertEquals(collection.find(text("body", "cat")).size(), 1);
+
+        collection.remove(text("body", "hello"));
+        assertEquals(collection.find(text("body", "quick")).size(), 0);
+        assertEquals(collection.find(text("body", "brown dog")).size(), 2);
+    }
+
+    @Test
+    public void testConcurrentWriteThenSearch() throws Exception {
+        final int writers = 8;
+        final int rounds = 50;
+        final CyclicBarrier barrier = new CyclicBarrier(writers);
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                final int writer = i;
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        barrier.await();
+                        int missed = 0;
+                        for (int j = 0; j < rounds; j++) {
+                            String word = "writer" + writer + "round" + j;
+                            collection.insert(createDocument("body", "common " + word));
+                            // each search must see its own write, whatever
+                            // the other threads are writing or searching
+                            if (collection.find(text("body", word)).size() != 1) {
+                                missed++;
+                            }
+                        }
+                        return missed;
+                    }
+                }));
+            }
+
+            for (Future<Integer> future : futures) {
+                assertEquals(future.get(1, TimeUnit.MINUTES).intValue(), 0);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(collection.find(text("body", "common")).size(), writers * rounds);
+    }
+
+    @Test
+    public void testRankedSearch() {
+        collection.insert(createDocument("body", "nitrite database"));
+        collection.insert(createDocument("body", "nitrite embedded nitrite nosql nitrite"));
+        collection.insert(createDocument("body", "embedded database engine"));
+
+        Cursor cursor = collection.find(text("body", "nitrite"));
+        assertEquals(cursor.size(), 2);
+        assertEquals(cursor.firstOrDefault().get("body"), "nitrite embedded nitrite nosql nitrite");
+    }
+
+    @Test
+    public void testDropIndex() {
+        collection.insert(createDocument("body", "quick hello world"));
+        collection.dropIndex("body");
+        collection.createIndex("body", IndexOptions.indexOptions(IndexType.Fulltext));
+        assertEquals(collection.find(text("body", "hello")).size(), 1);
+
+        collection.dropIndex("body");
+        assertEquals(collection.find().size(), 1);
+    }
+
+    @Test
+    public void testReopenOnDisk() throws IOException {
+        db.close();
+
+        File dbFile = new File(folder.getRoot(), "test.db");
+        String indexPath = folder.newFolder("index").getPath();
+        db = Nitrite.builder()
+                .filePath(dbFile)
+                .textIndexingService(new LuceneTextIndexingService(indexPath))
+                .openOrCreate();
+        collection = db.getCollection("test");
+        collection.createIndex("body", IndexOptions.indexOptions(IndexType.Fulltext));
+        collection.insert(createDocument("body", "quick hello world"));
+        db.commit();
+        db.close();
+
+        db = Nitrite.builder()
+                .filePath(dbFile)
+                .textIndexingService(new LuceneTextIndexingService(indexPath))
+                .openOrCreate();
+        collection = db.getCollection("test");
+        assertEquals(collection.find(text("body", "hello")).size(), 1);
+    }
+}
@@ -38,11 +38,22 @@ public class Constants {
      */
     public static final String INDEX_PREFIX = "$nitrite_index";
 
+    /**
+     * The constant INDEX_JOURNAL_PREFIX.
+     */
+    public static final String INDEX_JOURNAL_PREFIX = "$nitrite_index_journal";
+
     /**
      * The constant INTERNAL_NAME_SEPARATOR.
      */
     public static final String INTERNAL_NAME_SEPARATOR = "|";
 
+    /**
+     * The constant COMPOUND_INDEX_SEPARATOR, which separates the fields
+     * of a compound index in its name.
+     */
+    public static final String COMPOUND_INDEX_SEPARATOR = ",";
+
     /**
      * The constant USER_MAP.
      */
@@ -64,6 +75,7 @@ public class Constants {
     public static final String[] RESERVED_NAMES = new String[] {
         INDEX_META_PREFIX,
         INDEX_PREFIX,
+        INDEX_JOURNAL_PREFIX,
         INTERNAL_NAME_SEPARATOR,
         USER_MAP,
         OBJECT_STORE_NAME_SEPARATOR,
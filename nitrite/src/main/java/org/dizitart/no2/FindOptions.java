@@ -20,9 +20,12 @@ package org.dizitart.no2;
 
 import lombok.Getter;
 import lombok.experimental.NonFinal;
+import org.dizitart.no2.exceptions.ValidationException;
 
 import java.text.Collator;
 
+import static org.dizitart.no2.exceptions.ErrorMessage.KEYSET_VALUE_NOT_COMPARABLE;
+
 /**
  * Represents the options to specify during a find operation on a collection.
  *
@@ -42,6 +45,11 @@ import java.text.Collator;
  *  // then it will take first 10 records as a result
  *  collection.find(sort("age", SortOrder.Descending).thenLimit(0, 10));
  *
+ *  // find the next 10 records after the last record of the previous page,
+ *  // without skipping the records of all the previous pages
+ *  collection.find(sort("age", SortOrder.Descending)
+ *          .thenAfter(last.get("age"), last.getId()).thenLimit(0, 10));
+ *
  * --
  *
  * @since 1.0
@@ -93,6 +101,30 @@ public class FindOptions {
      * */
     @Getter @NonFinal private Collator collator;
 
+    /**
+     * Specifies if the find results are paged by a key instead of an offset.
+     *
+     * @return `true` if the find resumes after a key; otherwise `false`.
+     * @since 3.4.3
+     * */
+    @Getter @NonFinal private boolean keyset;
+
+    /**
+     * Gets the sort value of the last record of the previous page.
+     *
+     * @return the sort value to resume the find after.
+     * @since 3.4.3
+     * */
+    @Getter @NonFinal private Object afterValue;
+
+    /**
+     * Gets the id of the last record of the previous page.
+     *
+     * @return the id to resume the find after, or `null` for the first page.
+     * @since 3.4.3
+     * */
+    @Getter @NonFinal private NitriteId afterId;
+
     /**
      * Instantiates a new find options with pagination criteria.
      *
@@ -215,6 +247,21 @@ public class FindOptions {
         return new FindOptions(field, sortOrder, collator, nullOrder);
     }
 
+    /**
+     * Creates a find options to page the find results in the order of
+     * their ids, starting after the record with the id `nitriteId`.
+     *
+     * @param nitriteId the id of the last record of the previous page,
+     *                  or `null` for the first page.
+     * @param size      the number of records per page.
+     * @return the find options with keyset pagination criteria.
+     * @see #thenAfter(NitriteId)
+     * @since 3.4.3
+     */
+    public static FindOptions after(NitriteId nitriteId, int size) {
+        return new FindOptions(0, size).thenAfter(nitriteId);
+    }
+
     /**
      * Sets the pagination criteria of a @{@link FindOptions} with sorting updateOptions.
      *
@@ -231,4 +278,50 @@ public class FindOptions {
         this.size = size;
         return this;
     }
+
+    /**
+     * Resumes the find after the record with the id `nitriteId`. Unlike an
+     * offset, the records of the previous pages are not skipped one by one,
+     * so a page deep in the results costs the same as the first page.
+     *
+     * [icon="{@docRoot}/note.png"]
+     * NOTE: Without sorting criteria, the pages are in the order of the
+     * ids of the records. With sorting criteria, the `null` sort value of
+     * the last record is assumed, see {@link #thenAfter(Object, NitriteId)}.
+     *
+     * @param nitriteId the id of the last record of the previous page,
+     *                  or `null` for the first page.
+     * @return the find options with keyset pagination criteria.
+     * @since 3.4.3
+     */
+    public FindOptions thenAfter(NitriteId nitriteId) {
+        return thenAfter(null, nitriteId);
+    }
+
+    /**
+     * Resumes a sorted find after the record with the sort value `sortValue`
+     * and the id `nitriteId`, which are the key of the last record of the
+     * previous page. Records with an equal sort value are in the order of
+     * their ids, so that every record is found on exactly one page.
+     *
+     * [icon="{@docRoot}/note.png"]
+     * NOTE: A sort value of the last record is used only if the find has
+     * sorting criteria. The offset of the pagination criteria, if any, is
+     * applied after the key.
+     *
+     * @param sortValue the sort value of the last record of the previous page.
+     * @param nitriteId the id of the last record of the previous page,
+     *                  or `null` for the first page.
+     * @return the find options with keyset pagination criteria.
+     * @since 3.4.3
+     */
+    public FindOptions thenAfter(Object sortValue, NitriteId nitriteId) {
+        if (sortValue != null && !(sortValue instanceof Comparable)) {
+            throw new ValidationException(KEYSET_VALUE_NOT_COMPARABLE);
+        }
+        this.keyset = true;
+        this.afterValue = sortValue;
+        this.afterId = nitriteId;
+        return this;
+    }
 }
@@ -24,8 +24,10 @@ import lombok.ToString;
 
 import java.io.Serializable;
 
+import static org.dizitart.no2.Constants.COMPOUND_INDEX_SEPARATOR;
 import static org.dizitart.no2.exceptions.ErrorCodes.*;
 import static org.dizitart.no2.exceptions.ErrorMessage.errorMessage;
+import static org.dizitart.no2.util.IndexUtils.indexFields;
 import static org.dizitart.no2.util.IndexUtils.internalName;
 import static org.dizitart.no2.util.ValidationUtils.notEmpty;
 import static org.dizitart.no2.util.ValidationUtils.notNull;
@@ -37,9 +39,12 @@ import static org.dizitart.no2.util.ValidationUtils.notNull;
  * @since 1.0
  * @see NitriteCollection#createIndex(String, IndexOptions)
  */
-@EqualsAndHashCode
-@ToString
+@EqualsAndHashCode(exclude = "partialFilter")
+@ToString(exclude = "partialFilter")
 public class Index implements Comparable<Index>, Serializable {
+    // the index metadata of an existing database is stored serialized,
+    // so the id is pinned to the one computed for the 3.4.2 class
+    private static final long serialVersionUID = 6405316628911929164L;
 
     /**
      * Specifies the type of the index.
@@ -66,6 +71,15 @@ public class Index implements Comparable<Index>, Serializable {
     @Getter
     private String collectionName;
 
+    /**
+     * Gets the filter a document must match to be indexed.
+     *
+     * @return the filter of a partial index, or `null` if every document is indexed.
+     * @since 3.4.3
+     * */
+    @Getter
+    private Filter partialFilter;
+
     /**
      * Instantiates a new Index.
      *
@@ -85,9 +99,53 @@ public class Index implements Comparable<Index>, Serializable {
         this.collectionName = collectionName;
     }
 
+    /**
+     * Instantiates a new partial Index, which only indexes the documents
+     * matching the `partialFilter`.
+     *
+     * @param indexType      the index type
+     * @param field          the value
+     * @param collectionName the collection name
+     * @param partialFilter  the filter a document must match to be indexed
+     * @since 3.4.3
+     */
+    public Index(IndexType indexType, String field, String collectionName, Filter partialFilter) {
+        this(indexType, field, collectionName);
+        this.partialFilter = partialFilter;
+    }
+
     private Index() {
     }
 
+    /**
+     * Specifies if the index is a compound index on more than one field.
+     *
+     * @return `true` if it is a compound index; `false` otherwise.
+     */
+    public boolean isCompound() {
+        return field.contains(COMPOUND_INDEX_SEPARATOR);
+    }
+
+    /**
+     * Specifies if the index is a partial index, which only
+     * indexes the documents matching its filter.
+     *
+     * @return `true` if it is a partial index; `false` otherwise.
+     * @since 3.4.3
+     */
+    public boolean isPartial() {
+        return partialFilter != null;
+    }
+
+    /**
+     * Gets the indexed fields, in the order of significance.
+     *
+     * @return the indexed fields.
+     */
+    public String[] getFields() {
+        return indexFields(field);
+    }
+
     @Override
     public int compareTo(Index other) {
         return internalName(this).compareTo(internalName(other));
@@ -52,6 +52,30 @@ public class IndexOptions {
     @Getter @Setter
     private boolean async = false;
 
+    /**
+     * Specifies a listener to receive the progress of indexing
+     * the existing documents of the collection.
+     *
+     * @param progressListener the listener to notify, or `null`.
+     * @returns the listener to notify while the index is being built.
+     * @since 3.4.3
+     * */
+    @Getter @Setter
+    private IndexProgressListener progressListener;
+
+    /**
+     * Specifies a filter a document must match to be indexed, which
+     * creates a partial index. A query only uses a partial index if every
+     * document it matches also matches the filter, e.g. if the filter is
+     * one of the operands of an and filter of the query.
+     *
+     * @param partialFilter the filter of the partial index, or `null`.
+     * @returns the filter a document must match to be indexed.
+     * @since 3.4.3
+     * */
+    @Getter @Setter
+    private Filter partialFilter;
+
     /**
      * Creates an {@link IndexOptions} with the specified `indexType`. Index creation
      * will be synchronous with this option.
@@ -0,0 +1,42 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2;
+
+/**
+ * A listener to receive the progress of building an {@link Index}.
+ *
+ * NOTE: The listener may be called from several worker threads
+ * concurrently while documents are being indexed in parallel.
+ *
+ * @author Anindya Chatterjee
+ * @since 3.4.3
+ * @see IndexOptions#setProgressListener(IndexProgressListener)
+ */
+public interface IndexProgressListener {
+    /**
+     * Called periodically while existing documents are being indexed.
+     * The last call, made once the index is fully written, reports
+     * `processedCount` equal to `totalCount`.
+     *
+     * @param index          the index being built.
+     * @param processedCount the number of documents processed so far.
+     * @param totalCount     the number of documents to process.
+     */
+    void onProgress(Index index, long processedCount, long totalCount);
+}
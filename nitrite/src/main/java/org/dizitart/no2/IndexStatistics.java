@@ -0,0 +1,218 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.dizitart.no2.filters.KeyRange;
+
+import java.util.List;
+import java.util.SortedMap;
+
+import static org.dizitart.no2.util.NumberUtils.compare;
+
+/**
+ * Represents the statistics of the keys of an {@link Index}, which tell
+ * how the values of the indexed field are distributed, and help estimate
+ * how many documents a filter on the field selects.
+ *
+ * @author Anindya Chatterjee
+ * @since 3.4.3
+ * @see PersistentCollection#getIndexStatistics(String)
+ */
+@Getter
+@ToString
+public class IndexStatistics {
+    /**
+     * Gets the indexed field.
+     *
+     * @return the indexed field.
+     * */
+    private final String field;
+
+    /**
+     * Gets the number of distinct keys in the index.
+     *
+     * @return the number of distinct keys.
+     * */
+    private final long keyCount;
+
+    /**
+     * Gets the number of ids in the posting lists of all keys.
+     *
+     * @return the number of entries.
+     * */
+    private final long entryCount;
+
+    /**
+     * Gets the distribution of the sizes of the posting lists. Each
+     * entry maps a power of two `n` to the number of keys having at
+     * least `n` but less than `2n` ids.
+     *
+     * @return the distribution of the posting list sizes.
+     * */
+    private final SortedMap<Integer, Long> postingSizeDistribution;
+
+    /**
+     * Gets the equi-depth histogram of the keys, in key order. Each
+     * bucket holds roughly the same number of entries.
+     *
+     * @return the buckets of the histogram.
+     * */
+    private final List<Bucket> histogram;
+
+    /**
+     * Instantiates a new IndexStatistics.
+     *
+     * @param field                   the indexed field
+     * @param keyCount                the number of distinct keys
+     * @param entryCount              the number of entries
+     * @param postingSizeDistribution the distribution of the posting list sizes
+     * @param histogram               the equi-depth histogram of the keys
+     */
+    public IndexStatistics(String field, long keyCount, long entryCount,
+                           SortedMap<Integer, Long> postingSizeDistribution,
+                           List<Bucket> histogram) {
+        this.field = field;
+        this.keyCount = keyCount;
+        this.entryCount = entryCount;
+        this.postingSizeDistribution = postingSizeDistribution;
+        this.histogram = histogram;
+    }
+
+    /**
+     * Gets the average number of ids per key.
+     *
+     * @return the average posting list size.
+     */
+    public double getAveragePostingSize() {
+        return keyCount == 0 ? 0 : (double) entryCount / keyCount;
+    }
+
+    /**
+     * Estimates the number of entries within a range of keys from
+     * the histogram.
+     *
+     * @param range the key range
+     * @return the estimated number of entries, or `-1` if the keys
+     * of the range can not be compared with the keys of the index.
+     */
+    public long estimateEntries(KeyRange range) {
+        if (range == null) return -1;
+
+        try {
+            long estimate = 0;
+            for (Bucket bucket : histogram) {
+                if (range.isSingleKey()) {
+                    if (bucket.contains(range.getLower())) {
+                        return Math.max(1, bucket.getEntryCount() / bucket.getKeyCount());
+                    }
+                    continue;
+                }
+
+                boolean lowerInRange = range.contains(bucket.getLower());
+                boolean upperInRange = range.contains(bucket.getUpper());
+                if (lowerInRange && upperInRange) {
+                    estimate += bucket.getEntryCount();
+                } else if (lowerInRange || upperInRange
+                        || bucket.contains(range.getLower())
+                        || bucket.contains(range.getUpper())) {
+                    // the range covers a part of the bucket
+                    estimate += (bucket.getEntryCount() + 1) / 2;
+                }
+            }
+            return estimate;
+        } catch (ClassCastException cce) {
+            return -1;
+        }
+    }
+
+    /**
+     * Represents a bucket of an equi-depth histogram, i.e. a range of
+     * adjacent keys of an index.
+     *
+     * @since 3.4.3
+     */
+    @Getter
+    @ToString
+    public static class Bucket {
+        /**
+         * Gets the lowest key of the bucket.
+         *
+         * @return the lowest key.
+         * */
+        private final Comparable lower;
+
+        /**
+         * Gets the highest key of the bucket.
+         *
+         * @return the highest key.
+         * */
+        private final Comparable upper;
+
+        /**
+         * Gets the number of distinct keys in the bucket.
+         *
+         * @return the number of keys.
+         * */
+        private final long keyCount;
+
+        /**
+         * Gets the number of ids in the posting lists of the keys of the bucket.
+         *
+         * @return the number of entries.
+         * */
+        private final long entryCount;
+
+        /**
+         * Instantiates a new Bucket.
+         *
+         * @param lower      the lowest key
+         * @param upper      the highest key
+         * @param keyCount   the number of distinct keys
+         * @param entryCount the number of entries
+         */
+        public Bucket(Comparable lower, Comparable upper, long keyCount, long entryCount) {
+            this.lower = lower;
+            this.upper = upper;
+            this.keyCount = keyCount;
+            this.entryCount = entryCount;
+        }
+
+        /**
+         * Specifies if a value is between the lowest and the highest
+         * key of the bucket.
+         *
+         * @param value the value
+         * @return `true` if the bucket spans the value; otherwise `false`.
+         */
+        public boolean contains(Object value) {
+            return value != null && compareKey(value, lower) >= 0
+                    && compareKey(value, upper) <= 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        private int compareKey(Object value, Comparable key) {
+            if (value instanceof Number && key instanceof Number) {
+                return compare((Number) value, (Number) key);
+            }
+            return ((Comparable) value).compareTo(key);
+        }
+    }
+}
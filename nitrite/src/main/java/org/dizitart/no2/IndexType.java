@@ -36,5 +36,23 @@ public enum IndexType {
     /**
      * Specifies a fulltext search index.
      */
-    Fulltext
+    Fulltext,
+    /**
+     * Specifies a non unique index on the elements of an array field.
+     * Every element of the array, or every value of a nested field of the
+     * documents inside the array, is indexed separately. Such an index
+     * answers equality, `in` and `elemMatch` filters on the field.
+     *
+     * @since 3.4.3
+     */
+    Multikey,
+    /**
+     * Specifies a non unique index for point lookups, which buckets the
+     * values of a field by a stable hash code instead of ordering them.
+     * Any value with a stable hash code can be indexed, including nested
+     * documents, but the index only answers equality and `in` filters.
+     *
+     * @since 3.4.3
+     */
+    Hash
 }
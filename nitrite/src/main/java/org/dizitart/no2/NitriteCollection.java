@@ -218,4 +218,19 @@ public interface NitriteCollection extends PersistentCollection<Document> {
      * @see Cursor#project(Document)
      */
     Cursor find(Filter filter, FindOptions findOptions);
+
+    /**
+     * Counts the documents selected by a filter.
+     *
+     * [icon="{@docRoot}/note.png"]
+     * NOTE: If the filter operates on a single indexed field, the documents
+     * are counted from the index alone, without fetching any of them.
+     *
+     * @param filter the filter to apply to select documents from collection.
+     * @return the number of selected documents, or the size of the
+     * collection if `filter` is `null`.
+     * @see org.dizitart.no2.filters.Filters
+     * @since 3.4.3
+     */
+    long count(Filter filter);
 }
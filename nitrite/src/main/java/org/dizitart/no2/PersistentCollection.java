@@ -53,7 +53,8 @@ public interface PersistentCollection<T> extends ChangeAware, MetadataAware, Clo
      * ====
      * - '_id' value of the document is always indexed. But full text
      * indexing is not supported on '_id' value.
-     * - Compound index is not supported.
+     * - For an index on more than one field, use
+     * {@link #createIndex(String[], IndexOptions)}.
      * - Indexing on arrays or collection is not supported
      * - Indexing on non-comparable value is not supported
      * ====
@@ -66,6 +67,33 @@ public interface PersistentCollection<T> extends ChangeAware, MetadataAware, Clo
      */
     void createIndex(String field, IndexOptions indexOptions);
 
+    /**
+     * Creates a compound index on `fields`, if not already exists.
+     * Index entries are ordered by the values of the fields in the given
+     * order, so equality filters on a leading set of the fields together
+     * with a range filter on the next field are answered by a single scan
+     * of the index. If `indexOptions` is `null`, it will use default options.
+     *
+     * The index is named after its fields joined by `,`, e.g. `"a,b"`. Use
+     * that name to rebuild, check or drop the index.
+     *
+     * [icon="{@docRoot}/note.png"]
+     * [NOTE]
+     * ====
+     * - Full text index is not supported on multiple fields.
+     * - A document having none of the fields is not indexed.
+     * - For a unique compound index, the combination of the values must be unique.
+     * ====
+     *
+     * @param fields       the fields to be indexed, in the order of significance.
+     * @param indexOptions index options.
+     * @throws IndexingException if an index already exists on `fields`.
+     * @see IndexOptions
+     * @see IndexType
+     * @since 3.4.3
+     */
+    void createIndex(String[] fields, IndexOptions indexOptions);
+
     /**
      * Rebuilds index on `field` if it exists.
      *
@@ -91,6 +119,18 @@ public interface PersistentCollection<T> extends ChangeAware, MetadataAware, Clo
      */
     boolean hasIndex(String field);
 
+    /**
+     * Gets the statistics of the keys of the index on a `field`. They
+     * are collected when the index is built, or in background when the
+     * collection is opened, and kept up to date on later writes.
+     *
+     * @param field the indexed field.
+     * @return the statistics of the index, or `null` if the `field` is not
+     * indexed or its statistics are still being collected.
+     * @since 3.4.3
+     */
+    IndexStatistics getIndexStatistics(String field);
+
     /**
      * Checks if indexing operation is currently ongoing for a `field`.
      *
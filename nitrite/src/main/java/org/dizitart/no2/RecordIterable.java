@@ -58,6 +58,10 @@ public interface RecordIterable<T> extends Iterable<T> {
      * the size of all matching results in the database that may or may not
      * be retrieved yet.
      *
+     * The total count is the one at the time of the find operation, even if
+     * it is computed only when asked for. Documents written to the collection
+     * afterwards are not counted.
+     *
      * ====
      *
      * @return total count of matching documents.
@@ -114,6 +114,11 @@ public class ErrorCodes {
     public static final int VE_FIND_NOT_IN_INDEX_NULL_FIELD = 1086;
     public static final int VE_FIND_NOT_IN_INDEX_NULL_VALUE = 1087;
     public static final int VE_OBJ_REMOVE_NULL_OBJECT = 1088;
+    public static final int VE_FIND_AND_PLAN_NULL_FILTERS = 1089;
+    public static final int VE_CREATE_COMPOUND_INDEX_INVALID_FIELDS = 1090;
+    public static final int VE_OBJ_CREATE_INDEX_NULL_FIELDS = 1091;
+    public static final int VE_KEYSET_VALUE_NOT_COMPARABLE = 1092;
+    public static final int VE_KEYSET_VALUE_INCOMPATIBLE = 1093;
 
     /* NitriteIOException Codes */
     public static final int NIOE_DATABASE_OPENED = 2001;
@@ -192,6 +197,9 @@ public class ErrorCodes {
     public static final int FE_SEARCH_TERM_INVALID_TRAILING_STAR = 4044;
     public static final int FE_MULTIPLE_WORDS_WITH_WILDCARD = 4045;
     public static final int FE_NOT_IN_SEARCH_TERM_NOT_COMPARABLE = 4046;
+    public static final int FE_FILTERED_COUNT_FAILED = 4047;
+    public static final int FE_FUZZY_INVALID_MAX_EDITS = 4048;
+    public static final int FE_MULTIPLE_WORDS_WITH_FUZZY = 4049;
 
     /* IndexingException Codes */
     public static final int IE_TEXT_FILTER_FIELD_NOT_INDEXED = 5001;
@@ -215,6 +223,15 @@ public class ErrorCodes {
     public static final int IE_FAILED_TO_QUERY_FTS_DATA = 5019;
     public static final int IE_INVALID_TYPE_FOR_INDEX = 5020;
     public static final int IE_REBUILD_INDEX_DOES_NOT_EXISTS = 5021;
+    public static final int IE_FULL_TEXT_COMPOUND_INDEX = 5022;
+    public static final int IE_BUILD_INDEX_FAILED = 5023;
+    public static final int IE_MULTIKEY_COMPOUND_INDEX = 5024;
+    public static final int IE_HASH_COMPOUND_INDEX = 5025;
+    public static final int IE_INDEX_ON_UNSTABLE_HASH_VALUE = 5026;
+    public static final int IE_INVALID_PARTIAL_INDEX_FILTER = 5027;
+    public static final int IE_FUZZY_SEARCH_NOT_SUPPORTED = 5028;
+    public static final int IE_FAILED_TO_OPEN_FTS_INDEX = 5029;
+    public static final int IE_FAILED_TO_COMMIT_FTS_DATA = 5030;
 
     /* InvalidIdException Codes */
     public static final int IIE_COMPARISON_WITH_NULL_ID = 6001;
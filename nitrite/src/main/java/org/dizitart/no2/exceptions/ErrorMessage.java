@@ -173,6 +173,10 @@ public class ErrorMessage {
             new ErrorMessage("find operation failed",
                     FE_FILTERED_FIND_WITH_OPTION_FAILED);
 
+    public static final ErrorMessage FILTERED_COUNT_OPERATION_FAILED =
+            new ErrorMessage("count operation failed",
+                    FE_FILTERED_COUNT_FAILED);
+
     public static final ErrorMessage NESTED_OBJ_ELEM_MATCH_NOT_SUPPORTED =
             new ErrorMessage("nested elemMatch filter is not supported",
                     FE_OBJ_ELEM_MATCH_NESTED);
@@ -201,6 +205,18 @@ public class ErrorMessage {
             new ErrorMessage("multiple words with wildcard is not supported",
                     FE_MULTIPLE_WORDS_WITH_WILDCARD);
 
+    public static final ErrorMessage MULTIPLE_WORDS_WITH_FUZZY =
+            new ErrorMessage("multiple words with fuzzy search is not supported",
+                    FE_MULTIPLE_WORDS_WITH_FUZZY);
+
+    public static final ErrorMessage INVALID_FUZZY_MAX_EDITS =
+            new ErrorMessage("maximum edits of a fuzzy search must be between 0 and 2",
+                    FE_FUZZY_INVALID_MAX_EDITS);
+
+    public static final ErrorMessage FUZZY_SEARCH_NOT_SUPPORTED =
+            new ErrorMessage("fuzzy search is not supported by the text indexing service",
+                    IE_FUZZY_SEARCH_NOT_SUPPORTED);
+
     public static final ErrorMessage NON_STRING_VALUE_IN_FULL_TEXT_INDEX =
             new ErrorMessage("value must be of string data type",
                     IE_FULL_TEXT_NON_STRING_VALUE);
@@ -253,6 +269,14 @@ public class ErrorMessage {
             new ErrorMessage("pagination offset is greater than total size",
                     VE_OFFSET_GREATER_THAN_SIZE);
 
+    public static final ErrorMessage KEYSET_VALUE_NOT_COMPARABLE =
+            new ErrorMessage("sort value to resume a find after is not comparable",
+                    VE_KEYSET_VALUE_NOT_COMPARABLE);
+
+    public static final ErrorMessage KEYSET_VALUE_INCOMPATIBLE =
+            new ErrorMessage("sort value to resume a find after does not match the sorted values",
+                    VE_KEYSET_VALUE_INCOMPATIBLE);
+
     public static final ErrorMessage REPOSITORY_NOT_INITIALIZED =
             new ErrorMessage("repository has not been initialized properly",
                     VE_REPOSITORY_NOT_INITIALIZED);
@@ -20,26 +20,22 @@ package org.dizitart.no2.filters;
 
 import lombok.Getter;
 import lombok.ToString;
-import lombok.extern.slf4j.Slf4j;
 import org.dizitart.no2.Document;
 import org.dizitart.no2.Filter;
 import org.dizitart.no2.NitriteId;
 import org.dizitart.no2.exceptions.FilterException;
 import org.dizitart.no2.store.NitriteMap;
 
-import java.util.LinkedHashSet;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 
 import static org.dizitart.no2.exceptions.ErrorMessage.INVALID_AND_FILTER;
 
 @Getter
-@Slf4j
 @ToString
 class AndFilter extends BaseFilter {
+    private static final long serialVersionUID = 1561024804L;
     private Filter[] filters;
 
     AndFilter(final Filter... filters) {
@@ -48,32 +44,61 @@ class AndFilter extends BaseFilter {
 
     @Override
     public Set<NitriteId> apply(final NitriteMap<NitriteId, Document> documentMap) {
-        Set<NitriteId> result = new LinkedHashSet<>();
-        ExecutorService executorService = nitriteService.getNitriteContext().getWorkerPool();
-
         try {
-            List<Callable<Set<NitriteId>>> tasks = createTasks(filters, documentMap);
-
-            boolean initialCount = true;
-            List<Future<Set<NitriteId>>> futures = executorService.invokeAll(tasks);
-            for (Future<Set<NitriteId>> future : futures) {
-                Set<NitriteId> nitriteIds = future.get();
-                if (initialCount && nitriteIds != null) {
-                    result.addAll(nitriteIds);
-                    initialCount = false;
-                } else if (nitriteIds != null) {
-                    if (nitriteIds.isEmpty()) {
-                        result.clear();
-                    }
-                    result.retainAll(nitriteIds);
-                }
-            }
+            List<Filter> operands = new ArrayList<>();
+            collectOperands(this, operands);
+            return nitriteService.findAndWithPlan(operands.toArray(new Filter[0]), documentMap);
         } catch (FilterException fe) {
             throw fe;
         } catch (Throwable t) {
             throw new FilterException(INVALID_AND_FILTER, t);
         }
+    }
+
+    @Override
+    public boolean canUseIndex() {
+        List<Filter> operands = new ArrayList<>();
+        collectOperands(this, operands);
+        return canUseIndex(operands);
+    }
+
+    @Override
+    public DocumentPredicate compile() {
+        List<Filter> operands = new ArrayList<>();
+        collectOperands(this, operands);
 
-        return result;
+        final DocumentPredicate[] predicates = new DocumentPredicate[operands.size()];
+        for (int i = 0; i < predicates.length; i++) {
+            predicates[i] = compile(operands.get(i));
+            if (predicates[i] == null) return null;
+        }
+
+        return new DocumentPredicate() {
+            @Override
+            public boolean test(Document document) {
+                for (DocumentPredicate predicate : predicates) {
+                    if (!predicate.test(document)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        };
+    }
+
+    private void collectOperands(AndFilter andFilter, List<Filter> operands) {
+        // nested and filters are flattened so that the planner
+        // can choose an access path among all of their operands
+        for (Filter filter : andFilter.filters) {
+            if (filter instanceof AndFilter) {
+                collectOperands((AndFilter) filter, operands);
+            } else {
+                filter.setNitriteService(nitriteService);
+                if (filter instanceof BaseFilter) {
+                    ((BaseFilter) filter).setConjunction(this);
+                }
+                operands.add(filter);
+            }
+        }
     }
 }
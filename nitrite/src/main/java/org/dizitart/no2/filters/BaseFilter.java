@@ -18,17 +18,19 @@
 
 package org.dizitart.no2.filters;
 
-import lombok.extern.slf4j.Slf4j;
 import org.dizitart.no2.Document;
 import org.dizitart.no2.Filter;
 import org.dizitart.no2.NitriteId;
+import org.dizitart.no2.fulltext.RankedResult;
 import org.dizitart.no2.internals.NitriteService;
 import org.dizitart.no2.store.NitriteMap;
+import org.dizitart.no2.util.FieldPath;
 
-import java.util.ArrayList;
+import java.io.Serializable;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Callable;
 
 /**
  * An abstract implementation of {@link Filter}.
@@ -36,35 +38,136 @@ import java.util.concurrent.Callable;
  * @author Anindya Chatterjee
  * @since 1.0
  */
-@Slf4j
-public abstract class BaseFilter implements Filter {
+public abstract class BaseFilter implements Filter, Serializable {
+    private static final long serialVersionUID = 1561024800L;
+
+    // default selectivity estimates, used when nothing better is known
+    // about the distribution of values of a field
+    private static final double EQUALITY_SELECTIVITY = 0.1;
+    private static final double RANGE_SELECTIVITY = 1.0 / 3;
+
     /**
      * The Nitrite service.
      */
-    protected NitriteService nitriteService;
+    protected transient NitriteService nitriteService;
+
+    // the and filter this filter is an operand of, which
+    // decides along with it if a partial index can be used
+    private transient AndFilter conjunction;
+
+    // the compiled path of the field the filter reads, so that
+    // a scan does not parse the field name for every document
+    private transient FieldPath fieldPath;
 
     @Override
     public void setNitriteService(NitriteService nitriteService) {
         this.nitriteService = nitriteService;
+        this.conjunction = null;
+    }
+
+    /**
+     * Specifies if every document matched by the filter, and by the and
+     * filter it is an operand of, is also matched by the `partialFilter`.
+     * Only then a partial index with that filter can answer the filter.
+     *
+     * @param partialFilter the filter of a partial index
+     * @return `true` if the filter implies the `partialFilter`; otherwise `false`.
+     * @since 3.4.3
+     */
+    public boolean implies(Filter partialFilter) {
+        return FilterImplication.implies(conjunction == null ? this : conjunction, partialFilter);
+    }
+
+    /**
+     * Compiles the filter into a {@link DocumentPredicate}, which evaluates
+     * the filter against a single document. A compiled filter tree can be
+     * evaluated for the whole collection in one pass.
+     *
+     * @return the compiled predicate, or `null` if the filter can only be
+     * evaluated against the whole collection, like a full-text filter.
+     */
+    public DocumentPredicate compile() {
+        if (this instanceof DocumentPredicate) {
+            return (DocumentPredicate) this;
+        }
+        return null;
+    }
+
+    /**
+     * Specifies if the filter, or any of its operands, can be evaluated
+     * from an index instead of a scan of the collection.
+     *
+     * @return `true` if an index can be used; otherwise `false`.
+     */
+    public boolean canUseIndex() {
+        return false;
+    }
+
+    /**
+     * Finds the best matches of the filter in the order of their relevance,
+     * if the filter ranks the documents it matches, like a full-text filter.
+     * As only the first `limit` matches are needed, most of the matching
+     * documents are not scored at all.
+     *
+     * @param limit the number of best matches needed
+     * @return the ranked matches, or `null` if the filter does not rank them.
+     * @since 3.4.3
+     */
+    public RankedResult applyRanked(int limit) {
+        return null;
+    }
+
+    void setConjunction(AndFilter conjunction) {
+        this.conjunction = conjunction;
+    }
+
+    boolean canUsePartialIndex(String field) {
+        Filter partialFilter = nitriteService.getPartialFilter(field);
+        return partialFilter == null || implies(partialFilter);
     }
 
-    List<Callable<Set<NitriteId>>> createTasks(Filter[] filters,
-                                               final NitriteMap<NitriteId, Document> documentMap) {
-        List<Callable<Set<NitriteId>>> tasks = new ArrayList<>();
-        for (final Filter filter : filters) {
+    FieldPath fieldPath(String field) {
+        FieldPath path = fieldPath;
+        if (path == null || !path.getField().equals(field)) {
+            path = FieldPath.of(field);
+            fieldPath = path;
+        }
+        return path;
+    }
+
+    Set<NitriteId> matchedSet(NitriteMap<NitriteId, Document> documentMap,
+                              DocumentPredicate predicate) {
+        Set<NitriteId> nitriteIdSet = new LinkedHashSet<>();
+        for (Map.Entry<NitriteId, Document> entry : documentMap.entrySet()) {
+            if (predicate.test(entry.getValue())) {
+                nitriteIdSet.add(entry.getKey());
+            }
+        }
+        return nitriteIdSet;
+    }
+
+    DocumentPredicate compile(Filter filter) {
+        if (filter instanceof BaseFilter) {
             filter.setNitriteService(nitriteService);
-            tasks.add(new Callable<Set<NitriteId>>() {
-                @Override
-                public Set<NitriteId> call() throws Exception {
-                    try {
-                        return filter.apply(documentMap);
-                    } catch (Exception e) {
-                        log.error("Error while executing filter " + filter.toString(), e);
-                        throw e;
-                    }
-                }
-            });
+            return ((BaseFilter) filter).compile();
+        }
+        return null;
+    }
+
+    static boolean canUseIndex(List<Filter> operands) {
+        for (Filter filter : operands) {
+            if (filter instanceof BaseFilter && ((BaseFilter) filter).canUseIndex()) {
+                return true;
+            }
         }
-        return tasks;
+        return false;
+    }
+
+    static double equalitySelectivity(long keyCount) {
+        return keyCount > 0 ? 1.0 / keyCount : EQUALITY_SELECTIVITY;
+    }
+
+    static double rangeSelectivity() {
+        return RANGE_SELECTIVITY;
     }
 }
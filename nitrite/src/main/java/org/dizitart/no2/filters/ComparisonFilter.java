@@ -20,14 +20,20 @@ package org.dizitart.no2.filters;
 
 import lombok.Getter;
 import lombok.ToString;
+import org.dizitart.no2.Document;
+import org.dizitart.no2.NitriteId;
 import org.dizitart.no2.exceptions.FilterException;
-import org.dizitart.no2.internals.NitriteService;
+import org.dizitart.no2.store.NitriteMap;
 
+import java.util.Set;
+
+import static org.dizitart.no2.Constants.DOC_ID;
 import static org.dizitart.no2.exceptions.ErrorMessage.VALUE_IS_NOT_COMPARABLE;
 
 @Getter
 @ToString
-abstract class ComparisonFilter extends BaseFilter {
+abstract class ComparisonFilter extends BaseFilter implements IndexAwareFilter {
+    private static final long serialVersionUID = 1561024801L;
     protected String field;
     protected Comparable comparable;
 
@@ -41,7 +47,26 @@ abstract class ComparisonFilter extends BaseFilter {
     }
 
     @Override
-    public void setNitriteService(NitriteService nitriteService) {
-        this.nitriteService = nitriteService;
+    public Set<NitriteId> apply(NitriteMap<NitriteId, Document> documentMap) {
+        if (canUseIndex()) {
+            return applyOnIndex(documentMap);
+        } else {
+            return matchedSet(documentMap, this);
+        }
+    }
+
+    @Override
+    public boolean canUseIndex() {
+        return field.equals(DOC_ID)
+                || (nitriteService.hasIndex(field)
+                && !nitriteService.isIndexing(field)
+                && !nitriteService.hasMultikeyIndex(field)
+                && !nitriteService.hasHashIndex(field)
+                && canUsePartialIndex(field));
+    }
+
+    @Override
+    public double estimateSelectivity(long keyCount) {
+        return rangeSelectivity();
     }
 }
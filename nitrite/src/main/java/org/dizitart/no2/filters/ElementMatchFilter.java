@@ -39,10 +39,12 @@ import static org.dizitart.no2.util.NumberUtils.compare;
 /**
  * @author Anindya Chatterjee.
  */
-@ToString
-class ElementMatchFilter extends BaseFilter {
+@ToString(exclude = "elementMatcher")
+class ElementMatchFilter extends BaseFilter implements IndexAwareFilter {
+    private static final long serialVersionUID = 1561024815L;
     private String field;
     private Filter elementFilter;
+    private transient ElementMatcher elementMatcher;
 
     ElementMatchFilter(String field, Filter elementFilter) {
         this.field = field;
@@ -50,8 +52,16 @@ class ElementMatchFilter extends BaseFilter {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public Set<NitriteId> apply(NitriteMap<NitriteId, Document> documentMap) {
+        DocumentPredicate predicate = compile();
+        if (canUseIndex()) {
+            return applyOnIndex(documentMap);
+        }
+        return matchedSet(documentMap, predicate);
+    }
+
+    @Override
+    public DocumentPredicate compile() {
         if (elementFilter instanceof ElementMatchFilter) {
             throw new FilterException(NESTED_ELEM_MATCH_NOT_SUPPORTED);
         }
@@ -61,88 +71,256 @@ class ElementMatchFilter extends BaseFilter {
         }
 
         elementFilter.setNitriteService(nitriteService);
+        if (elementMatcher == null) {
+            // the filter tree is resolved once, instead of once per element
+            elementMatcher = matcher(elementFilter);
+        }
+        return this;
+    }
 
-        Set<NitriteId> nitriteIdSet = new LinkedHashSet<>();
-        for (Map.Entry<NitriteId, Document> entry: documentMap.entrySet()) {
-            Document document = entry.getValue();
-            Object fieldValue = getFieldValue(document, field);
+    /**
+     * Gets the field of the multikey index which can answer the filter,
+     * or the array field if there is no such index.
+     *
+     * @return the field.
+     */
+    @Override
+    public String getField() {
+        String indexedField = indexedField();
+        return indexedField == null ? field : indexedField;
+    }
 
-            if (fieldValue == null) {
-                continue;
+    @Override
+    public boolean canUseIndex() {
+        String indexedField = indexedField();
+        return indexedField != null && !nitriteService.isIndexing(indexedField)
+                && canUsePartialIndex(indexedField);
+    }
+
+    @Override
+    public Set<NitriteId> applyOnIndex(NitriteMap<NitriteId, Document> documentMap) {
+        String indexedField = indexedField();
+        Filter keyFilter = keyFilter(elementFilter);
+
+        Set<NitriteId> candidates;
+        if (keyFilter instanceof EqualsFilter) {
+            candidates = nitriteService.findEqualWithIndex(indexedField,
+                    ((EqualsFilter) keyFilter).getValue());
+        } else {
+            candidates = nitriteService.findInWithIndex(indexedField,
+                    ((InFilter) keyFilter).getObjectList());
+        }
+
+        // the index only finds the documents having a matching
+        // element, the rest of the filter is verified per document
+        Set<NitriteId> resultSet = new LinkedHashSet<>();
+        for (NitriteId nitriteId : candidates) {
+            Document document = documentMap.get(nitriteId);
+            if (document != null && test(document)) {
+                resultSet.add(nitriteId);
             }
+        }
+        return resultSet;
+    }
 
-            if (fieldValue.getClass().isArray()) {
-                int length = Array.getLength(fieldValue);
-                List list = new ArrayList(length);
-                for (int i = 0; i < length; i++) {
-                    Object item = Array.get(fieldValue, i);
-                    list.add(item);
-                }
+    @Override
+    public KeyRange getKeyRange() {
+        return null;
+    }
+
+    @Override
+    public double estimateSelectivity(long keyCount) {
+        Filter keyFilter = keyFilter(elementFilter);
+        if (keyFilter instanceof InFilter) {
+            int valueCount = ((InFilter) keyFilter).getObjectList().size();
+            return Math.min(1.0, valueCount * equalitySelectivity(keyCount));
+        }
+        return equalitySelectivity(keyCount);
+    }
 
-                if (matches(list, elementFilter)) {
-                    nitriteIdSet.add(entry.getKey());
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean test(Document document) {
+        if (elementMatcher == null) {
+            compile();
+        }
+
+        Object fieldValue = fieldPath(field).getValue(document);
+
+        if (fieldValue == null) {
+            return false;
+        }
+
+        if (fieldValue.getClass().isArray()) {
+            int length = Array.getLength(fieldValue);
+            for (int i = 0; i < length; i++) {
+                if (elementMatcher.matches(Array.get(fieldValue, i))) {
+                    return true;
                 }
-            } else if (fieldValue instanceof Iterable) {
-                if (matches((Iterable) fieldValue, elementFilter)) {
-                    nitriteIdSet.add(entry.getKey());
+            }
+            return false;
+        } else if (fieldValue instanceof Iterable) {
+            for (Object item : (Iterable) fieldValue) {
+                if (elementMatcher.matches(item)) {
+                    return true;
                 }
-            } else {
-                throw new FilterException(ELEM_MATCH_SUPPORTED_ON_ARRAY_ONLY);
             }
+            return false;
+        } else {
+            throw new FilterException(ELEM_MATCH_SUPPORTED_ON_ARRAY_ONLY);
+        }
+    }
+
+    private String indexedField() {
+        if (nitriteService == null) return null;
+
+        Filter keyFilter = keyFilter(elementFilter);
+        if (keyFilter == null) return null;
+
+        // an index on a field of the documents inside the array,
+        // or else on the elements of the array themselves
+        String elementField = keyFilter instanceof EqualsFilter
+                ? ((EqualsFilter) keyFilter).getField()
+                : ((InFilter) keyFilter).getField();
+        String nestedField = field + "." + elementField;
+        if (nitriteService.hasMultikeyIndex(nestedField)) {
+            return nestedField;
         }
-        return nitriteIdSet;
+        if (nitriteService.hasMultikeyIndex(field)) {
+            return field;
+        }
+        return null;
     }
 
-    private boolean matches(Iterable iterable, Filter filter) {
-        for (Object item : iterable) {
-            if (matchElement(item, filter)) {
-                return true;
+    private Filter keyFilter(Filter filter) {
+        if (filter instanceof EqualsFilter) {
+            return ((EqualsFilter) filter).getValue() instanceof Comparable ? filter : null;
+        } else if (filter instanceof InFilter) {
+            return filter;
+        } else if (filter instanceof AndFilter) {
+            for (Filter operand : ((AndFilter) filter).getFilters()) {
+                Filter keyFilter = keyFilter(operand);
+                if (keyFilter != null) {
+                    return keyFilter;
+                }
             }
         }
-        return false;
+        return null;
     }
 
-    @SuppressWarnings("unchecked")
-    private boolean matchElement(Object item, Filter filter) {
+    private ElementMatcher matcher(final Filter filter) {
         if (filter instanceof AndFilter) {
-            Filter[] filters = ((AndFilter) filter).getFilters();
-            for (Filter f : filters) {
-                if (!matchElement(item, f)) {
-                    return false;
+            final List<ElementMatcher> matchers = matchers(((AndFilter) filter).getFilters());
+            return new ElementMatcher() {
+                @Override
+                public boolean matches(Object item) {
+                    for (ElementMatcher matcher : matchers) {
+                        if (!matcher.matches(item)) {
+                            return false;
+                        }
+                    }
+                    return true;
                 }
-            }
-            return true;
+            };
         } else if (filter instanceof OrFilter) {
-            Filter[] filters = ((OrFilter) filter).getFilters();
-            for (Filter f : filters) {
-                if (matchElement(item, f)) {
-                    return true;
+            final List<ElementMatcher> matchers = matchers(((OrFilter) filter).getFilters());
+            return new ElementMatcher() {
+                @Override
+                public boolean matches(Object item) {
+                    for (ElementMatcher matcher : matchers) {
+                        if (matcher.matches(item)) {
+                            return true;
+                        }
+                    }
+                    return false;
                 }
-            }
-            return false;
+            };
         } else if (filter instanceof NotFilter) {
-            Filter not = ((NotFilter) filter).getFilter();
-            return !matchElement(item, not);
+            final ElementMatcher matcher = matcher(((NotFilter) filter).getFilter());
+            return new ElementMatcher() {
+                @Override
+                public boolean matches(Object item) {
+                    return !matcher.matches(item);
+                }
+            };
         } else if (filter instanceof EqualsFilter) {
-            return matchEqual(item, filter);
+            return new ElementMatcher() {
+                @Override
+                public boolean matches(Object item) {
+                    return matchEqual(item, filter);
+                }
+            };
         } else if (filter instanceof GreaterEqualFilter) {
-            return matchGreaterEqual(item, filter);
+            return new ElementMatcher() {
+                @Override
+                public boolean matches(Object item) {
+                    return matchGreaterEqual(item, filter);
+                }
+            };
         } else if (filter instanceof GreaterThanFilter) {
-            return matchGreater(item, filter);
+            return new ElementMatcher() {
+                @Override
+                public boolean matches(Object item) {
+                    return matchGreater(item, filter);
+                }
+            };
         } else if (filter instanceof LesserEqualFilter) {
-            return matchLesserEqual(item, filter);
+            return new ElementMatcher() {
+                @Override
+                public boolean matches(Object item) {
+                    return matchLesserEqual(item, filter);
+                }
+            };
         } else if (filter instanceof LesserThanFilter) {
-            return matchLesser(item, filter);
+            return new ElementMatcher() {
+                @Override
+                public boolean matches(Object item) {
+                    return matchLesser(item, filter);
+                }
+            };
         } else if (filter instanceof InFilter) {
-            return matchIn(item, filter);
+            final Set<Object> values = new HashSet<>();
+            Collections.addAll(values, ((InFilter) filter).getValues());
+            return new ElementMatcher() {
+                @Override
+                public boolean matches(Object item) {
+                    return matchIn(item, filter, values);
+                }
+            };
         } else if (filter instanceof NotInFilter) {
-            return matchNotIn(item, filter);
+            final Set<Object> values = new HashSet<>();
+            Collections.addAll(values, ((NotInFilter) filter).getValues());
+            return new ElementMatcher() {
+                @Override
+                public boolean matches(Object item) {
+                    return matchNotIn(item, filter, values);
+                }
+            };
         } else if (filter instanceof RegexFilter) {
-            return matchRegex(item, filter);
+            final Pattern pattern = Pattern.compile(((RegexFilter) filter).getValue());
+            return new ElementMatcher() {
+                @Override
+                public boolean matches(Object item) {
+                    return matchRegex(item, filter, pattern);
+                }
+            };
         } else {
-            throw new FilterException(errorMessage("filter " + filter.getClass().getName() +
-                    " is not a supported in elemMatch", FE_ELEM_MATCH_INVALID_FILTER));
+            return new ElementMatcher() {
+                @Override
+                public boolean matches(Object item) {
+                    throw new FilterException(errorMessage("filter " + filter.getClass().getName() +
+                            " is not a supported in elemMatch", FE_ELEM_MATCH_INVALID_FILTER));
+                }
+            };
+        }
+    }
+
+    private List<ElementMatcher> matchers(Filter[] filters) {
+        List<ElementMatcher> matchers = new ArrayList<>(filters.length);
+        for (Filter filter : filters) {
+            matchers.add(matcher(filter));
         }
+        return matchers;
     }
 
     private boolean matchEqual(Object item, Filter filter) {
@@ -260,10 +438,7 @@ class ElementMatchFilter extends BaseFilter {
         }
     }
 
-    private boolean matchIn(Object item, Filter filter) {
-        Set<Object> values = new HashSet<>();
-        Collections.addAll(values, ((InFilter) filter).getValues());
-
+    private boolean matchIn(Object item, Filter filter, Set<Object> values) {
         if (!values.isEmpty()) {
             if (item instanceof Document) {
                 Document document = (Document) item;
@@ -276,10 +451,7 @@ class ElementMatchFilter extends BaseFilter {
         return false;
     }
 
-    private boolean matchNotIn(Object item, Filter filter) {
-        Set<Object> values = new HashSet<>();
-        Collections.addAll(values, ((NotInFilter) filter).getValues());
-
+    private boolean matchNotIn(Object item, Filter filter, Set<Object> values) {
         if (!values.isEmpty()) {
             if (item instanceof Document) {
                 Document document = (Document) item;
@@ -292,17 +464,14 @@ class ElementMatchFilter extends BaseFilter {
         return false;
     }
 
-    private boolean matchRegex(Object item, Filter filter) {
-        String value = ((RegexFilter) filter).getValue();
+    private boolean matchRegex(Object item, Filter filter, Pattern pattern) {
         if (item instanceof String) {
-            Pattern pattern = Pattern.compile(value);
             Matcher matcher = pattern.matcher((String) item);
             return matcher.find();
         } else if (item instanceof Document) {
             Document document = (Document) item;
             Object docValue = getFieldValue(document, ((RegexFilter) filter).getField());
             if (docValue instanceof String) {
-                Pattern pattern = Pattern.compile(value);
                 Matcher matcher = pattern.matcher((String) docValue);
                 return matcher.find();
             } else {
@@ -316,4 +485,8 @@ class ElementMatchFilter extends BaseFilter {
                     FE_ELEM_MATCH_REGEX_INVALID_ITEM));
         }
     }
+
+    private interface ElementMatcher {
+        boolean matches(Object item);
+    }
 }
@@ -25,16 +25,16 @@ import org.dizitart.no2.NitriteId;
 import org.dizitart.no2.store.NitriteMap;
 
 import java.util.LinkedHashSet;
-import java.util.Map;
 import java.util.Set;
 
 import static org.dizitart.no2.Constants.DOC_ID;
-import static org.dizitart.no2.util.DocumentUtils.getFieldValue;
+import static org.dizitart.no2.util.DocumentUtils.getElements;
 import static org.dizitart.no2.util.EqualsUtils.deepEquals;
 
 @Getter
 @ToString
-class EqualsFilter extends BaseFilter {
+class EqualsFilter extends BaseFilter implements IndexAwareFilter {
+    private static final long serialVersionUID = 1561024807L;
     private String field;
     private Object value;
 
@@ -45,6 +45,25 @@ class EqualsFilter extends BaseFilter {
 
     @Override
     public Set<NitriteId> apply(NitriteMap<NitriteId, Document> documentMap) {
+        if (canUseIndex()) {
+            return applyOnIndex(documentMap);
+        } else {
+            return matchedSet(documentMap, this);
+        }
+    }
+
+    @Override
+    public boolean canUseIndex() {
+        return field.equals(DOC_ID)
+                || (nitriteService.hasIndex(field)
+                && !nitriteService.isIndexing(field)
+                && value != null
+                && (value instanceof Comparable || !nitriteService.hasMultikeyIndex(field))
+                && canUsePartialIndex(field));
+    }
+
+    @Override
+    public Set<NitriteId> applyOnIndex(NitriteMap<NitriteId, Document> documentMap) {
         if (field.equals(DOC_ID)) {
             Set<NitriteId> nitriteIdSet = new LinkedHashSet<>();
             NitriteId nitriteId = null;
@@ -58,24 +77,35 @@ class EqualsFilter extends BaseFilter {
                 }
             }
             return nitriteIdSet;
-        } else if (nitriteService.hasIndex(field)
-                && !nitriteService.isIndexing(field)
-                && value != null) {
-            return nitriteService.findEqualWithIndex(field, value);
-        } else {
-            return matchedSet(documentMap);
         }
+        return nitriteService.findEqualWithIndex(field, value);
+    }
+
+    @Override
+    public KeyRange getKeyRange() {
+        return value instanceof Comparable ? KeyRange.equalTo((Comparable) value) : null;
+    }
+
+    @Override
+    public double estimateSelectivity(long keyCount) {
+        return equalitySelectivity(keyCount);
     }
 
-    private Set<NitriteId> matchedSet(NitriteMap<NitriteId, Document> documentMap) {
-        Set<NitriteId> nitriteIdSet = new LinkedHashSet<>();
-        for (Map.Entry<NitriteId, Document> entry: documentMap.entrySet()) {
-            Document document = entry.getValue();
-            Object fieldValue = getFieldValue(document, field);
-            if (deepEquals(fieldValue, value)) {
-                nitriteIdSet.add(entry.getKey());
+    @Override
+    public boolean test(Document document) {
+        Object fieldValue = fieldPath(field).getValue(document);
+        if (deepEquals(fieldValue, value)) return true;
+
+        // an array matches if any of its elements is equal to the value,
+        // which is also how a multikey index of the field is searched
+        Iterable<?> elements = value == null ? null : getElements(fieldValue);
+        if (elements != null) {
+            for (Object element : elements) {
+                if (deepEquals(element, value)) {
+                    return true;
+                }
             }
         }
-        return nitriteIdSet;
+        return false;
     }
 }
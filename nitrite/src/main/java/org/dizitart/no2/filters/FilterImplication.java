@@ -0,0 +1,133 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.filters;
+
+import lombok.experimental.UtilityClass;
+import org.dizitart.no2.Filter;
+
+import static org.dizitart.no2.util.EqualsUtils.deepEquals;
+import static org.dizitart.no2.util.NumberUtils.compare;
+
+/**
+ * Decides if a filter implies another, i.e. if every document matched by
+ * the filter is also matched by the other one. The decision is conservative,
+ * it only recognizes equality, `in` and range filters on the same field
+ * combined by and and or filters, and answers `false` when in doubt.
+ *
+ * @author Anindya Chatterjee.
+ */
+@UtilityClass
+class FilterImplication {
+    static boolean implies(Filter filter, Filter other) {
+        if (filter == other) return true;
+
+        if (other instanceof AndFilter) {
+            for (Filter operand : ((AndFilter) other).getFilters()) {
+                if (!implies(filter, operand)) return false;
+            }
+            return true;
+        }
+
+        if (other instanceof OrFilter) {
+            for (Filter operand : ((OrFilter) other).getFilters()) {
+                if (implies(filter, operand)) return true;
+            }
+        }
+
+        if (filter instanceof AndFilter) {
+            for (Filter operand : ((AndFilter) filter).getFilters()) {
+                if (implies(operand, other)) return true;
+            }
+            return false;
+        }
+
+        if (filter instanceof OrFilter) {
+            for (Filter operand : ((OrFilter) filter).getFilters()) {
+                if (!implies(operand, other)) return false;
+            }
+            return true;
+        }
+
+        return impliesOperand(filter, other);
+    }
+
+    private static boolean impliesOperand(Filter filter, Filter other) {
+        if (filter instanceof EqualsFilter) {
+            EqualsFilter equalsFilter = (EqualsFilter) filter;
+            if (other instanceof EqualsFilter) {
+                EqualsFilter otherFilter = (EqualsFilter) other;
+                return equalsFilter.getField().equals(otherFilter.getField())
+                        && deepEquals(equalsFilter.getValue(), otherFilter.getValue());
+            }
+
+            if (other instanceof InFilter) {
+                InFilter otherFilter = (InFilter) other;
+                return equalsFilter.getField().equals(otherFilter.getField())
+                        && otherFilter.getObjectList().contains(equalsFilter.getValue());
+            }
+            return false;
+        }
+
+        if (filter instanceof InFilter && other instanceof InFilter) {
+            InFilter inFilter = (InFilter) filter;
+            InFilter otherFilter = (InFilter) other;
+            return inFilter.getField().equals(otherFilter.getField())
+                    && otherFilter.getObjectList().containsAll(inFilter.getObjectList());
+        }
+
+        if (filter instanceof ComparisonFilter && other instanceof ComparisonFilter) {
+            return impliesRange((ComparisonFilter) filter, (ComparisonFilter) other);
+        }
+        return false;
+    }
+
+    private static boolean impliesRange(ComparisonFilter filter, ComparisonFilter other) {
+        if (!filter.getField().equals(other.getField())
+                || isLowerBound(filter) != isLowerBound(other)) {
+            return false;
+        }
+
+        Integer result = compareBounds(filter.getComparable(), other.getComparable());
+        if (result == null) return false;
+
+        // the bound of the filter must be at least as tight as the other one
+        int tightness = isLowerBound(filter) ? result : -result;
+        if (tightness != 0) return tightness > 0;
+        return isInclusive(other) || !isInclusive(filter);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Integer compareBounds(Comparable bound, Comparable other) {
+        if (bound instanceof Number && other instanceof Number) {
+            return compare((Number) bound, (Number) other);
+        }
+        if (bound.getClass() == other.getClass()) {
+            return bound.compareTo(other);
+        }
+        return null;
+    }
+
+    private static boolean isLowerBound(ComparisonFilter filter) {
+        return filter instanceof GreaterThanFilter || filter instanceof GreaterEqualFilter;
+    }
+
+    private static boolean isInclusive(ComparisonFilter filter) {
+        return filter instanceof GreaterEqualFilter || filter instanceof LesserEqualFilter;
+    }
+}
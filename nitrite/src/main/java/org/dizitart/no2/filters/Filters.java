@@ -46,6 +46,9 @@ public class Filters {
      * collection.find(eq("age", 30));
      * --
      *
+     * If the field holds an array, the filter also matches if any element
+     * of the array equals the specified value.
+     *
      * @param field the value
      * @param value the value
      * @return the equality filter.
@@ -216,6 +219,32 @@ public class Filters {
         return new TextFilter(field, value);
     }
 
+    /**
+     * Creates a fuzzy text filter which matches the documents having a word,
+     * in a field indexed with a full-text index, within `maxEdits` edits
+     * of the `term`. An edit is an insertion, a deletion or a substitution
+     * of a single character. The documents with the closest words come first.
+     *
+     * [[app-listing]]
+     * [source,java]
+     * .Example
+     * --
+     * // matches all documents where 'address' field has a word like 'roads',
+     * // 'road' or 'toads'.
+     * collection.find(fuzzy("address", "roads", 1));
+     * --
+     *
+     * @param field    the value
+     * @param term     the single word to search
+     * @param maxEdits the maximum number of edits, between 0 and 2
+     * @return the fuzzy text filter
+     * @see org.dizitart.no2.fulltext.TextIndexingService
+     * @since 3.4.3
+     */
+    public static Filter fuzzy(String field, String term, int maxEdits) {
+        return new FuzzyFilter(field, term, maxEdits);
+    }
+
     /**
      * Creates a string filter which provides regular expression capabilities
      * for pattern matching strings in documents.
@@ -248,6 +277,9 @@ public class Filters {
      * collection.find(in("age", 20, 30, 40));
      * --
      *
+     * If the field holds an array, the filter also matches if any element
+     * of the array equals any value in the specified array.
+     *
      * @param field  the value
      * @param values the range values
      * @return the in filter
@@ -0,0 +1,64 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.filters;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.dizitart.no2.Document;
+import org.dizitart.no2.NitriteId;
+import org.dizitart.no2.exceptions.IndexingException;
+import org.dizitart.no2.fulltext.RankedResult;
+import org.dizitart.no2.store.NitriteMap;
+
+import java.util.Set;
+
+import static org.dizitart.no2.exceptions.ErrorCodes.IE_TEXT_FILTER_FIELD_NOT_INDEXED;
+import static org.dizitart.no2.exceptions.ErrorMessage.errorMessage;
+
+/**
+ * @author Anindya Chatterjee.
+ * @since 3.4.3
+ */
+@Getter
+@ToString
+class FuzzyFilter extends TextFilter {
+    private static final long serialVersionUID = 1561024816L;
+    private int maxEdits;
+
+    FuzzyFilter(String field, String value, int maxEdits) {
+        super(field, value);
+        this.maxEdits = maxEdits;
+    }
+
+    @Override
+    public Set<NitriteId> apply(NitriteMap<NitriteId, Document> documentMap) {
+        if (nitriteService.hasIndex(field)
+                && !nitriteService.isIndexing(field)) {
+            return nitriteService.findFuzzyTextWithIndex(field, value, maxEdits);
+        } else {
+            throw new IndexingException(errorMessage(field + " is not indexed",
+                    IE_TEXT_FILTER_FIELD_NOT_INDEXED));
+        }
+    }
+
+    @Override
+    public RankedResult applyRanked(int limit) {
+        return null;
+    }
+}
@@ -26,12 +26,13 @@ import org.dizitart.no2.store.NitriteMap;
 
 import java.util.*;
 
-import static org.dizitart.no2.util.DocumentUtils.getFieldValue;
+import static org.dizitart.no2.util.DocumentUtils.getElements;
 import static org.dizitart.no2.util.ValidationUtils.validateInFilterValue;
 
 @Getter
 @ToString
-class InFilter extends BaseFilter {
+class InFilter extends BaseFilter implements IndexAwareFilter {
+    private static final long serialVersionUID = 1561024812L;
     private String field;
     private Object[] values;
     private Set<Object> objectList;
@@ -47,23 +48,51 @@ class InFilter extends BaseFilter {
     public Set<NitriteId> apply(NitriteMap<NitriteId, Document> documentMap) {
         validateInFilterValue(field, values);
 
-        if (nitriteService.hasIndex(field)
-                && !nitriteService.isIndexing(field) && objectList != null) {
-            return nitriteService.findInWithIndex(field, objectList);
+        if (canUseIndex()) {
+            return applyOnIndex(documentMap);
         } else {
-            return matchedSet(documentMap);
+            return matchedSet(documentMap, this);
         }
     }
 
-    private Set<NitriteId> matchedSet(NitriteMap<NitriteId, Document> documentMap) {
-        Set<NitriteId> nitriteIdSet = new LinkedHashSet<>();
-        for (Map.Entry<NitriteId, Document> entry: documentMap.entrySet()) {
-            Document document = entry.getValue();
-            Object fieldValue = getFieldValue(document, field);
-            if (objectList.contains(fieldValue)) {
-                nitriteIdSet.add(entry.getKey());
+    @Override
+    public boolean canUseIndex() {
+        return nitriteService.hasIndex(field)
+                && !nitriteService.isIndexing(field) && objectList != null
+                && canUsePartialIndex(field);
+    }
+
+    @Override
+    public Set<NitriteId> applyOnIndex(NitriteMap<NitriteId, Document> documentMap) {
+        validateInFilterValue(field, values);
+        return nitriteService.findInWithIndex(field, objectList);
+    }
+
+    @Override
+    public KeyRange getKeyRange() {
+        return null;
+    }
+
+    @Override
+    public double estimateSelectivity(long keyCount) {
+        return Math.min(1.0, objectList.size() * equalitySelectivity(keyCount));
+    }
+
+    @Override
+    public boolean test(Document document) {
+        validateInFilterValue(field, values);
+        Object fieldValue = fieldPath(field).getValue(document);
+        if (objectList.contains(fieldValue)) return true;
+
+        // an array matches if any of its elements is in the values
+        Iterable<?> elements = getElements(fieldValue);
+        if (elements != null) {
+            for (Object element : elements) {
+                if (objectList.contains(element)) {
+                    return true;
+                }
             }
         }
-        return nitriteIdSet;
+        return false;
     }
 }
@@ -0,0 +1,79 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.filters;
+
+import org.dizitart.no2.Document;
+import org.dizitart.no2.Filter;
+import org.dizitart.no2.NitriteId;
+import org.dizitart.no2.store.NitriteMap;
+
+import java.util.Set;
+
+/**
+ * Represents a {@link Filter} on a single field which can be served
+ * from an index, if the field is indexed, or from the primary key map
+ * if the field is `_id`. It can also be evaluated against a single
+ * document, so that a query planner can use the most selective of such
+ * filters as an access path and verify the rest per candidate document.
+ *
+ * @author Anindya Chatterjee
+ * @since 3.4.3
+ */
+public interface IndexAwareFilter extends Filter, DocumentPredicate {
+    /**
+     * Gets the field on which the filter operates.
+     *
+     * @return the field.
+     */
+    String getField();
+
+    /**
+     * Specifies if the filter can currently be answered without
+     * scanning the collection.
+     *
+     * @return `true` if an index or the primary key can be used; `false` otherwise.
+     */
+    boolean canUseIndex();
+
+    /**
+     * Finds the matching {@link NitriteId}s using the index of the field or
+     * the primary key. It must only be called if {@link #canUseIndex()}
+     * returns `true`.
+     *
+     * @param documentMap the document map
+     * @return the set of matching ids.
+     */
+    Set<NitriteId> applyOnIndex(NitriteMap<NitriteId, Document> documentMap);
+
+    /**
+     * Gets the range of index keys the filter matches, which lets the filter
+     * be combined with others into a single scan of a compound index.
+     *
+     * @return the key range, or `null` if the matched keys are not contiguous.
+     */
+    KeyRange getKeyRange();
+
+    /**
+     * Estimates the fraction of the collection this filter selects.
+     *
+     * @param keyCount the number of distinct keys in the index.
+     * @return the estimated selectivity between `0` and `1`.
+     */
+    double estimateSelectivity(long keyCount);
+}
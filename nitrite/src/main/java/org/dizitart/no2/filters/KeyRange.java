@@ -0,0 +1,107 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.dizitart.no2.filters;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import static org.dizitart.no2.util.EqualsUtils.deepEquals;
+import static org.dizitart.no2.util.NumberUtils.compare;
+
+/**
+ * Represents the contiguous range of index keys matched by an
+ * {@link IndexAwareFilter}. An unbounded end is denoted by `null`.
+ *
+ * @author Anindya Chatterjee
+ * @since 3.4.3
+ */
+@Getter
+@ToString
+public final class KeyRange {
+    private final Comparable lower;
+    private final boolean lowerInclusive;
+    private final Comparable upper;
+    private final boolean upperInclusive;
+
+    private KeyRange(Comparable lower, boolean lowerInclusive,
+                     Comparable upper, boolean upperInclusive) {
+        this.lower = lower;
+        this.lowerInclusive = lowerInclusive;
+        this.upper = upper;
+        this.upperInclusive = upperInclusive;
+    }
+
+    static KeyRange equalTo(Comparable value) {
+        return new KeyRange(value, true, value, true);
+    }
+
+    static KeyRange greaterThan(Comparable value, boolean inclusive) {
+        return new KeyRange(value, inclusive, null, false);
+    }
+
+    static KeyRange lesserThan(Comparable value, boolean inclusive) {
+        return new KeyRange(null, false, value, inclusive);
+    }
+
+    /**
+     * Specifies if the range matches a single key.
+     *
+     * @return `true` if the range is a single key; `false` otherwise.
+     */
+    public boolean isSingleKey() {
+        return lower != null && lower == upper;
+    }
+
+    /**
+     * Checks if a value is above the upper end of the range.
+     *
+     * @param value the value
+     * @return `true` if no greater value can be in the range; `false` otherwise.
+     */
+    public boolean isAbove(Object value) {
+        if (upper == null || value == null) return false;
+        int result = compareValue(value, upper);
+        return result > 0 || (result == 0 && !upperInclusive);
+    }
+
+    /**
+     * Checks if a value is in the range, with the same semantics
+     * the filter uses to match a field value of a document.
+     *
+     * @param value the value
+     * @return `true` if the value is in the range; `false` otherwise.
+     */
+    public boolean contains(Object value) {
+        if (value == null) return false;
+        if (isSingleKey()) return deepEquals(value, lower);
+
+        if (lower != null) {
+            int result = compareValue(value, lower);
+            if (result < 0 || (result == 0 && !lowerInclusive)) return false;
+        }
+        return !isAbove(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compareValue(Object value, Comparable bound) {
+        if (value instanceof Number && bound instanceof Number) {
+            return compare((Number) value, (Number) bound);
+        }
+        return ((Comparable) value).compareTo(bound);
+    }
+}
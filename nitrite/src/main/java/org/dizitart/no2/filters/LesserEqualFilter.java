@@ -25,6 +25,7 @@ import org.dizitart.no2.NitriteId;
 import org.dizitart.no2.exceptions.FilterException;
 import org.dizitart.no2.store.NitriteMap;
 
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
@@ -32,18 +33,19 @@ import java.util.Set;
 import static org.dizitart.no2.Constants.DOC_ID;
 import static org.dizitart.no2.exceptions.ErrorCodes.FE_LTE_FIELD_NOT_COMPARABLE;
 import static org.dizitart.no2.exceptions.ErrorMessage.errorMessage;
-import static org.dizitart.no2.util.DocumentUtils.getFieldValue;
 import static org.dizitart.no2.util.NumberUtils.compare;
 
 @Getter
 @ToString
 class LesserEqualFilter extends ComparisonFilter {
+    private static final long serialVersionUID = 1561024811L;
+
     LesserEqualFilter(String field, Object value) {
         super(field, value);
     }
 
     @Override
-    public Set<NitriteId> apply(NitriteMap<NitriteId, Document> documentMap) {
+    public Set<NitriteId> applyOnIndex(NitriteMap<NitriteId, Document> documentMap) {
         if (field.equals(DOC_ID)) {
             Set<NitriteId> nitriteIdSet = new LinkedHashSet<>();
             NitriteId nitriteId = null;
@@ -52,44 +54,42 @@ class LesserEqualFilter extends ComparisonFilter {
             }
 
             if (nitriteId != null) {
-                NitriteId floorKey = documentMap.floorKey(nitriteId);
-                while (floorKey != null) {
-                    nitriteIdSet.add(floorKey);
-                    floorKey = documentMap.lowerKey(floorKey);
+                Iterator<Map.Entry<NitriteId, Document>> entries
+                        = documentMap.entries(nitriteId, true, null, false, true);
+                while (entries.hasNext()) {
+                    nitriteIdSet.add(entries.next().getKey());
                 }
             }
             return nitriteIdSet;
-        } else if (nitriteService.hasIndex(field)
-                && !nitriteService.isIndexing(field)) {
-            return nitriteService.findLesserEqualWithIndex(field, comparable);
-        } else {
-            return matchedSet(documentMap);
         }
+        return nitriteService.findLesserEqualWithIndex(field, comparable);
+    }
+
+    @Override
+    public KeyRange getKeyRange() {
+        return KeyRange.lesserThan(comparable, true);
     }
 
+    @Override
     @SuppressWarnings("unchecked")
-    private Set<NitriteId> matchedSet(NitriteMap<NitriteId, Document> documentMap) {
-        Set<NitriteId> nitriteIdSet = new LinkedHashSet<>();
-        for (Map.Entry<NitriteId, Document> entry: documentMap.entrySet()) {
-            Document document = entry.getValue();
-            Object fieldValue = getFieldValue(document, field);
-            if (fieldValue != null) {
-                if (fieldValue instanceof Number && comparable instanceof Number) {
-                    if (compare((Number) fieldValue, (Number) comparable) <= 0) {
-                        nitriteIdSet.add(entry.getKey());
-                    }
-                } else if (fieldValue instanceof Comparable) {
-                    Comparable arg = (Comparable) fieldValue;
-                    if (arg.compareTo(comparable) <= 0) {
-                        nitriteIdSet.add(entry.getKey());
-                    }
-                } else {
-                    throw new FilterException(errorMessage(
-                            fieldValue + " is not comparable",
-                            FE_LTE_FIELD_NOT_COMPARABLE));
-                }
+    public boolean test(Document document) {
+        if (field.equals(DOC_ID) && !(comparable instanceof Long)) {
+            return false;
+        }
+
+        Object fieldValue = fieldPath(field).getValue(document);
+        if (fieldValue != null) {
+            if (fieldValue instanceof Number && comparable instanceof Number) {
+                return compare((Number) fieldValue, (Number) comparable) <= 0;
+            } else if (fieldValue instanceof Comparable) {
+                Comparable arg = (Comparable) fieldValue;
+                return arg.compareTo(comparable) <= 0;
+            } else {
+                throw new FilterException(errorMessage(
+                        fieldValue + " is not comparable",
+                        FE_LTE_FIELD_NOT_COMPARABLE));
             }
         }
-        return nitriteIdSet;
+        return false;
     }
 }
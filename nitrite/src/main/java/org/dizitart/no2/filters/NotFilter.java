@@ -31,24 +31,56 @@ import java.util.Set;
 @Getter
 @ToString
 class NotFilter extends BaseFilter {
+    private static final long serialVersionUID = 1561024806L;
     private Filter filter;
 
     NotFilter(Filter filter) {
         this.filter = filter;
     }
 
-    private Set<NitriteId> matchedSet(NitriteMap<NitriteId, Document> documentMap) {
-        Set<NitriteId> resultSet = new LinkedHashSet<>(documentMap.keySet());
-        resultSet.removeAll(filter.apply(documentMap));
-        return resultSet;
-    }
-
     @Override
     public Set<NitriteId> apply(NitriteMap<NitriteId, Document> documentMap) {
         if (filter != null && filter instanceof BaseFilter) {
             filter.setNitriteService(nitriteService);
         }
 
-        return matchedSet(documentMap);
+        // an indexed operand is cheaper to subtract from the key set,
+        // otherwise the negated operand is evaluated in a single scan
+        if (!(filter instanceof IndexAwareFilter
+                && ((IndexAwareFilter) filter).canUseIndex())) {
+            DocumentPredicate predicate = compile();
+            if (predicate != null) {
+                return matchedSet(documentMap, predicate);
+            }
+        }
+        return complementSet(documentMap);
+    }
+
+    @Override
+    public boolean canUseIndex() {
+        if (filter instanceof BaseFilter) {
+            filter.setNitriteService(nitriteService);
+            return ((BaseFilter) filter).canUseIndex();
+        }
+        return false;
+    }
+
+    @Override
+    public DocumentPredicate compile() {
+        final DocumentPredicate predicate = compile(filter);
+        if (predicate == null) return null;
+
+        return new DocumentPredicate() {
+            @Override
+            public boolean test(Document document) {
+                return !predicate.test(document);
+            }
+        };
+    }
+
+    private Set<NitriteId> complementSet(NitriteMap<NitriteId, Document> documentMap) {
+        Set<NitriteId> resultSet = new LinkedHashSet<>(documentMap.keySet());
+        resultSet.removeAll(filter.apply(documentMap));
+        return resultSet;
     }
 }
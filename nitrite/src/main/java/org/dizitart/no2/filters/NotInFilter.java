@@ -8,7 +8,6 @@ import org.dizitart.no2.store.NitriteMap;
 
 import java.util.*;
 
-import static org.dizitart.no2.util.DocumentUtils.getFieldValue;
 import static org.dizitart.no2.util.ValidationUtils.validateInFilterValue;
 
 /**
@@ -16,7 +15,8 @@ import static org.dizitart.no2.util.ValidationUtils.validateInFilterValue;
  */
 @Getter
 @ToString
-class NotInFilter extends BaseFilter {
+class NotInFilter extends BaseFilter implements IndexAwareFilter {
+    private static final long serialVersionUID = 1561024813L;
     private String field;
     private Object[] values;
     private Set<Object> objectList;
@@ -32,25 +32,42 @@ class NotInFilter extends BaseFilter {
     public Set<NitriteId> apply(NitriteMap<NitriteId, Document> documentMap) {
         validateInFilterValue(field, values);
 
-        if (nitriteService.hasIndex(field)
-                && !nitriteService.isIndexing(field) && objectList != null) {
-            return nitriteService.findNotInWithIndex(field, objectList);
+        if (canUseIndex()) {
+            return applyOnIndex(documentMap);
         } else {
-            return matchedSet(documentMap);
+            return matchedSet(documentMap, this);
         }
     }
 
-    private Set<NitriteId> matchedSet(NitriteMap<NitriteId, Document> documentMap) {
-        Set<NitriteId> nitriteIdSet = new LinkedHashSet<>();
-        for (Map.Entry<NitriteId, Document> entry: documentMap.entrySet()) {
-            Document document = entry.getValue();
-            Object fieldValue = getFieldValue(document, field);
-            if (!objectList.contains(fieldValue)) {
-                nitriteIdSet.add(entry.getKey());
-            }
-        }
-        return nitriteIdSet;
+    @Override
+    public boolean canUseIndex() {
+        return nitriteService.hasIndex(field)
+                && !nitriteService.isIndexing(field) && objectList != null
+                && !nitriteService.hasMultikeyIndex(field)
+                && !nitriteService.hasHashIndex(field)
+                && canUsePartialIndex(field);
+    }
+
+    @Override
+    public Set<NitriteId> applyOnIndex(NitriteMap<NitriteId, Document> documentMap) {
+        validateInFilterValue(field, values);
+        return nitriteService.findNotInWithIndex(field, objectList);
+    }
+
+    @Override
+    public KeyRange getKeyRange() {
+        return null;
     }
 
+    @Override
+    public double estimateSelectivity(long keyCount) {
+        return Math.max(0.0, 1.0 - objectList.size() * equalitySelectivity(keyCount));
+    }
 
+    @Override
+    public boolean test(Document document) {
+        validateInFilterValue(field, values);
+        Object fieldValue = fieldPath(field).getValue(document);
+        return !objectList.contains(fieldValue);
+    }
 }
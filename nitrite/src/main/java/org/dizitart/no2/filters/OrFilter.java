@@ -20,26 +20,23 @@ package org.dizitart.no2.filters;
 
 import lombok.Getter;
 import lombok.ToString;
-import lombok.extern.slf4j.Slf4j;
 import org.dizitart.no2.Document;
 import org.dizitart.no2.Filter;
 import org.dizitart.no2.NitriteId;
 import org.dizitart.no2.exceptions.FilterException;
 import org.dizitart.no2.store.NitriteMap;
 
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 
 import static org.dizitart.no2.exceptions.ErrorMessage.INVALID_OR_FILTER;
 
 @Getter
-@Slf4j
 @ToString
 class OrFilter extends BaseFilter {
+    private static final long serialVersionUID = 1561024805L;
     private Filter[] filters;
 
     OrFilter(Filter... filters) {
@@ -50,18 +47,35 @@ class OrFilter extends BaseFilter {
     @Override
     public Set<NitriteId> apply(final NitriteMap<NitriteId, Document> documentMap) {
         Set<NitriteId> result = new LinkedHashSet<>();
-        ExecutorService executorService = nitriteService.getNitriteContext().getWorkerPool();
 
         try {
-            List<Callable<Set<NitriteId>>> tasks = createTasks(filters, documentMap);
+            List<Filter> operands = new ArrayList<>();
+            collectOperands(this, operands);
 
-            List<Future<Set<NitriteId>>> futures = executorService.invokeAll(tasks);
-            for (Future<Set<NitriteId>> future : futures) {
-                Set<NitriteId> nitriteIds = future.get();
-                if (nitriteIds != null) {
-                    result.addAll(nitriteIds);
+            // operands which need a scan are combined and
+            // evaluated in a single pass over the collection
+            final List<DocumentPredicate> predicates = new ArrayList<>();
+            for (Filter filter : operands) {
+                if (filter instanceof IndexAwareFilter
+                        && ((IndexAwareFilter) filter).canUseIndex()) {
+                    result.addAll(((IndexAwareFilter) filter).applyOnIndex(documentMap));
+                    continue;
+                }
+
+                DocumentPredicate predicate = filter instanceof AndFilter ? null : compile(filter);
+                if (predicate != null) {
+                    predicates.add(predicate);
+                } else {
+                    Set<NitriteId> nitriteIds = filter.apply(documentMap);
+                    if (nitriteIds != null) {
+                        result.addAll(nitriteIds);
+                    }
                 }
             }
+
+            if (!predicates.isEmpty()) {
+                result.addAll(matchedSet(documentMap, anyOf(predicates)));
+            }
         } catch (FilterException fe) {
             throw fe;
         } catch (Throwable t) {
@@ -70,4 +84,52 @@ class OrFilter extends BaseFilter {
 
         return result;
     }
+
+    @Override
+    public boolean canUseIndex() {
+        List<Filter> operands = new ArrayList<>();
+        collectOperands(this, operands);
+        return canUseIndex(operands);
+    }
+
+    @Override
+    public DocumentPredicate compile() {
+        List<Filter> operands = new ArrayList<>();
+        collectOperands(this, operands);
+
+        List<DocumentPredicate> predicates = new ArrayList<>(operands.size());
+        for (Filter filter : operands) {
+            DocumentPredicate predicate = compile(filter);
+            if (predicate == null) return null;
+            predicates.add(predicate);
+        }
+        return anyOf(predicates);
+    }
+
+    private void collectOperands(OrFilter orFilter, List<Filter> operands) {
+        for (Filter filter : orFilter.filters) {
+            if (filter instanceof OrFilter) {
+                collectOperands((OrFilter) filter, operands);
+            } else {
+                filter.setNitriteService(nitriteService);
+                operands.add(filter);
+            }
+        }
+    }
+
+    private DocumentPredicate anyOf(List<DocumentPredicate> predicateList) {
+        final DocumentPredicate[] predicates
+                = predicateList.toArray(new DocumentPredicate[0]);
+        return new DocumentPredicate() {
+            @Override
+            public boolean test(Document document) {
+                for (DocumentPredicate predicate : predicates) {
+                    if (predicate.test(document)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
 }
@@ -24,47 +24,50 @@ import org.dizitart.no2.NitriteId;
 import org.dizitart.no2.exceptions.FilterException;
 import org.dizitart.no2.store.NitriteMap;
 
-import java.util.LinkedHashSet;
-import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import static org.dizitart.no2.exceptions.ErrorCodes.FE_REGEX_NO_STRING_VALUE;
 import static org.dizitart.no2.exceptions.ErrorMessage.errorMessage;
-import static org.dizitart.no2.util.DocumentUtils.getFieldValue;
 
 /**
  * @author Anindya Chatterjee.
  */
 @ToString
-class RegexFilter extends StringFilter {
+class RegexFilter extends StringFilter implements DocumentPredicate {
+    private static final long serialVersionUID = 1561024814L;
+    private Pattern pattern;
+
     RegexFilter(String field, String value) {
         super(field, value);
     }
 
     @Override
     public Set<NitriteId> apply(NitriteMap<NitriteId, Document> documentMap) {
-        Set<NitriteId> nitriteIdSet = new LinkedHashSet<>();
-        Pattern pattern = Pattern.compile(value);
+        return matchedSet(documentMap, this);
+    }
 
-        for (Map.Entry<NitriteId, Document> entry: documentMap.entrySet()) {
-            Document document = entry.getValue();
-            Object fieldValue = getFieldValue(document, field);
-            if (fieldValue != null) {
-                if (fieldValue instanceof String) {
-                    Matcher matcher = pattern.matcher((String) fieldValue);
-                    if (matcher.find()) {
-                        nitriteIdSet.add(entry.getKey());
-                    }
-                    matcher.reset();
-                } else {
-                    throw new FilterException(errorMessage(
-                            field + " does not contain string value.",
-                            FE_REGEX_NO_STRING_VALUE));
-                }
+    @Override
+    public boolean test(Document document) {
+        Object fieldValue = fieldPath(field).getValue(document);
+        if (fieldValue != null) {
+            if (fieldValue instanceof String) {
+                Matcher matcher = getPattern().matcher((String) fieldValue);
+                return matcher.find();
+            } else {
+                throw new FilterException(errorMessage(
+                        field + " does not contain string value.",
+                        FE_REGEX_NO_STRING_VALUE));
             }
         }
-        return nitriteIdSet;
+        return false;
+    }
+
+    private Pattern getPattern() {
+        if (pattern == null) {
+            pattern = Pattern.compile(value);
+        }
+        return pattern;
     }
 }
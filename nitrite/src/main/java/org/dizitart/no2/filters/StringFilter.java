@@ -25,6 +25,8 @@ import lombok.Getter;
  */
 @Getter
 abstract class StringFilter extends BaseFilter {
+    private static final long serialVersionUID = 1561024802L;
+
     String field;
     String value;
 
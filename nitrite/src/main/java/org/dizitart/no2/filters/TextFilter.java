@@ -22,6 +22,7 @@ import lombok.ToString;
 import org.dizitart.no2.Document;
 import org.dizitart.no2.NitriteId;
 import org.dizitart.no2.exceptions.IndexingException;
+import org.dizitart.no2.fulltext.RankedResult;
 import org.dizitart.no2.store.NitriteMap;
 
 import java.util.Set;
@@ -31,6 +32,8 @@ import static org.dizitart.no2.exceptions.ErrorMessage.errorMessage;
 
 @ToString
 class TextFilter extends StringFilter {
+    private static final long serialVersionUID = 1561024803L;
+
     TextFilter(String field, String value) {
         super(field, value);
     }
@@ -45,4 +48,13 @@ class TextFilter extends StringFilter {
                     IE_TEXT_FILTER_FIELD_NOT_INDEXED));
         }
     }
+
+    @Override
+    public RankedResult applyRanked(int limit) {
+        if (nitriteService.hasIndex(field)
+                && !nitriteService.isIndexing(field)) {
+            return nitriteService.findRankedTextWithIndex(field, value, limit);
+        }
+        return null;
+    }
 }
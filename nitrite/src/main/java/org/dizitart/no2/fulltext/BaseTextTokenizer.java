@@ -19,40 +19,131 @@
 package org.dizitart.no2.fulltext;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
-import java.util.StringTokenizer;
 
 /**
  * An abstract text tokenizer which tokenizes a given string.
  * It discards certain words known as stop word depending on
  * the language chosen.
  *
+ * A text is split into words at whitespace and punctuation of any
+ * script, and each word is lower cased into a buffer of the calling
+ * thread. The words are looked up in the stop words and handed over
+ * to a {@link TokenConsumer} from that buffer, so a text is tokenized
+ * without creating a string for any word which is not kept.
+ *
  * @since 2.1.0
  * @author Anindya Chatterjee
  */
 public abstract class BaseTextTokenizer implements TextTokenizer {
     private static final String WHITESPACE_CHARS = " \t\n\r\f+\"*%&/()=?'!,.;:-_#@|^~`{}[]<>\\";
+    private static final boolean[] ASCII_SEPARATORS = new boolean[128];
+    private static final ThreadLocal<TokenBuffer> buffers = new ThreadLocal<TokenBuffer>() {
+        @Override
+        protected TokenBuffer initialValue() {
+            return new TokenBuffer();
+        }
+    };
+
+    static {
+        for (char c : WHITESPACE_CHARS.toCharArray()) {
+            ASCII_SEPARATORS[c] = true;
+        }
+    }
+
+    private volatile StopWords stopWordTable;
+    private volatile Boolean convertsWords;
 
     @Override
     public Set<String> tokenize(String text) throws IOException {
-        Set<String> words = new HashSet<>();
-        StringTokenizer tokenizer = new StringTokenizer(text, WHITESPACE_CHARS);
-        while (tokenizer.hasMoreTokens()) {
-            String word = tokenizer.nextToken();
-            word = convertWord(word);
-            if (word != null) {
-                words.add(word);
+        final Set<String> words = new HashSet<>();
+        tokenize(text, new TokenConsumer() {
+            @Override
+            public void accept(CharSequence token) {
+                words.add(token.toString());
             }
-        }
+        });
         return words;
     }
 
+    /**
+     * Tokenizes a `text` like {@link #tokenize(String)}, and counts how
+     * many times each token occurs in the `text`.
+     *
+     * @param text the text to tokenize
+     * @return the tokens along with their number of occurrences.
+     * @throws IOException if a low-level I/O error occurs.
+     * @since 3.4.3
+     */
+    public Map<String, Integer> termFrequencies(String text) throws IOException {
+        final Map<String, Integer> frequencies = new HashMap<>();
+        tokenize(text, new TokenConsumer() {
+            @Override
+            public void accept(CharSequence token) {
+                String word = token.toString();
+                Integer frequency = frequencies.get(word);
+                frequencies.put(word, frequency == null ? 1 : frequency + 1);
+            }
+        });
+        return frequencies;
+    }
+
+    /**
+     * Tokenizes a `text` and hands over every token, which is not
+     * a stop word, to the `consumer` in the order of the `text`.
+     *
+     * @param text     the text to tokenize
+     * @param consumer the consumer of the tokens
+     * @throws IOException if a low-level I/O error occurs.
+     * @since 3.4.3
+     */
+    public void tokenize(String text, TokenConsumer consumer) throws IOException {
+        TokenBuffer buffer = buffers.get();
+        // a consumer tokenizing another text gets a buffer of its own
+        if (buffer.inUse) {
+            buffer = new TokenBuffer();
+        }
+
+        buffer.inUse = true;
+        try {
+            StopWords stopWords = stopWords(stopWords());
+            boolean convert = convertsWords();
+            int length = text.length();
+            int start = 0;
+            int index = 0;
+            while (index < length) {
+                int codePoint = text.codePointAt(index);
+                if (!isSeparator(codePoint)) {
+                    if (buffer.length() == 0) {
+                        start = index;
+                    }
+                    buffer.append(Character.toLowerCase(codePoint));
+                } else if (buffer.length() > 0) {
+                    emit(text, start, index, buffer, stopWords, convert, consumer);
+                }
+                index += Character.charCount(codePoint);
+            }
+            if (buffer.length() > 0) {
+                emit(text, start, length, buffer, stopWords, convert, consumer);
+            }
+        } finally {
+            buffer.clear();
+            buffer.inUse = false;
+        }
+    }
+
     /**
      * Converts a `word` into all lower case and checks if it
      * is a known stop word. If it is, then the `word` will be
      * discarded and will not be considered as a valid token.
      *
+     * A tokenizer overriding this method gets every word of a text
+     * as a string, in the case it was found in the text, and the
+     * words it returns are handed over to a {@link TokenConsumer}.
+     *
      * @param word the word
      * @return the tokenized word in all upper case.
      */
@@ -63,4 +154,112 @@ public abstract class BaseTextTokenizer implements TextTokenizer {
         }
         return word;
     }
+
+    private void emit(String text, int start, int end, TokenBuffer buffer,
+                      StopWords stopWords, boolean convert, TokenConsumer consumer) {
+        if (convert) {
+            String word = convertWord(text.substring(start, end));
+            if (word != null) {
+                consumer.accept(word);
+            }
+        } else if (!stopWords.contains(buffer.chars, buffer.length)) {
+            consumer.accept(buffer);
+        }
+        buffer.clear();
+    }
+
+    private StopWords stopWords(Set<String> stopWords) {
+        // the stop words of a universal tokenizer grow as languages are loaded
+        StopWords table = stopWordTable;
+        if (table == null || !table.isSnapshotOf(stopWords)) {
+            table = new StopWords(stopWords);
+            stopWordTable = table;
+        }
+        return table;
+    }
+
+    private boolean convertsWords() {
+        Boolean converts = convertsWords;
+        if (converts == null) {
+            converts = Boolean.FALSE;
+            Class<?> type = getClass();
+            while (type != BaseTextTokenizer.class && !converts) {
+                try {
+                    type.getDeclaredMethod("convertWord", String.class);
+                    converts = Boolean.TRUE;
+                } catch (NoSuchMethodException e) {
+                    type = type.getSuperclass();
+                }
+            }
+            convertsWords = converts;
+        }
+        return converts;
+    }
+
+    private static boolean isSeparator(int codePoint) {
+        if (codePoint < ASCII_SEPARATORS.length) {
+            return ASCII_SEPARATORS[codePoint];
+        }
+
+        if (Character.isWhitespace(codePoint) || Character.isSpaceChar(codePoint)) {
+            return true;
+        }
+
+        switch (Character.getType(codePoint)) {
+            case Character.CONNECTOR_PUNCTUATION:
+            case Character.DASH_PUNCTUATION:
+            case Character.START_PUNCTUATION:
+            case Character.END_PUNCTUATION:
+            case Character.INITIAL_QUOTE_PUNCTUATION:
+            case Character.FINAL_QUOTE_PUNCTUATION:
+            case Character.OTHER_PUNCTUATION:
+            case Character.CONTROL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // the lower cased characters of the word being read
+    private static class TokenBuffer implements CharSequence {
+        private char[] chars = new char[32];
+        private int length;
+        private boolean inUse;
+
+        void append(int codePoint) {
+            if (length + 2 > chars.length) {
+                char[] grown = new char[chars.length * 2];
+                System.arraycopy(chars, 0, grown, 0, length);
+                chars = grown;
+            }
+            length += Character.toChars(codePoint, chars, length);
+        }
+
+        void clear() {
+            length = 0;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index >= length) {
+                throw new IndexOutOfBoundsException(String.valueOf(index));
+            }
+            return chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, 0, length);
+        }
+    }
 }
@@ -0,0 +1,46 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.fulltext;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.dizitart.no2.NitriteId;
+
+import java.util.List;
+
+/**
+ * The best matches of a ranked full-text search, in the order of
+ * their relevance, along with the number of all the matches.
+ *
+ * @since 3.4.3
+ * @author Anindya Chatterjee.
+ */
+@Getter
+@AllArgsConstructor
+public class RankedResult {
+    /**
+     * The best matches, the most relevant first.
+     */
+    private final List<NitriteId> topIds;
+
+    /**
+     * The number of all the matches of the search.
+     */
+    private final int totalCount;
+}
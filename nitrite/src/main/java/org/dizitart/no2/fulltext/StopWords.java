@@ -0,0 +1,116 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.fulltext;
+
+import java.util.Set;
+
+/**
+ * An immutable set of stop words, which can be looked up by
+ * a sequence of characters without creating a string of it.
+ *
+ * @since 3.4.3
+ * @author Anindya Chatterjee
+ */
+class StopWords {
+    private final Set<String> source;
+    private final int sourceSize;
+    private final char[][] table;
+    private final int mask;
+
+    StopWords(Set<String> stopWords) {
+        this.source = stopWords;
+        this.sourceSize = stopWords.size();
+
+        // an open addressing table at most half full
+        int capacity = Integer.highestOneBit(Math.max(sourceSize, 1) * 2) * 2;
+        this.table = new char[capacity][];
+        this.mask = capacity - 1;
+        for (String stopWord : stopWords) {
+            char[] chars = stopWord.toCharArray();
+            int slot = hash(chars, chars.length) & mask;
+            while (table[slot] != null && !equals(table[slot], chars, chars.length)) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = chars;
+        }
+    }
+
+    /**
+     * Specifies if the stop words are still the same as the `stopWords`,
+     * to which a language may have been added since, or which may be an
+     * equal set created anew by the tokenizer.
+     */
+    boolean isSnapshotOf(Set<String> stopWords) {
+        if (sourceSize != stopWords.size()) return false;
+        if (source == stopWords) return true;
+
+        for (String stopWord : stopWords) {
+            if (!contains(stopWord)) return false;
+        }
+        return true;
+    }
+
+    private boolean contains(String word) {
+        int length = word.length();
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + word.charAt(i);
+        }
+
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (table[slot] != null) {
+            if (equals(table[slot], word)) return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    boolean contains(char[] chars, int length) {
+        int slot = hash(chars, length) & mask;
+        while (table[slot] != null) {
+            if (equals(table[slot], chars, length)) return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    private static int hash(char[] chars, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equals(char[] word, String other) {
+        if (word.length != other.length()) return false;
+        for (int i = 0; i < word.length; i++) {
+            if (word[i] != other.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static boolean equals(char[] word, char[] chars, int length) {
+        if (word.length != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (word[i] != chars[i]) return false;
+        }
+        return true;
+    }
+}
@@ -43,6 +43,11 @@ public interface TextTokenizer {
     /**
      * Gets all stop-words for a language.
      *
+     * A {@link BaseTextTokenizer} reads the stop-words once into a lookup
+     * table, and reads them again only if the set returned has changed
+     * since. Returning the same set every time saves comparing the sets
+     * for each text tokenized.
+     *
      * @return the set of all stop-words.
      */
     Set<String> stopWords();
@@ -0,0 +1,38 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.fulltext;
+
+/**
+ * Receives the tokens of a text, one at a time, as a
+ * {@link BaseTextTokenizer} finds them.
+ *
+ * @since 3.4.3
+ * @author Anindya Chatterjee
+ * @see BaseTextTokenizer#tokenize(String, TokenConsumer)
+ */
+public interface TokenConsumer {
+    /**
+     * Accepts a token of the text. The characters of the `token` are
+     * reused for the next token once the call returns, so a token to
+     * keep must be copied, e.g. by `token.toString()`.
+     *
+     * @param token the token
+     */
+    void accept(CharSequence token);
+}
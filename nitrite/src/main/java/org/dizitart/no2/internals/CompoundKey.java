@@ -0,0 +1,114 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.dizitart.no2.internals;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.dizitart.no2.util.EqualsUtils.deepEquals;
+import static org.dizitart.no2.util.NumberUtils.compare;
+
+/**
+ * The key of a compound index entry. Keys are ordered lexicographically
+ * by their values, with `null` values first, so that all entries
+ * sharing a prefix of values are adjacent in the index.
+ *
+ * @author Anindya Chatterjee.
+ * @since 3.4.3
+ */
+final class CompoundKey implements Comparable<CompoundKey>, Serializable {
+    private static final long serialVersionUID = 1560412893L;
+
+    private final Object[] values;
+
+    CompoundKey(Object... values) {
+        this.values = values;
+    }
+
+    Object get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return values.length;
+    }
+
+    boolean startsWith(List<Object> prefix) {
+        if (prefix.size() > values.length) return false;
+        for (int i = 0; i < prefix.size(); i++) {
+            if (compareValues(values[i], prefix.get(i)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean matchesPrefix(List<Object> prefix) {
+        for (int i = 0; i < prefix.size(); i++) {
+            if (!deepEquals(values[i], prefix.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int compareTo(CompoundKey other) {
+        int length = Math.min(values.length, other.values.length);
+        for (int i = 0; i < length; i++) {
+            int result = compareValues(values[i], other.values[i]);
+            if (result != 0) return result;
+        }
+        // a key which is a prefix of another sorts before it
+        return Integer.compare(values.length, other.values.length);
+    }
+
+    @SuppressWarnings("unchecked")
+    static int compareValues(Object first, Object second) {
+        if (first == null || second == null) {
+            if (first == second) return 0;
+            return first == null ? -1 : 1;
+        }
+
+        if (first instanceof Number && second instanceof Number) {
+            return compare((Number) first, (Number) second);
+        }
+
+        if (first.getClass() == second.getClass() || first.getClass().isInstance(second)) {
+            return ((Comparable) first).compareTo(second);
+        }
+        return first.getClass().getName().compareTo(second.getClass().getName());
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CompoundKey
+                && Arrays.deepEquals(values, ((CompoundKey) other).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.deepHashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.internals;
+
+import org.dizitart.no2.Document;
+import org.dizitart.no2.KeyValuePair;
+import org.dizitart.no2.NitriteId;
+import org.dizitart.no2.exceptions.InvalidOperationException;
+import org.dizitart.no2.filters.KeyRange;
+import org.dizitart.no2.store.NitriteMap;
+import org.dizitart.no2.store.PostingList;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.dizitart.no2.Constants.DOC_ID;
+import static org.dizitart.no2.exceptions.ErrorMessage.REMOVE_ON_DOCUMENT_ITERATOR_NOT_SUPPORTED;
+
+/**
+ * The key range of a single field index a result was found from. As the
+ * keys of such an index are the values of the field, the range alone can
+ * count the result, or answer a projection on the field and the id,
+ * without fetching any document.
+ *
+ * @author Anindya Chatterjee.
+ * @since 3.4.3
+ */
+class CoveringIndex {
+    private final String field;
+    private final KeyRange range;
+    private final NitriteMap<Comparable, PostingList> indexMap;
+
+    CoveringIndex(String field, KeyRange range, NitriteMap<Comparable, PostingList> indexMap) {
+        this.field = field;
+        this.range = range;
+        this.indexMap = indexMap;
+    }
+
+    long count() {
+        long count = 0;
+        Iterator<Map.Entry<Comparable, PostingList>> entries = entries();
+        while (entries.hasNext()) {
+            count += entries.next().getValue().size();
+        }
+        return count;
+    }
+
+    boolean covers(Document projection) {
+        if (projection == null || projection.isEmpty()) return false;
+
+        for (KeyValuePair keyValuePair : projection) {
+            // a nested projection needs the whole value of the field
+            if (keyValuePair.getValue() != null) return false;
+
+            String key = keyValuePair.getKey();
+            if (!key.equals(field) && !key.equals(DOC_ID)) return false;
+        }
+        return true;
+    }
+
+    Iterator<Document> iterator(Collection<NitriteId> resultSet, Document projection) {
+        return new CoveredDocumentIterator(resultSet, projection);
+    }
+
+    // the keys are visited in the same order as the indexed
+    // search collected the result, i.e. descending if the
+    // range only has an upper bound
+    private Iterator<Map.Entry<Comparable, PostingList>> entries() {
+        if (range.isSingleKey()) {
+            PostingList nitriteIds = indexMap.get(range.getLower());
+            if (nitriteIds == null) {
+                return Collections.<Map.Entry<Comparable, PostingList>>emptyIterator();
+            }
+            return Collections.<Map.Entry<Comparable, PostingList>>singleton(
+                    new AbstractMap.SimpleImmutableEntry<>(range.getLower(), nitriteIds)).iterator();
+        }
+
+        if (range.getLower() != null) {
+            return indexMap.entries(range.getLower(), range.isLowerInclusive(),
+                    range.getUpper(), range.isUpperInclusive(), false);
+        }
+        return indexMap.entries(range.getUpper(), range.isUpperInclusive(), null, false, true);
+    }
+
+    private class CoveredDocumentIterator implements Iterator<Document> {
+        private final Collection<NitriteId> resultSet;
+        private final boolean withId;
+        private final boolean withField;
+        private final Iterator<Map.Entry<Comparable, PostingList>> entries;
+        private Comparable key;
+        private Iterator<NitriteId> nitriteIds;
+        private Document nextElement;
+
+        CoveredDocumentIterator(Collection<NitriteId> resultSet, Document projection) {
+            this.resultSet = resultSet;
+            this.withId = projection.containsKey(DOC_ID);
+            this.withField = projection.containsKey(field);
+            this.entries = entries();
+            this.nitriteIds = Collections.<NitriteId>emptyIterator();
+            nextMatch();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextElement != null;
+        }
+
+        @Override
+        public Document next() {
+            if (nextElement == null) {
+                throw new NoSuchElementException();
+            }
+            Document returnValue = nextElement;
+            nextMatch();
+            return returnValue;
+        }
+
+        @Override
+        public void remove() {
+            throw new InvalidOperationException(REMOVE_ON_DOCUMENT_ITERATOR_NOT_SUPPORTED);
+        }
+
+        private void nextMatch() {
+            while (true) {
+                while (nitriteIds.hasNext()) {
+                    NitriteId nitriteId = nitriteIds.next();
+                    // the index may have changed since the result was found
+                    if (resultSet.contains(nitriteId)) {
+                        nextElement = new Document();
+                        if (withId) {
+                            nextElement.put(DOC_ID, nitriteId.getIdValue());
+                        }
+                        if (withField) {
+                            nextElement.put(field, key);
+                        }
+                        return;
+                    }
+                }
+
+                if (!entries.hasNext()) break;
+                Map.Entry<Comparable, PostingList> entry = entries.next();
+                key = entry.getKey();
+                nitriteIds = entry.getValue().iterator();
+            }
+            nextElement = null;
+        }
+    }
+}
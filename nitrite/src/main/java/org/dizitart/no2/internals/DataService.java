@@ -216,9 +216,11 @@ class DataService {
 
         for (Document document : cursor) {
             NitriteId nitriteId = document.getId();
+            // the document is removed first, so that a journaled index
+            // entry is never replayed against the removed document
+            Document removed = underlyingMap.remove(nitriteId);
             indexingService.removeIndexEntry(document, nitriteId);
 
-            Document removed = underlyingMap.remove(nitriteId);
             int rev = removed.getRevision();
             removed.put(DOC_REVISION, rev + 1);
             removed.put(DOC_MODIFIED, System.currentTimeMillis());
@@ -36,7 +36,9 @@ import static org.dizitart.no2.Constants.DOC_ID;
 import static org.dizitart.no2.exceptions.ErrorCodes.*;
 import static org.dizitart.no2.exceptions.ErrorMessage.*;
 import static org.dizitart.no2.util.DocumentUtils.createUniqueFilter;
+import static org.dizitart.no2.util.IndexUtils.compoundIndexName;
 import static org.dizitart.no2.util.ValidationUtils.notNull;
+import static org.dizitart.no2.util.ValidationUtils.validateCompoundIndexFields;
 
 /**
  * The default implementation of {@link NitriteCollection}.
@@ -69,16 +71,28 @@ class DefaultNitriteCollection implements NitriteCollection {
         try {
             // by default async is false while creating index
             if (indexOptions == null) {
-                nitriteService.createIndex(field, IndexType.Unique, false);
+                nitriteService.createIndex(field, IndexType.Unique, false, null, null);
             } else {
                 nitriteService.createIndex(field, indexOptions.getIndexType(),
-                        indexOptions.isAsync());
+                        indexOptions.isAsync(), indexOptions.getProgressListener(),
+                        indexOptions.getPartialFilter());
             }
         } catch (VirtualMachineError vme) {
             handleVirtualMachineError(vme);
         }
     }
 
+    @Override
+    public void createIndex(String[] fields, IndexOptions indexOptions) {
+        checkOpened();
+        validateCompoundIndexFields(fields);
+        if (fields.length == 1) {
+            createIndex(fields[0], indexOptions);
+            return;
+        }
+        createIndex(compoundIndexName(fields), indexOptions);
+    }
+
     @Override
     public void rebuildIndex(String field, boolean async) {
         checkOpened();
@@ -118,6 +132,17 @@ class DefaultNitriteCollection implements NitriteCollection {
         return false;
     }
 
+    @Override
+    public IndexStatistics getIndexStatistics(String field) {
+        checkOpened();
+        try {
+            return nitriteService.getIndexStatistics(field);
+        } catch (VirtualMachineError vme) {
+            handleVirtualMachineError(vme);
+        }
+        return null;
+    }
+
     @Override
     public boolean isIndexing(String field) {
         checkOpened();
@@ -171,6 +196,17 @@ class DefaultNitriteCollection implements NitriteCollection {
         return null;
     }
 
+    @Override
+    public long count(Filter filter) {
+        checkOpened();
+        try {
+            return nitriteService.count(filter);
+        } catch (VirtualMachineError vme) {
+            handleVirtualMachineError(vme);
+        }
+        return 0;
+    }
+
     @Override
     public Cursor find(Filter filter) {
         checkOpened();
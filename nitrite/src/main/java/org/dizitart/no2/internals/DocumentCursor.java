@@ -36,7 +36,6 @@ class DocumentCursor implements Cursor {
     private final Set<NitriteId> resultSet;
     private final NitriteMap<NitriteId, Document> underlyingMap;
     private boolean hasMore;
-    private int totalCount;
     private FindResult findResult;
 
     DocumentCursor(FindResult findResult) {
@@ -47,7 +46,6 @@ class DocumentCursor implements Cursor {
         }
         this.underlyingMap = findResult.getUnderlyingMap();
         this.hasMore = findResult.isHasMore();
-        this.totalCount = findResult.getTotalCount();
         this.findResult = findResult;
     }
 
@@ -84,7 +82,7 @@ class DocumentCursor implements Cursor {
 
     @Override
     public int totalCount() {
-        return totalCount;
+        return findResult.getTotalCount();
     }
 
     @Override
@@ -97,6 +95,10 @@ class DocumentCursor implements Cursor {
         return Iterables.toList(this);
     }
 
+    FindResult getFindResult() {
+        return findResult;
+    }
+
     private class DocumentCursorIterator implements Iterator<Document> {
         private Iterator<NitriteId> iterator;
 
@@ -23,6 +23,7 @@ import org.dizitart.no2.Document;
 import org.dizitart.no2.NitriteId;
 import org.dizitart.no2.store.NitriteMap;
 
+import java.util.Iterator;
 import java.util.Set;
 
 /**
@@ -34,4 +35,29 @@ class FindResult {
     private int totalCount;
     private Set<NitriteId> idSet;
     private NitriteMap<NitriteId, Document> underlyingMap;
+
+    // if a paged scan stopped as soon as the page was filled, the
+    // remaining matches are counted only when the total is asked for,
+    // from the same snapshot of the collection the page was found in,
+    // so the total is the one at the time of the find
+    private Iterator<NitriteId> uncountedIds;
+
+    // the service of the collection found from, whose
+    // indexes a join with the collection can probe
+    private NitriteService nitriteService;
+
+    // if the result was found from a single field index, a projection
+    // on the field and the id can be answered from the index alone
+    private CoveringIndex coveringIndex;
+
+    synchronized int getTotalCount() {
+        if (uncountedIds != null) {
+            while (uncountedIds.hasNext()) {
+                uncountedIds.next();
+                totalCount++;
+            }
+            uncountedIds = null;
+        }
+        return totalCount;
+    }
 }
@@ -0,0 +1,413 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.internals;
+
+import org.dizitart.no2.*;
+import org.dizitart.no2.exceptions.IndexingException;
+import org.dizitart.no2.exceptions.UniqueConstraintException;
+import org.dizitart.no2.filters.BaseFilter;
+import org.dizitart.no2.fulltext.TextIndexingService;
+import org.dizitart.no2.store.NitriteMap;
+import org.dizitart.no2.store.PostingList;
+import org.dizitart.no2.util.FieldPath;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.dizitart.no2.exceptions.ErrorCodes.IE_BUILD_INDEX_FAILED;
+import static org.dizitart.no2.exceptions.ErrorCodes.IE_FAILED_TO_WRITE_FTS_DATA;
+import static org.dizitart.no2.exceptions.ErrorCodes.UCE_BUILD_INDEX_CONSTRAINT_VIOLATED;
+import static org.dizitart.no2.exceptions.ErrorMessage.NON_STRING_VALUE_IN_FULL_TEXT_INDEX;
+import static org.dizitart.no2.exceptions.ErrorMessage.errorMessage;
+import static org.dizitart.no2.util.DocumentUtils.getElementValues;
+import static org.dizitart.no2.util.DocumentUtils.getFieldValue;
+import static org.dizitart.no2.util.IndexUtils.stableHash;
+import static org.dizitart.no2.util.ValidationUtils.validateDocumentIndexField;
+import static org.dizitart.no2.util.ValidationUtils.validateHashIndexField;
+
+/**
+ * Builds an index from the existing documents of a collection.
+ *
+ * The collection is split into partitions by key range, each of which
+ * is scanned on a worker thread into an in-memory run of posting lists.
+ * As ids are visited in ascending order, the runs are merged in partition
+ * order by simple concatenation, and every posting list is written to the
+ * index map exactly once.
+ *
+ * A full-text index is built the same way, except that each partition
+ * writes its run of words to the index on its own, and writes it out
+ * early if it grows too large to hold in memory.
+ *
+ * @author Anindya Chatterjee.
+ */
+class IndexBuilder {
+    private static final int MIN_PARTITION_SIZE = 10000;
+    private static final int PROGRESS_INTERVAL = 1000;
+    private static final long MAX_RUN_POSTINGS = 500000;
+
+    private final NitriteMap<NitriteId, Document> underlyingMap;
+    private final Index index;
+    private final ExecutorService executor;
+    private final IndexProgressListener listener;
+    private final AtomicLong processedCount;
+    private long totalCount;
+
+    IndexBuilder(NitriteMap<NitriteId, Document> underlyingMap, Index index,
+                 ExecutorService executor, IndexProgressListener listener) {
+        this.underlyingMap = underlyingMap;
+        this.index = index;
+        this.executor = executor;
+        this.listener = listener;
+        this.processedCount = new AtomicLong();
+    }
+
+    void build(NitriteMap<Comparable, PostingList> indexMap, UniqueKeyRun uniqueKeyRun) {
+        totalCount = underlyingMap.sizeAsLong();
+
+        List<NitriteId> bounds = partitionBounds();
+        Map<Comparable, List<NitriteId>> postings;
+        if (bounds.size() == 1) {
+            postings = buildRun(bounds.get(0), null);
+        } else {
+            postings = merge(buildRuns(bounds));
+        }
+
+        // writes made during the build check their keys against the run
+        if (uniqueKeyRun != null) {
+            uniqueKeyRun.scanned(postings);
+        }
+        write(postings, indexMap);
+
+        notifyProgress(totalCount);
+    }
+
+    void buildText(TextIndexingService textIndexingService) {
+        totalCount = underlyingMap.sizeAsLong();
+        if (textIndexingService instanceof NitriteTextIndexingService) {
+            buildTextRuns((NitriteTextIndexingService) textIndexingService);
+            notifyProgress(totalCount);
+            return;
+        }
+
+        String field = index.getField();
+        FieldPath fieldPath = FieldPath.of(field);
+        long count = 0;
+        for (Map.Entry<NitriteId, Document> entry : underlyingMap.entrySet()) {
+            // create the document
+            Document object = entry.getValue();
+
+            // retrieve the value from document
+            Object fieldValue = fieldPath.getValue(object);
+            if (++count % PROGRESS_INTERVAL == 0) {
+                notifyProgress(count);
+            }
+
+            if (fieldValue == null) continue;
+            if (!(fieldValue instanceof String)) {
+                throw new IndexingException(NON_STRING_VALUE_IN_FULL_TEXT_INDEX);
+            }
+
+            textIndexingService.createIndex(entry.getKey(), field, (String) fieldValue);
+        }
+
+        notifyProgress(totalCount);
+    }
+
+    static Collection<Comparable> indexKeys(Document document, Index index) {
+        if (index.isPartial() && !matchesPartialFilter(document, index)) {
+            return Collections.emptySet();
+        }
+
+        if (index.getIndexType() == IndexType.Multikey) {
+            // every distinct element is a key of its own
+            Set<Comparable> keys = new LinkedHashSet<>();
+            for (Object value : getElementValues(document, index.getField())) {
+                validateDocumentIndexField(value, index.getField());
+                keys.add((Comparable) value);
+            }
+            return keys;
+        }
+
+        Comparable key = indexKey(document, index);
+        return key == null ? Collections.<Comparable>emptySet() : Collections.singleton(key);
+    }
+
+    private static boolean matchesPartialFilter(Document document, Index index) {
+        return ((BaseFilter) index.getPartialFilter()).compile().test(document);
+    }
+
+    private static Comparable indexKey(Document document, Index index) {
+        if (index.isCompound()) {
+            return compoundKey(document, index);
+        }
+
+        Object fieldValue = getFieldValue(document, index.getField());
+        if (fieldValue == null) return null;
+        if (index.getIndexType() == IndexType.Hash) {
+            // the key is the bucket, not the value itself
+            validateHashIndexField(fieldValue, index.getField());
+            return stableHash(fieldValue);
+        }
+        validateDocumentIndexField(fieldValue, index.getField());
+        return (Comparable) fieldValue;
+    }
+
+    private static CompoundKey compoundKey(Document document, Index index) {
+        String[] fields = index.getFields();
+        Object[] values = new Object[fields.length];
+        boolean hasValue = false;
+
+        for (int i = 0; i < fields.length; i++) {
+            Object fieldValue = getFieldValue(document, fields[i]);
+            if (fieldValue != null) {
+                validateDocumentIndexField(fieldValue, fields[i]);
+                values[i] = fieldValue;
+                hasValue = true;
+            }
+        }
+
+        // like a single field index, a document without
+        // any of the indexed fields is not indexed
+        return hasValue ? new CompoundKey(values) : null;
+    }
+
+    private List<NitriteId> partitionBounds() {
+        List<NitriteId> bounds = new ArrayList<>();
+        // the first partition starts from the first key
+        bounds.add(null);
+
+        long partitions = Math.min(Runtime.getRuntime().availableProcessors(),
+                totalCount / MIN_PARTITION_SIZE);
+        for (long i = 1; i < partitions; i++) {
+            NitriteId bound = underlyingMap.getKey(i * totalCount / partitions);
+            // the map might have shrunk since it was counted
+            if (bound == null) break;
+
+            NitriteId previous = bounds.get(bounds.size() - 1);
+            if (previous == null || bound.compareTo(previous) > 0) {
+                bounds.add(bound);
+            }
+        }
+        return bounds;
+    }
+
+    private List<Map<Comparable, List<NitriteId>>> buildRuns(List<NitriteId> bounds) {
+        return runPartitions(bounds, new Partition<Map<Comparable, List<NitriteId>>>() {
+            @Override
+            public Map<Comparable, List<NitriteId>> build(NitriteId from, NitriteId to) {
+                return buildRun(from, to);
+            }
+        });
+    }
+
+    private void buildTextRuns(final NitriteTextIndexingService textIndexingService) {
+        List<NitriteId> bounds = partitionBounds();
+        if (bounds.size() == 1) {
+            buildTextRun(textIndexingService, bounds.get(0), null);
+            return;
+        }
+
+        runPartitions(bounds, new Partition<Void>() {
+            @Override
+            public Void build(NitriteId from, NitriteId to) {
+                buildTextRun(textIndexingService, from, to);
+                return null;
+            }
+        });
+    }
+
+    private <T> List<T> runPartitions(List<NitriteId> bounds, final Partition<T> partition) {
+        List<Future<T>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < bounds.size(); i++) {
+                final NitriteId from = bounds.get(i);
+                final NitriteId to = i + 1 < bounds.size() ? bounds.get(i + 1) : null;
+                futures.add(executor.submit(new Callable<T>() {
+                    @Override
+                    public T call() {
+                        return partition.build(from, to);
+                    }
+                }));
+            }
+
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IndexingException(errorMessage(
+                    "failed to build index on " + index.getField(),
+                    IE_BUILD_INDEX_FAILED), cause);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IndexingException(errorMessage(
+                    "interrupted while building index on " + index.getField(),
+                    IE_BUILD_INDEX_FAILED), ie);
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private Map<Comparable, List<NitriteId>> buildRun(NitriteId from, NitriteId to) {
+        Map<Comparable, List<NitriteId>> postings = new HashMap<>();
+        long count = 0;
+
+        Iterator<Map.Entry<NitriteId, Document>> iterator = underlyingMap.entryIterator(from);
+        while (iterator.hasNext()) {
+            Map.Entry<NitriteId, Document> entry = iterator.next();
+            if (to != null && entry.getKey().compareTo(to) >= 0) break;
+
+            if (++count % PROGRESS_INTERVAL == 0) {
+                notifyProgress(processedCount.addAndGet(PROGRESS_INTERVAL));
+            }
+
+            // retrieved the values from document
+            for (Comparable indexKey : indexKeys(entry.getValue(), index)) {
+                // create the id list associated with the value
+                List<NitriteId> nitriteIdList = postings.get(indexKey);
+                if (nitriteIdList == null) {
+                    nitriteIdList = new ArrayList<>();
+                    postings.put(indexKey, nitriteIdList);
+                } else if (index.getIndexType() == IndexType.Unique) {
+                    // if key is already exists for unique type, throw error
+                    throw uniqueConstraintViolation();
+                }
+
+                // ids are visited in ascending order, so the list stays sorted
+                nitriteIdList.add(entry.getKey());
+            }
+        }
+
+        long remaining = count % PROGRESS_INTERVAL;
+        if (remaining > 0) {
+            notifyProgress(processedCount.addAndGet(remaining));
+        }
+        return postings;
+    }
+
+    private void buildTextRun(NitriteTextIndexingService textIndexingService,
+                              NitriteId from, NitriteId to) {
+        String field = index.getField();
+        FieldPath fieldPath = FieldPath.of(field);
+        TextRun run = new TextRun();
+        long count = 0;
+
+        Iterator<Map.Entry<NitriteId, Document>> iterator = underlyingMap.entryIterator(from);
+        while (iterator.hasNext()) {
+            Map.Entry<NitriteId, Document> entry = iterator.next();
+            if (to != null && entry.getKey().compareTo(to) >= 0) break;
+
+            if (++count % PROGRESS_INTERVAL == 0) {
+                notifyProgress(processedCount.addAndGet(PROGRESS_INTERVAL));
+            }
+
+            Object fieldValue = fieldPath.getValue(entry.getValue());
+            if (fieldValue == null) continue;
+            if (!(fieldValue instanceof String)) {
+                throw new IndexingException(NON_STRING_VALUE_IN_FULL_TEXT_INDEX);
+            }
+
+            String text = (String) fieldValue;
+            try {
+                run.add(entry.getKey(), textIndexingService.termFrequencies(text));
+            } catch (IOException ioe) {
+                throw new IndexingException(errorMessage(
+                        "could not write full-text index data for " + text,
+                        IE_FAILED_TO_WRITE_FTS_DATA), ioe);
+            }
+
+            // a run too large to hold in memory is written out,
+            // and the rest of the partition starts a new one
+            if (run.getPostingCount() >= MAX_RUN_POSTINGS) {
+                textIndexingService.writeRun(field, run);
+                run = new TextRun();
+            }
+        }
+        textIndexingService.writeRun(field, run);
+
+        long remaining = count % PROGRESS_INTERVAL;
+        if (remaining > 0) {
+            notifyProgress(processedCount.addAndGet(remaining));
+        }
+    }
+
+    private Map<Comparable, List<NitriteId>> merge(List<Map<Comparable, List<NitriteId>>> runs) {
+        Map<Comparable, List<NitriteId>> merged = runs.get(0);
+        for (int i = 1; i < runs.size(); i++) {
+            for (Map.Entry<Comparable, List<NitriteId>> entry : runs.get(i).entrySet()) {
+                List<NitriteId> nitriteIdList = merged.get(entry.getKey());
+                if (nitriteIdList == null) {
+                    merged.put(entry.getKey(), entry.getValue());
+                } else if (index.getIndexType() == IndexType.Unique) {
+                    throw uniqueConstraintViolation();
+                } else {
+                    // later partitions only hold larger ids
+                    nitriteIdList.addAll(entry.getValue());
+                }
+            }
+        }
+        return merged;
+    }
+
+    private void write(Map<Comparable, List<NitriteId>> postings,
+                       NitriteMap<Comparable, PostingList> indexMap) {
+        for (Map.Entry<Comparable, List<NitriteId>> entry : postings.entrySet()) {
+            PostingList nitriteIdList = PostingList.of(entry.getValue());
+
+            // values which are equal by comparison but not by equals,
+            // like 1.0 and 1.00, share the same index entry
+            PostingList existing = indexMap.get(entry.getKey());
+            if (existing != null) {
+                if (index.getIndexType() == IndexType.Unique) {
+                    throw uniqueConstraintViolation();
+                }
+                nitriteIdList = existing.union(nitriteIdList);
+            }
+            indexMap.put(entry.getKey(), nitriteIdList);
+        }
+    }
+
+    private UniqueConstraintException uniqueConstraintViolation() {
+        return new UniqueConstraintException(errorMessage(
+                "unique key constraint violation for " + index.getField(),
+                UCE_BUILD_INDEX_CONSTRAINT_VIOLATED));
+    }
+
+    private void notifyProgress(long count) {
+        if (listener != null) {
+            listener.onProgress(index, Math.min(count, totalCount), totalCount);
+        }
+    }
+
+    private interface Partition<T> {
+        T build(NitriteId from, NitriteId to);
+    }
+}
@@ -21,19 +21,23 @@ package org.dizitart.no2.internals;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.dizitart.no2.Document;
+import org.dizitart.no2.Filter;
 import org.dizitart.no2.Index;
+import org.dizitart.no2.IndexStatistics;
 import org.dizitart.no2.IndexType;
 import org.dizitart.no2.NitriteId;
 import org.dizitart.no2.exceptions.IndexingException;
 import org.dizitart.no2.store.NitriteMap;
 import org.dizitart.no2.store.NitriteStore;
+import org.dizitart.no2.store.PostingList;
 
 import java.io.Serializable;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import static org.dizitart.no2.Constants.INDEX_JOURNAL_PREFIX;
 import static org.dizitart.no2.Constants.INDEX_META_PREFIX;
 import static org.dizitart.no2.Constants.INTERNAL_NAME_SEPARATOR;
 import static org.dizitart.no2.exceptions.ErrorCodes.IE_DROP_NON_EXISTING_INDEX;
@@ -44,12 +48,21 @@ import static org.dizitart.no2.util.IndexUtils.internalName;
  * @author Anindya Chatterjee.
  */
 class IndexMetaService {
+    private static final String REVERSED_TERMS = "reversed";
+    private static final String TRIGRAMS = "trigram";
+    private static final String FREQUENCIES = "frequency";
+    private static final String LENGTHS = "length";
+
     private final NitriteMap<NitriteId, Document> underlyingMap;
     private final NitriteStore mvStore;
+    private final Map<String, KeyStatistics> keyStatistics;
+    private final Map<String, TextStatistics> textStatistics;
 
     IndexMetaService(NitriteMap<NitriteId, Document> underlyingMap) {
         this.underlyingMap = underlyingMap;
         this.mvStore = underlyingMap.getStore();
+        this.keyStatistics = new ConcurrentHashMap<>();
+        this.textStatistics = new ConcurrentHashMap<>();
     }
 
     NitriteMap<NitriteId, Document> getUnderlyingMap() {
@@ -74,33 +87,130 @@ class IndexMetaService {
         return null;
     }
 
-    NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> getIndexMap(String field) {
+    NitriteMap<Comparable, PostingList> getIndexMap(String field) {
         IndexMeta meta = getIndexMetadata().get(field);
         if (meta != null && meta.index != null) {
-            return mvStore.openMap(meta.indexMap);
+            return mvStore.openIndexMap(meta.indexMap);
         }
         return null;
     }
 
-    void markDirty(String field) {
-        IndexMeta meta = getIndexMetadata().get(field);
-        if (meta != null && meta.index != null) {
-            meta.isDirty.set(true);
+    // the reversed words, and the trigrams of the words, of a full-text index are
+    // kept besides its index map so that a wildcard search can scan a key range;
+    // a full-text index created by an older version has none of its side maps
+    NitriteMap<String, Boolean> getReversedTermMap(String field) {
+        return getTermMap(field, REVERSED_TERMS);
+    }
+
+    NitriteMap<String, Boolean> getTrigramMap(String field) {
+        return getTermMap(field, TRIGRAMS);
+    }
+
+    // the number of occurrences of a word in a document, if more than one, and
+    // the number of words in each document, by which a full-text search is ranked
+    NitriteMap<CompoundKey, Integer> getFrequencyMap(String field) {
+        return getTermMap(field, FREQUENCIES);
+    }
+
+    NitriteMap<Long, Integer> getLengthMap(String field) {
+        return getTermMap(field, LENGTHS);
+    }
+
+    TextStatistics getTextStatistics(String field) {
+        NitriteMap<Long, Integer> lengthMap = getLengthMap(field);
+        if (lengthMap == null) return null;
+
+        TextStatistics statistics = textStatistics.get(field);
+        if (statistics == null) {
+            statistics = new TextStatistics(lengthMap);
+            TextStatistics existing = textStatistics.putIfAbsent(field, statistics);
+            if (existing != null) {
+                statistics = existing;
+            }
         }
+        return statistics;
     }
 
-    void unmarkDirty(String field) {
-        IndexMeta meta = getIndexMetadata().get(field);
-        if (meta != null && meta.index != null) {
-            meta.isDirty.set(false);
+    void updateTextStatistics(String field, int oldLength, int newLength) {
+        TextStatistics statistics = textStatistics.get(field);
+        if (statistics != null) {
+            statistics.update(oldLength, newLength);
         }
     }
 
+    IndexStatistics getStatistics(String field) {
+        KeyStatistics statistics = keyStatistics.get(field);
+        return statistics == null ? null : statistics.snapshot();
+    }
+
+    boolean hasStatistics(String field) {
+        return keyStatistics.containsKey(field);
+    }
+
+    // to be called while nothing else writes to the index,
+    // the statistics are only usable once they are collected
+    KeyStatistics startStatistics(String field, ExecutorService executor) {
+        NitriteMap<Comparable, PostingList> indexMap = getIndexMap(field);
+        if (indexMap == null) return null;
+
+        KeyStatistics statistics = new KeyStatistics(field, indexMap, executor);
+        keyStatistics.put(field, statistics);
+        return statistics;
+    }
+
+    void updateStatistics(String field, int oldSize, int newSize) {
+        KeyStatistics statistics = keyStatistics.get(field);
+        if (statistics != null) {
+            statistics.update(oldSize, newSize);
+        }
+    }
+
+    void resetStatistics(String field) {
+        keyStatistics.remove(field);
+        resetTextStatistics(field);
+    }
+
+    void resetTextStatistics(String field) {
+        textStatistics.remove(field);
+    }
+
+    void markDirty(String field) {
+        setDirty(field, true);
+    }
+
+    void unmarkDirty(String field) {
+        setDirty(field, false);
+    }
+
     synchronized boolean isDirtyIndex(String field) {
         IndexMeta meta = getIndexMetadata().get(field);
         return meta != null && meta.isDirty.get();
     }
 
+    boolean isConsistent(String field) {
+        return !isDirtyIndex(field) && !hasJournal(field);
+    }
+
+    boolean hasJournal(String field) {
+        String journalName = getJournalName(field);
+        return mvStore.hasMap(journalName) && !mvStore.openMap(journalName).isEmpty();
+    }
+
+    NitriteMap<NitriteId, List<Object>> getJournalMap(String field) {
+        return mvStore.openMap(getJournalName(field));
+    }
+
+    void dropJournal(String field) {
+        String journalName = getJournalName(field);
+        if (mvStore.hasMap(journalName)) {
+            mvStore.removeMap(mvStore.openMap(journalName));
+        }
+    }
+
+    boolean hasIndexes() {
+        return mvStore.hasMap(getName());
+    }
+
     Collection<Index> listIndexes() {
         Set<Index> indexSet = new LinkedHashSet<>();
         for (IndexMeta indexMeta : getIndexMetadata().values()) {
@@ -113,11 +223,17 @@ class IndexMetaService {
         IndexMeta meta = getIndexMetadata().get(field);
         if (meta != null && meta.index != null) {
             String indexMapName = meta.indexMap;
-            mvStore.removeMap(mvStore.openMap(indexMapName));
+            mvStore.removeMap(mvStore.openIndexMap(indexMapName));
+            dropTermMap(indexMapName, REVERSED_TERMS);
+            dropTermMap(indexMapName, TRIGRAMS);
+            dropTermMap(indexMapName, FREQUENCIES);
+            dropTermMap(indexMapName, LENGTHS);
         } else {
             throw new IndexingException(errorMessage(
                     field + " is not indexed", IE_DROP_NON_EXISTING_INDEX));
         }
+        dropJournal(field);
+        resetStatistics(field);
         getIndexMetadata().remove(field);
     }
 
@@ -130,19 +246,62 @@ class IndexMetaService {
         mvStore.removeMap(getIndexMetadata());
     }
 
-    Index createIndexMetadata(String field, IndexType indexType) {
-        Index index = new Index(indexType, field, underlyingMap.getName());
+    Index createIndexMetadata(String field, IndexType indexType, Filter partialFilter) {
+        Index index = new Index(indexType, field, underlyingMap.getName(), partialFilter);
 
         IndexMeta indexMeta = new IndexMeta();
         indexMeta.index = index;
         indexMeta.isDirty = new AtomicBoolean(false);
         indexMeta.indexMap = internalName(index);
 
+        if (indexType == IndexType.Fulltext) {
+            mvStore.openMap(termMapName(indexMeta.indexMap, REVERSED_TERMS));
+            mvStore.openMap(termMapName(indexMeta.indexMap, TRIGRAMS));
+            mvStore.openMap(termMapName(indexMeta.indexMap, FREQUENCIES));
+            mvStore.openMap(termMapName(indexMeta.indexMap, LENGTHS));
+        }
         getIndexMetadata().put(field, indexMeta);
 
         return index;
     }
 
+    private void setDirty(String field, boolean dirty) {
+        NitriteMap<String, IndexMeta> indexMetadata = getIndexMetadata();
+        IndexMeta meta = indexMetadata.get(field);
+        if (meta != null && meta.index != null) {
+            meta.isDirty.set(dirty);
+            // write the metadata back, so that the marker survives a restart
+            indexMetadata.put(field, meta);
+        }
+    }
+
+    private <Key, Value> NitriteMap<Key, Value> getTermMap(String field, String dictionary) {
+        IndexMeta meta = getIndexMetadata().get(field);
+        if (meta != null && meta.index != null) {
+            String mapName = termMapName(meta.indexMap, dictionary);
+            if (mvStore.hasMap(mapName)) {
+                return mvStore.openMap(mapName);
+            }
+        }
+        return null;
+    }
+
+    private void dropTermMap(String indexMapName, String dictionary) {
+        String mapName = termMapName(indexMapName, dictionary);
+        if (mvStore.hasMap(mapName)) {
+            mvStore.removeMap(mvStore.openMap(mapName));
+        }
+    }
+
+    private String termMapName(String indexMapName, String dictionary) {
+        return indexMapName + INTERNAL_NAME_SEPARATOR + dictionary;
+    }
+
+    private String getJournalName(String field) {
+        return INDEX_JOURNAL_PREFIX + INTERNAL_NAME_SEPARATOR + underlyingMap.getName()
+                + INTERNAL_NAME_SEPARATOR + field;
+    }
+
     private String getName() {
         return INDEX_META_PREFIX + INTERNAL_NAME_SEPARATOR + underlyingMap.getName();
     }
@@ -18,17 +18,35 @@
 
 package org.dizitart.no2.internals;
 
+import org.dizitart.no2.Document;
+import org.dizitart.no2.Index;
+import org.dizitart.no2.IndexType;
 import org.dizitart.no2.NitriteId;
 import org.dizitart.no2.exceptions.FilterException;
+import org.dizitart.no2.exceptions.IndexingException;
+import org.dizitart.no2.exceptions.ValidationException;
+import org.dizitart.no2.filters.KeyRange;
+import org.dizitart.no2.fulltext.RankedResult;
 import org.dizitart.no2.fulltext.TextIndexingService;
 import org.dizitart.no2.store.NitriteMap;
+import org.dizitart.no2.store.PostingList;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentSkipListSet;
 
 import static org.dizitart.no2.exceptions.ErrorMessage.CAN_NOT_SEARCH_NON_COMPARABLE_ON_INDEXED_FIELD;
+import static org.dizitart.no2.exceptions.ErrorMessage.FUZZY_SEARCH_NOT_SUPPORTED;
+import static org.dizitart.no2.exceptions.ErrorMessage.KEYSET_VALUE_INCOMPATIBLE;
+import static org.dizitart.no2.util.DocumentUtils.getFieldValue;
+import static org.dizitart.no2.util.EqualsUtils.deepEquals;
+import static org.dizitart.no2.util.IndexUtils.stableHash;
+import static org.dizitart.no2.util.NumberUtils.convert;
 
 /**
  * @author Anindya Chatterjee.
@@ -43,11 +61,15 @@ class IndexedSearchService {
     }
 
     Set<NitriteId> findEqual(String field, Object value) {
+        if (isHashIndex(field)) {
+            return findHashed(field, Collections.singleton(value));
+        }
+
         if (!(value instanceof Comparable)) {
             throw new FilterException(CAN_NOT_SEARCH_NON_COMPARABLE_ON_INDEXED_FIELD);
         }
 
-        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap
+        NitriteMap<Comparable, PostingList> indexMap
                 = indexMetaService.getIndexMap(field);
 
         Set<NitriteId> resultSet = null;
@@ -59,73 +81,111 @@ class IndexedSearchService {
         return resultSet;
     }
 
-    Set<NitriteId> findGreaterThan(String field, Comparable comparable) {
-        Set<NitriteId> resultSet = new LinkedHashSet<>();
-        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap
+    List<NitriteId> findSorted(String field, boolean ascending, Set<NitriteId> candidates,
+                               Comparable afterValue, NitriteId afterId, int limit) {
+        List<NitriteId> resultList = new ArrayList<>();
+        NitriteMap<Comparable, PostingList> indexMap
                 = indexMetaService.getIndexMap(field);
 
         if (indexMap != null) {
-            Comparable higherKey = indexMap.higherKey(comparable);
-            while (higherKey != null) {
-                resultSet.addAll(indexMap.get(higherKey));
-                higherKey = indexMap.higherKey(higherKey);
+            // a walk resuming after a key starts from the entry of its value,
+            // where only the ids after the id of the key are left
+            boolean resumed = afterId != null && afterValue != null;
+            Comparable resumeKey = resumed ? resumeKey(indexMap, afterValue) : null;
+            boolean skipping = resumed && indexMap.containsKey(resumeKey);
+            Iterator<Map.Entry<Comparable, PostingList>> entries = resumed
+                    ? indexMap.entries(resumeKey, true, null, false, !ascending)
+                    : indexMap.entries(null, false, null, false, !ascending);
+            while (entries.hasNext()) {
+                Map.Entry<Comparable, PostingList> entry = entries.next();
+
+                for (NitriteId nitriteId : entry.getValue()) {
+                    if (skipping && nitriteId.compareTo(afterId) <= 0) continue;
+                    if (candidates.contains(nitriteId)) {
+                        resultList.add(nitriteId);
+                        if (resultList.size() == limit) return resultList;
+                    }
+                }
+                skipping = false;
             }
         }
 
-        return resultSet;
+        return resultList;
     }
 
-    Set<NitriteId> findGreaterEqual(String field, Comparable comparable) {
-        Set<NitriteId> resultSet = new LinkedHashSet<>();
-        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap
-                = indexMetaService.getIndexMap(field);
+    private Comparable resumeKey(NitriteMap<Comparable, PostingList> indexMap, Comparable afterValue) {
+        // the index map orders keys of different types by their type, so the
+        // value is looked up as a key of the type of the indexed values
+        Comparable firstKey = indexMap.firstKey();
+        if (firstKey == null || firstKey.getClass() == afterValue.getClass()) {
+            return afterValue;
+        }
 
-        if (indexMap != null) {
-            Comparable ceilingKey = indexMap.ceilingKey(comparable);
-            while (ceilingKey != null) {
-                resultSet.addAll(indexMap.get(ceilingKey));
-                ceilingKey = indexMap.higherKey(ceilingKey);
+        if (firstKey instanceof Number && afterValue instanceof Number) {
+            Number key = convert((Number) afterValue, firstKey.getClass());
+            if (key != null) {
+                return (Comparable) key;
             }
         }
-
-        return resultSet;
+        throw new ValidationException(KEYSET_VALUE_INCOMPATIBLE);
     }
 
-    Set<NitriteId> findLesserThan(String field, Comparable comparable) {
+    Set<NitriteId> findCompound(String indexName, List<Object> prefix, KeyRange range) {
         Set<NitriteId> resultSet = new LinkedHashSet<>();
-        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap
-                = indexMetaService.getIndexMap(field);
+        NitriteMap<Comparable, PostingList> indexMap
+                = indexMetaService.getIndexMap(indexName);
 
         if (indexMap != null) {
-            Comparable lowerKey = indexMap.lowerKey(comparable);
-            while (lowerKey != null) {
-                resultSet.addAll(indexMap.get(lowerKey));
-                lowerKey = indexMap.lowerKey(lowerKey);
+            // a key made of the prefix, and the lower end of the range if any,
+            // sorts right before the first entry which can match
+            List<Object> startValues = new ArrayList<>(prefix);
+            if (range != null && range.getLower() != null) {
+                startValues.add(range.getLower());
             }
-        }
 
-        return resultSet;
-    }
+            Iterator<Map.Entry<Comparable, PostingList>> entries = indexMap.entries(
+                    new CompoundKey(startValues.toArray()), true, null, false, false);
+            while (entries.hasNext()) {
+                Map.Entry<Comparable, PostingList> entry = entries.next();
+                CompoundKey compoundKey = (CompoundKey) entry.getKey();
+                if (!compoundKey.startsWith(prefix)) break;
 
-    Set<NitriteId> findLesserEqual(String field, Comparable comparable) {
-        Set<NitriteId> resultSet = new LinkedHashSet<>();
-        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap
-                = indexMetaService.getIndexMap(field);
+                Object value = range == null ? null : compoundKey.get(prefix.size());
+                if (range != null && range.isAbove(value)) break;
 
-        if (indexMap != null) {
-            Comparable floorKey = indexMap.floorKey(comparable);
-            while (floorKey != null) {
-                resultSet.addAll(indexMap.get(floorKey));
-                floorKey = indexMap.lowerKey(floorKey);
+                if (compoundKey.matchesPrefix(prefix)
+                        && (range == null || range.contains(value))) {
+                    resultSet.addAll(entry.getValue());
+                }
             }
         }
 
         return resultSet;
     }
 
+    Set<NitriteId> findGreaterThan(String field, Comparable comparable) {
+        return findRange(field, comparable, false, false);
+    }
+
+    Set<NitriteId> findGreaterEqual(String field, Comparable comparable) {
+        return findRange(field, comparable, true, false);
+    }
+
+    Set<NitriteId> findLesserThan(String field, Comparable comparable) {
+        return findRange(field, comparable, false, true);
+    }
+
+    Set<NitriteId> findLesserEqual(String field, Comparable comparable) {
+        return findRange(field, comparable, true, true);
+    }
+
     Set<NitriteId> findIn(String field, Collection<Object> values) {
+        if (isHashIndex(field)) {
+            return findHashed(field, values);
+        }
+
         Set<NitriteId> resultSet = new LinkedHashSet<>();
-        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap
+        NitriteMap<Comparable, PostingList> indexMap
                 = indexMetaService.getIndexMap(field);
 
         if (indexMap != null) {
@@ -141,7 +201,7 @@ class IndexedSearchService {
 
     Set<NitriteId> findNotIn(String field, Collection<Object> values) {
         Set<NitriteId> resultSet = new LinkedHashSet<>();
-        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap
+        NitriteMap<Comparable, PostingList> indexMap
                 = indexMetaService.getIndexMap(field);
 
         if (indexMap != null) {
@@ -158,4 +218,71 @@ class IndexedSearchService {
     Set<NitriteId> findText(String field, String value) {
         return textIndexingService.searchByIndex(field, value);
     }
+
+    RankedResult findRankedText(String field, String value, int limit) {
+        // only the built-in full-text index keeps the term frequencies
+        if (textIndexingService instanceof NitriteTextIndexingService) {
+            return ((NitriteTextIndexingService) textIndexingService)
+                    .searchRankedByIndex(field, value, limit);
+        }
+        return null;
+    }
+
+    Set<NitriteId> findFuzzyText(String field, String value, int maxEdits) {
+        // only the built-in full-text index can walk its term dictionary
+        if (textIndexingService instanceof NitriteTextIndexingService) {
+            return ((NitriteTextIndexingService) textIndexingService)
+                    .searchFuzzyByIndex(field, value, maxEdits);
+        }
+        throw new IndexingException(FUZZY_SEARCH_NOT_SUPPORTED);
+    }
+
+    private boolean isHashIndex(String field) {
+        Index index = indexMetaService.findIndex(field);
+        return index != null && index.getIndexType() == IndexType.Hash;
+    }
+
+    private Set<NitriteId> findHashed(String field, Collection<?> values) {
+        Set<NitriteId> resultSet = new LinkedHashSet<>();
+        NitriteMap<Comparable, PostingList> indexMap
+                = indexMetaService.getIndexMap(field);
+        if (indexMap == null) return resultSet;
+
+        NitriteMap<NitriteId, Document> documentMap = indexMetaService.getUnderlyingMap();
+        for (Object value : values) {
+            if (value == null) continue;
+
+            PostingList bucket = indexMap.get(stableHash(value));
+            if (bucket == null) continue;
+
+            // different values can share a bucket, so the
+            // candidates are verified against their documents
+            for (NitriteId nitriteId : bucket) {
+                Document document = documentMap.get(nitriteId);
+                if (document != null && deepEquals(getFieldValue(document, field), value)) {
+                    resultSet.add(nitriteId);
+                }
+            }
+        }
+        return resultSet;
+    }
+
+    // collects every posting list from a bound to the end of the index,
+    // towards the lower keys if descending, on a single map cursor
+    private Set<NitriteId> findRange(String field, Comparable from,
+                                     boolean inclusive, boolean descending) {
+        Set<NitriteId> resultSet = new LinkedHashSet<>();
+        NitriteMap<Comparable, PostingList> indexMap
+                = indexMetaService.getIndexMap(field);
+
+        if (indexMap != null) {
+            Iterator<Map.Entry<Comparable, PostingList>> entries
+                    = indexMap.entries(from, inclusive, null, false, descending);
+            while (entries.hasNext()) {
+                resultSet.addAll(entries.next().getValue());
+            }
+        }
+
+        return resultSet;
+    }
 }
@@ -18,54 +18,97 @@
 
 package org.dizitart.no2.internals;
 
+import lombok.extern.slf4j.Slf4j;
 import org.dizitart.no2.*;
 import org.dizitart.no2.exceptions.IndexingException;
+import org.dizitart.no2.exceptions.NitriteException;
 import org.dizitart.no2.exceptions.UniqueConstraintException;
+import org.dizitart.no2.filters.BaseFilter;
 import org.dizitart.no2.fulltext.TextIndexingService;
 import org.dizitart.no2.store.NitriteMap;
+import org.dizitart.no2.store.PostingList;
 
-import java.util.Collection;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.dizitart.no2.exceptions.ErrorCodes.*;
-import static org.dizitart.no2.exceptions.ErrorMessage.NON_STRING_VALUE_IN_FULL_TEXT_INDEX;
 import static org.dizitart.no2.exceptions.ErrorMessage.errorMessage;
 import static org.dizitart.no2.util.DocumentUtils.getFieldValue;
 import static org.dizitart.no2.util.DocumentUtils.getFields;
+import static org.dizitart.no2.util.IndexUtils.indexFields;
 import static org.dizitart.no2.util.ValidationUtils.validateDocumentIndexField;
 
 /**
  * @author Anindya Chatterjee.
  */
+@Slf4j
 class IndexingService {
     private final NitriteMap<NitriteId, Document> underlyingMap;
     private final IndexMetaService indexMetaService;
     private final Map<String, AtomicBoolean> indexBuildRegistry;
+    private final Map<String, UniqueKeyRun> uniqueKeyRuns;
     private final ExecutorService rebuildExecutor;
     private final TextIndexingService textIndexingService;
+    private final Object journalLock;
 
     IndexingService(IndexMetaService indexMetaService,
                     TextIndexingService textIndexingService,
                     NitriteContext nitriteContext) {
         this.indexBuildRegistry = new ConcurrentHashMap<>();
+        this.uniqueKeyRuns = new ConcurrentHashMap<>();
         this.rebuildExecutor = nitriteContext.getWorkerPool();
         this.indexMetaService = indexMetaService;
         this.textIndexingService = textIndexingService;
         this.underlyingMap = indexMetaService.getUnderlyingMap();
+        this.journalLock = new Object();
+
+        if (indexMetaService.hasIndexes()) {
+            // indexes left behind by an unclean shutdown are caught up
+            // in background, queries scan the collection meanwhile
+            for (Index index : indexMetaService.listIndexes()) {
+                if (nitriteContext.isReadOnly() || indexMetaService.isConsistent(index.getField())) {
+                    // nothing writes to the index before the collection is
+                    // opened, so the statistics can be collected in background
+                    collectStatistics(index, true);
+                } else {
+                    catchUp(index);
+                }
+            }
+        }
     }
 
 
-    void createIndex(String field, IndexType indexType, boolean isAsync) {
+    void createIndex(String field, IndexType indexType, boolean isAsync,
+                     IndexProgressListener listener, Filter partialFilter) {
         Index index;
 
+        if (indexType == IndexType.Fulltext && indexFields(field).length > 1) {
+            throw new IndexingException(errorMessage(
+                "full-text index is not supported on multiple fields " + field,
+                IE_FULL_TEXT_COMPOUND_INDEX));
+        }
+
+        if (indexType == IndexType.Multikey && indexFields(field).length > 1) {
+            throw new IndexingException(errorMessage(
+                "multikey index is not supported on multiple fields " + field,
+                IE_MULTIKEY_COMPOUND_INDEX));
+        }
+
+        if (indexType == IndexType.Hash && indexFields(field).length > 1) {
+            throw new IndexingException(errorMessage(
+                "hash index is not supported on multiple fields " + field,
+                IE_HASH_COMPOUND_INDEX));
+        }
+
+        if (partialFilter != null) {
+            validatePartialFilter(indexType, partialFilter);
+        }
+
         if (!indexMetaService.hasIndex(field)) {
             // if no index create index
-            index = indexMetaService.createIndexMetadata(field, indexType);
+            index = indexMetaService.createIndexMetadata(field, indexType, partialFilter);
         } else {
             // if index already there throw
             throw new IndexingException(errorMessage(
@@ -73,7 +116,7 @@ class IndexingService {
         }
 
         try {
-            rebuildIndex(index, isAsync);
+            rebuildIndex(index, isAsync, listener);
         } catch (IllegalStateException ise) {
             throw new IndexingException(errorMessage(
                     ise.getMessage(), IE_CREATE_INDEX_FAILED), ise);
@@ -85,51 +128,30 @@ class IndexingService {
 
         for (String field : fields) {
             Index index = indexMetaService.findIndex(field);
-            if (index != null) {
+            if (index != null && !isKeyed(index)) {
                 Object fieldValue = getFieldValue(document, field);
 
                 if (fieldValue == null) continue;
                 validateDocumentIndexField(fieldValue, field);
 
-                // if dirty index and currently indexing is not running, rebuild
-                if (indexMetaService.isDirtyIndex(field)
-                        && indexBuildRegistry.get(field) != null
-                        && !indexBuildRegistry.get(field).get()) {
-                    // rebuild will also take care of the current document
-                    rebuildIndex(index, true);
-                } else {
+                // if the index is behind the collection, the write is
+                // journaled and applied once the index has caught up
+                if (!journalIfBehind(index, nitriteId, Collections.emptySet(),
+                        Collections.singleton(fieldValue), UCE_UPDATE_INDEX_CONSTRAINT_VIOLATED)) {
                     IndexType indexType = index.getIndexType();
 
                     if (indexType == IndexType.Fulltext && fieldValue instanceof String) {
                         // update text index
                         textIndexingService.updateIndex(nitriteId, field, (String) fieldValue);
                     } else {
-                        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap
-                            = indexMetaService.getIndexMap(field);
-
-                        // create the nitriteId list associated with the value
-                        ConcurrentSkipListSet<NitriteId> nitriteIdList
-                            = indexMap.get((Comparable) fieldValue);
-
-                        if (nitriteIdList == null) {
-                            nitriteIdList = new ConcurrentSkipListSet<>();
-                        }
-
-                        if (indexType == IndexType.Unique && nitriteIdList.size() == 1
-                            && !nitriteIdList.contains(nitriteId)) {
-                            // if key is already exists for unique type, throw error
-                            throw new UniqueConstraintException(errorMessage(
-                                "unique key constraint violation for " + field,
-                                UCE_UPDATE_INDEX_CONSTRAINT_VIOLATED));
-                        }
-
-                        // add the nitriteId to the list
-                        nitriteIdList.add(nitriteId);
-                        indexMap.put((Comparable) fieldValue, nitriteIdList);
+                        addEntry(index, (Comparable) fieldValue, nitriteId,
+                                UCE_UPDATE_INDEX_CONSTRAINT_VIOLATED);
                     }
                 }
             }
         }
+
+        updateKeyedIndexEntries(document, nitriteId);
     }
 
     void removeIndexEntry(Document document, NitriteId nitriteId) {
@@ -137,42 +159,27 @@ class IndexingService {
 
         for (String field : fields) {
             Index index = indexMetaService.findIndex(field);
-            if (index != null) {
+            if (index != null && !isKeyed(index)) {
                 Object fieldValue = getFieldValue(document, field);
 
                 if (fieldValue == null) continue;
 
-                // if dirty index and currently indexing is not running, rebuild
-                if (indexMetaService.isDirtyIndex(field)
-                        && indexBuildRegistry.get(field) != null
-                        && !indexBuildRegistry.get(field).get()) {
-                    // rebuild will also take care of the current document
-                    rebuildIndex(index, true);
-                } else {
+                // if the index is behind the collection, the write is
+                // journaled and applied once the index has caught up
+                if (!journalIfBehind(index, nitriteId, Collections.singleton(fieldValue),
+                        Collections.emptySet(), 0)) {
                     IndexType indexType = index.getIndexType();
 
                     if (indexType == IndexType.Fulltext && fieldValue instanceof String) {
                         textIndexingService.deleteIndex(nitriteId, field, (String) fieldValue);
-                    } else {
-                        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap
-                                = indexMetaService.getIndexMap(field);
-
-                        // create the nitrite list associated with the value
-                        if (fieldValue instanceof Comparable) {
-                            ConcurrentSkipListSet<NitriteId> nitriteIdList = indexMap.get((Comparable) fieldValue);
-                            if (nitriteIdList != null) {
-                                nitriteIdList.remove(nitriteId);
-                                if (nitriteIdList.size() == 0) {
-                                    indexMap.remove((Comparable) fieldValue);
-                                } else {
-                                    indexMap.put((Comparable) fieldValue, nitriteIdList);
-                                }
-                            }
-                        }
+                    } else if (fieldValue instanceof Comparable) {
+                        removeEntry(index, (Comparable) fieldValue, nitriteId);
                     }
                 }
             }
         }
+
+        removeKeyedIndexEntries(document, nitriteId);
     }
 
     @SuppressWarnings({"unchecked", "ConstantConditions"})
@@ -181,7 +188,7 @@ class IndexingService {
 
         for (String field : fields) {
             Index index = indexMetaService.findIndex(field);
-            if (index != null) {
+            if (index != null && !isKeyed(index)) {
                 Object newValue = getFieldValue(newDocument, field);
                 Object oldValue = getFieldValue(oldDocument, field);
 
@@ -192,13 +199,11 @@ class IndexingService {
 
                 validateDocumentIndexField(newValue, field);
 
-                // if dirty index and currently indexing is not running, rebuild
-                if (indexMetaService.isDirtyIndex(field) &&
-                        indexBuildRegistry.get(field) != null
-                        && !indexBuildRegistry.get(field).get()) {
-                    // rebuild will also take care of the current document
-                    rebuildIndex(index, true);
-                } else {
+                // if the index is behind the collection, the write is
+                // journaled and applied once the index has caught up
+                if (!journalIfBehind(index, nitriteId, oldValue == null
+                                ? Collections.emptySet() : Collections.singleton(oldValue),
+                        Collections.singleton(newValue), UCE_REFRESH_INDEX_CONSTRAINT_VIOLATED)) {
                     IndexType indexType = index.getIndexType();
 
                     if (indexType == IndexType.Fulltext && newValue instanceof String) {
@@ -206,42 +211,17 @@ class IndexingService {
                         textIndexingService.deleteIndex(nitriteId, field, (String) oldValue);
                         textIndexingService.updateIndex(nitriteId, field, (String) newValue);
                     } else {
-                        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap
-                            = indexMetaService.getIndexMap(field);
-
-                        // create the nitriteId list associated with the value
-                        ConcurrentSkipListSet<NitriteId> nitriteIdList
-                            = indexMap.get((Comparable) newValue);
-
-                        if (nitriteIdList == null) {
-                            nitriteIdList = new ConcurrentSkipListSet<>();
-                        }
-
-                        if (indexType == IndexType.Unique && nitriteIdList.size() == 1
-                            && !nitriteIdList.contains(nitriteId)) {
-                            // if key is already exists for unique type, throw error
-                            throw new UniqueConstraintException(errorMessage(
-                                "unique key constraint violation for " + field,
-                                UCE_REFRESH_INDEX_CONSTRAINT_VIOLATED));
-                        }
-
-                        // add the nitriteId to the list
-                        nitriteIdList.add(nitriteId);
-                        indexMap.put((Comparable) newValue, nitriteIdList);
-
-                        nitriteIdList = indexMap.get((Comparable) oldValue);
-                        if (nitriteIdList != null && !nitriteIdList.isEmpty()) {
-                            nitriteIdList.remove(nitriteId);
-                            if (nitriteIdList.size() == 0) {
-                                indexMap.remove((Comparable) oldValue);
-                            } else {
-                                indexMap.put((Comparable) oldValue, nitriteIdList);
-                            }
+                        addEntry(index, (Comparable) newValue, nitriteId,
+                                UCE_REFRESH_INDEX_CONSTRAINT_VIOLATED);
+                        if (oldValue instanceof Comparable) {
+                            removeEntry(index, (Comparable) oldValue, nitriteId);
                         }
                     }
                 }
             }
         }
+
+        refreshKeyedIndexEntries(oldDocument, newDocument, nitriteId);
     }
 
     Collection<Index> listIndexes() {
@@ -250,10 +230,12 @@ class IndexingService {
 
     boolean isIndexing(String field) {
         // has index will only return true, if there is an index on
-        // the value and indexing is not running on it
+        // the value and indexing is not running on it, an index which
+        // is behind the collection is still being caught up
         return indexMetaService.hasIndex(field)
-                && indexBuildRegistry.get(field) != null
-                && indexBuildRegistry.get(field).get();
+                && ((indexBuildRegistry.get(field) != null
+                && indexBuildRegistry.get(field).get())
+                || !indexMetaService.isConsistent(field));
     }
 
     void dropIndex(String field) {
@@ -289,20 +271,43 @@ class IndexingService {
         indexBuildRegistry.clear();
     }
 
+    void rebuildIndex(Index index, boolean isAsync) {
+        rebuildIndex(index, isAsync, null);
+    }
+
     // call to this method is already synchronized, only one thread per value
     // can access it only if rebuild is already not running for that value
-    void rebuildIndex(final Index index, boolean isAsync) {
+    void rebuildIndex(final Index index, boolean isAsync,
+                      final IndexProgressListener listener) {
         final String field = index.getField();
         if (getBuildFlag(field).compareAndSet(false, true)) {
+            // the index is marked dirty before the build is handed over, so a
+            // write made before the build starts is not checked against the index
+            indexMetaService.markDirty(field);
+            startUniqueKeyRun(index);
+
+            // the index is built from the collection as it is now, every
+            // write from now on is journaled and replayed after the build
+            final NitriteMap<NitriteId, Document> documents = underlyingMap.snapshot();
             if (isAsync) {
-                rebuildExecutor.submit(new Runnable() {
-                    @Override
-                    public void run() {
-                        buildIndexInternal(field, index);
+                try {
+                    rebuildExecutor.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            buildIndexInternal(field, index, listener, documents);
+                        }
+                    });
+                } catch (RuntimeException re) {
+                    // the build never runs, so writes must not wait for it
+                    UniqueKeyRun uniqueKeyRun = uniqueKeyRuns.remove(field);
+                    if (uniqueKeyRun != null) {
+                        uniqueKeyRun.failed();
                     }
-                });
+                    getBuildFlag(field).set(false);
+                    throw re;
+                }
             } else {
-                buildIndexInternal(field, index);
+                buildIndexInternal(field, index, listener, documents);
             }
             return;
         }
@@ -311,72 +316,401 @@ class IndexingService {
                 IE_REBUILD_INDEX_RUNNING));
     }
 
-    private void buildIndexInternal(final String field, final Index index) {
+    private void buildIndexInternal(final String field, final Index index,
+                                    final IndexProgressListener listener,
+                                    final NitriteMap<NitriteId, Document> documents) {
+        boolean replayed = false;
+        UniqueKeyRun uniqueKeyRun = startUniqueKeyRun(index);
         try {
-            // first put dirty marker
-            indexMetaService.markDirty(field);
-
-            if (index.getIndexType() != IndexType.Fulltext) {
-                // create index map
-                NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap
-                        = indexMetaService.getIndexMap(field);
+            try {
+                // first put dirty marker
+                indexMetaService.markDirty(field);
+
+                IndexBuilder indexBuilder = new IndexBuilder(documents, index,
+                        rebuildExecutor, listener);
+                if (index.getIndexType() != IndexType.Fulltext) {
+                    // create index map
+                    NitriteMap<Comparable, PostingList> indexMap
+                            = indexMetaService.getIndexMap(field);
 
-                // remove old values
-                indexMap.clear();
+                    // remove old values
+                    indexMetaService.resetStatistics(field);
+                    indexMap.clear();
 
-                for (Map.Entry<NitriteId, Document> entry : underlyingMap.entrySet()) {
-                    // create the document
-                    Document object = entry.getValue();
+                    indexBuilder.build(indexMap, uniqueKeyRun);
+                } else {
+                    // for update-rebuild or remove-rebuild this block will never come
+                    indexBuilder.buildText(textIndexingService);
+                }
+            } finally {
+                // remove dirty marker to denote indexing completed successfully
+                // if dirty marker is found in any index, it needs to be rebuild
+                indexMetaService.unmarkDirty(field);
+
+                if (uniqueKeyRun != null) {
+                    // a write waiting for the scan is released even if the build failed
+                    uniqueKeyRun.failed();
+                    uniqueKeyRuns.remove(field);
+                }
+            }
 
-                    // retrieved the value from document
-                    Object fieldValue = getFieldValue(object, field);
+            // the writes are still journaled, so the index is
+            // only written by this thread until it is replayed
+            collectStatistics(index, false);
 
-                    if (fieldValue == null) continue;
-                    validateDocumentIndexField(fieldValue, field);
+            // writes made while the index was being built
+            // have been journaled, apply them now
+            replayJournal(index);
+            replayed = true;
+        } finally {
+            releaseBuildFlag(index, replayed);
+        }
+    }
 
-                    // create the id list associated with the value
-                    ConcurrentSkipListSet<NitriteId> nitriteIdList = indexMap.get((Comparable) fieldValue);
-                    if (nitriteIdList == null) {
-                        nitriteIdList = new ConcurrentSkipListSet<>();
+    private void collectStatistics(Index index, boolean isAsync) {
+        final String field = index.getField();
+        final KeyStatistics statistics = indexMetaService.startStatistics(field, rebuildExecutor);
+        if (statistics == null) return;
+
+        if (isAsync) {
+            rebuildExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        statistics.collect();
+                    } catch (RuntimeException re) {
+                        log.error("Failed to collect the statistics of " + field, re);
                     }
+                }
+            });
+        } else {
+            statistics.collect();
+        }
+    }
 
-                    if (index.getIndexType() == IndexType.Unique
-                            && nitriteIdList.size() == 1) {
-                        // if key is already exists for unique type, throw error
-                        throw new UniqueConstraintException(errorMessage(
-                                "unique key constraint violation for " + field,
-                                UCE_BUILD_INDEX_CONSTRAINT_VIOLATED));
-                    }
+    private UniqueKeyRun startUniqueKeyRun(Index index) {
+        if (index.getIndexType() != IndexType.Unique) return null;
+
+        UniqueKeyRun uniqueKeyRun = new UniqueKeyRun();
+        UniqueKeyRun started = uniqueKeyRuns.putIfAbsent(index.getField(), uniqueKeyRun);
+        return started == null ? uniqueKeyRun : started;
+    }
 
-                    // add the id to the list
-                    nitriteIdList.add(entry.getKey());
-                    indexMap.put((Comparable) fieldValue, nitriteIdList);
+    private boolean journalIfBehind(Index index, NitriteId nitriteId, Collection<?> keys,
+                                    Collection<?> newKeys, int errorCode) {
+        String field = index.getField();
+        if (!getBuildFlag(field).get() && indexMetaService.isConsistent(field)) {
+            return false;
+        }
+
+        // a unique key can only be checked once the build has found every
+        // key of the collection, so the write waits for the scan to end
+        UniqueKeyRun uniqueKeyRun = uniqueKeyRuns.get(field);
+        Map<Comparable, List<NitriteId>> postings = null;
+        if (uniqueKeyRun != null && !newKeys.isEmpty()) {
+            postings = uniqueKeyRun.awaitPostings();
+        }
+
+        synchronized (journalLock) {
+            NitriteMap<NitriteId, List<Object>> journal = indexMetaService.getJournalMap(field);
+
+            // once the build is over, the journal is replayed into the index
+            // and the run does not have the keys of the replayed documents
+            if (uniqueKeyRuns.get(field) != uniqueKeyRun) {
+                postings = null;
+            }
+
+            // the index can not reject a duplicate key until it has caught up,
+            // so it is rejected here, before the write is journaled
+            if (index.getIndexType() == IndexType.Unique && !newKeys.isEmpty()) {
+                validateUniqueWhileBehind(index, nitriteId, newKeys, postings, journal, errorCode);
+            }
+
+            List<Object> oldKeys = journal.get(nitriteId);
+            oldKeys = oldKeys == null ? new ArrayList<>() : new ArrayList<>(oldKeys);
+
+            // every key the document had since it was first journaled
+            // might be in the index, depending on when it was built
+            for (Object oldKey : keys) {
+                if (oldKey instanceof Comparable && !oldKeys.contains(oldKey)) {
+                    oldKeys.add(oldKey);
                 }
-            } else {
-                // for update-rebuild or remove-rebuild this block will never come
-                for (Map.Entry<NitriteId, Document> entry : underlyingMap.entrySet()) {
-                    // create the document
-                    Document object = entry.getValue();
+            }
+            journal.put(nitriteId, oldKeys);
+        }
 
-                    // retrieve the value from document
-                    Object fieldValue = getFieldValue(object, field);
+        catchUp(index);
+        return true;
+    }
 
-                    if (fieldValue == null) continue;
-                    if (!(fieldValue instanceof String)) {
-                        throw new IndexingException(NON_STRING_VALUE_IN_FULL_TEXT_INDEX);
+    private void validateUniqueWhileBehind(Index index, NitriteId nitriteId, Collection<?> newKeys,
+                                           Map<Comparable, List<NitriteId>> postings,
+                                           NitriteMap<NitriteId, List<Object>> journal,
+                                           int errorCode) {
+        // the run of the build, or else the index, has every key written before
+        // the journal, the documents written since are journaled, and their keys
+        // are read from the documents
+        Set<NitriteId> candidates = new LinkedHashSet<>();
+        if (postings != null) {
+            for (Object key : newKeys) {
+                List<NitriteId> nitriteIds = postings.get(key);
+                if (nitriteIds != null) {
+                    candidates.addAll(nitriteIds);
+                }
+            }
+        } else if (indexMetaService.isDirtyIndex(index.getField())) {
+            // the build has not scanned the collection yet,
+            // only the collection has every key
+            for (Map.Entry<NitriteId, Document> entry : underlyingMap.entrySet()) {
+                if (!entry.getKey().equals(nitriteId)
+                        && hasAnyKey(entry.getValue(), index, newKeys)) {
+                    throw uniqueConstraintViolation(index, errorCode);
+                }
+            }
+            return;
+        } else {
+            NitriteMap<Comparable, PostingList> indexMap = indexMetaService.getIndexMap(index.getField());
+            for (Object key : newKeys) {
+                PostingList nitriteIds = indexMap.get((Comparable) key);
+                if (nitriteIds != null) {
+                    candidates.addAll(nitriteIds);
+                }
+            }
+        }
+        candidates.addAll(journal.keySet());
+
+        for (NitriteId candidate : candidates) {
+            if (candidate.equals(nitriteId)) continue;
+            Document document = underlyingMap.get(candidate);
+            if (document != null && hasAnyKey(document, index, newKeys)) {
+                throw uniqueConstraintViolation(index, errorCode);
+            }
+        }
+    }
+
+    private static boolean hasAnyKey(Document document, Index index, Collection<?> keys) {
+        for (Comparable key : IndexBuilder.indexKeys(document, index)) {
+            if (keys.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void catchUp(final Index index) {
+        final String field = index.getField();
+        if (getBuildFlag(field).compareAndSet(false, true)) {
+            rebuildExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    if (indexMetaService.isDirtyIndex(field)) {
+                        // an interrupted build left the index incomplete, there
+                        // is no consistent point to catch up from
+                        buildIndexInternal(field, index, null, underlyingMap.snapshot());
+                    } else {
+                        boolean replayed = false;
+                        try {
+                            if (!indexMetaService.hasStatistics(field)) {
+                                collectStatistics(index, false);
+                            }
+                            replayJournal(index);
+                            replayed = true;
+                        } finally {
+                            releaseBuildFlag(index, replayed);
+                        }
                     }
+                }
+            });
+        }
+    }
 
-                    textIndexingService.createIndex(entry.getKey(), field, (String) fieldValue);
+    private void replayJournal(Index index) {
+        String field = index.getField();
+        if (!indexMetaService.hasJournal(field)) return;
+
+        NitriteMap<NitriteId, List<Object>> journal = indexMetaService.getJournalMap(field);
+        while (true) {
+            synchronized (journalLock) {
+                NitriteId nitriteId = journal.firstKey();
+                if (nitriteId == null) {
+                    indexMetaService.dropJournal(field);
+                    return;
                 }
+
+                try {
+                    applyJournalEntry(index, nitriteId, journal.get(nitriteId));
+                } catch (NitriteException ne) {
+                    // the entry stays in the journal, so the index stays behind and
+                    // queries scan the collection, until a later write retries it
+                    log.error("Failed to apply journaled index entry of " + nitriteId
+                            + " on " + field, ne);
+                    throw ne;
+                }
+                journal.remove(nitriteId);
+            }
+        }
+    }
+
+    private void applyJournalEntry(Index index, NitriteId nitriteId, List<Object> oldKeys) {
+        String field = index.getField();
+        Document document = underlyingMap.get(nitriteId);
+
+        if (index.getIndexType() == IndexType.Fulltext) {
+            for (Object oldKey : oldKeys) {
+                if (oldKey instanceof String) {
+                    textIndexingService.deleteIndex(nitriteId, field, (String) oldKey);
+                }
+            }
+
+            Object fieldValue = document == null ? null : getFieldValue(document, field);
+            if (fieldValue instanceof String) {
+                textIndexingService.updateIndex(nitriteId, field, (String) fieldValue);
+            }
+        } else {
+            for (Object oldKey : oldKeys) {
+                removeEntry(index, (Comparable) oldKey, nitriteId);
+            }
+
+            if (document != null) {
+                for (Comparable key : IndexBuilder.indexKeys(document, index)) {
+                    addEntry(index, key, nitriteId, UCE_BUILD_INDEX_CONSTRAINT_VIOLATED);
+                }
+            }
+        }
+    }
+
+    private void releaseBuildFlag(Index index, boolean replayed) {
+        String field = index.getField();
+        // a build writes the text index in bulk, so the text
+        // statistics are collected again on the next search
+        indexMetaService.resetTextStatistics(field);
+        getBuildFlag(field).set(false);
+
+        // a write might have been journaled after the last replay, a
+        // failed replay is retried by the next write instead
+        if (replayed && indexMetaService.hasJournal(field)) {
+            catchUp(index);
+        }
+    }
+
+    private void updateKeyedIndexEntries(Document document, NitriteId nitriteId) {
+        for (Index index : keyedIndexes()) {
+            Collection<Comparable> keys = IndexBuilder.indexKeys(document, index);
+            if (keys.isEmpty() || journalIfBehind(index, nitriteId, Collections.emptySet(),
+                    keys, UCE_UPDATE_INDEX_CONSTRAINT_VIOLATED)) continue;
+
+            for (Comparable key : keys) {
+                addEntry(index, key, nitriteId, UCE_UPDATE_INDEX_CONSTRAINT_VIOLATED);
             }
-        } finally {
-            // remove dirty marker to denote indexing completed successfully
-            // if dirty marker is found in any index, it needs to be rebuild
-            indexMetaService.unmarkDirty(field);
-            getBuildFlag(field).set(false);
         }
     }
 
+    private void removeKeyedIndexEntries(Document document, NitriteId nitriteId) {
+        for (Index index : keyedIndexes()) {
+            Collection<Comparable> keys = IndexBuilder.indexKeys(document, index);
+            if (keys.isEmpty() || journalIfBehind(index, nitriteId, keys,
+                    Collections.emptySet(), 0)) continue;
+
+            for (Comparable key : keys) {
+                removeEntry(index, key, nitriteId);
+            }
+        }
+    }
+
+    private void refreshKeyedIndexEntries(Document oldDocument, Document newDocument,
+                                          NitriteId nitriteId) {
+        for (Index index : keyedIndexes()) {
+            Collection<Comparable> newKeys = IndexBuilder.indexKeys(newDocument, index);
+            Collection<Comparable> oldKeys = IndexBuilder.indexKeys(oldDocument, index);
+            if (newKeys.equals(oldKeys)) continue;
+            if (journalIfBehind(index, nitriteId, oldKeys,
+                    newKeys, UCE_REFRESH_INDEX_CONSTRAINT_VIOLATED)) continue;
+
+            for (Comparable key : newKeys) {
+                if (!oldKeys.contains(key)) {
+                    addEntry(index, key, nitriteId, UCE_REFRESH_INDEX_CONSTRAINT_VIOLATED);
+                }
+            }
+            for (Comparable key : oldKeys) {
+                if (!newKeys.contains(key)) {
+                    removeEntry(index, key, nitriteId);
+                }
+            }
+        }
+    }
+
+    private List<Index> keyedIndexes() {
+        List<Index> indexes = new ArrayList<>();
+        for (Index index : indexMetaService.listIndexes()) {
+            if (isKeyed(index)) {
+                indexes.add(index);
+            }
+        }
+        return indexes;
+    }
+
+    // compound, multikey, hash and partial indexes are maintained by the keys
+    // computed from the whole document, instead of by the values of its fields
+    private static boolean isKeyed(Index index) {
+        return index.isCompound() || index.isPartial()
+                || index.getIndexType() == IndexType.Multikey
+                || index.getIndexType() == IndexType.Hash;
+    }
+
+    private void validatePartialFilter(IndexType indexType, Filter partialFilter) {
+        if (indexType == IndexType.Fulltext) {
+            throw new IndexingException(errorMessage(
+                    "partial full-text index is not supported",
+                    IE_INVALID_PARTIAL_INDEX_FILTER));
+        }
+
+        // the filter is persisted with the index, and evaluated
+        // against every document written to the collection
+        if (!(partialFilter instanceof BaseFilter)
+                || ((BaseFilter) partialFilter).compile() == null) {
+            throw new IndexingException(errorMessage(
+                    "filter of a partial index must be evaluable against a single document",
+                    IE_INVALID_PARTIAL_INDEX_FILTER));
+        }
+    }
+
+    private void addEntry(Index index, Comparable key, NitriteId nitriteId, int errorCode) {
+        NitriteMap<Comparable, PostingList> indexMap = indexMetaService.getIndexMap(index.getField());
+        PostingList nitriteIdList = indexMap.get(key);
+        if (nitriteIdList == null) {
+            nitriteIdList = PostingList.empty();
+        }
+
+        if (index.getIndexType() == IndexType.Unique && nitriteIdList.size() == 1
+                && !nitriteIdList.contains(nitriteId)) {
+            // if key is already exists for unique type, throw error
+            throw uniqueConstraintViolation(index, errorCode);
+        }
+
+        PostingList updated = nitriteIdList.with(nitriteId);
+        indexMap.put(key, updated);
+        indexMetaService.updateStatistics(index.getField(), nitriteIdList.size(), updated.size());
+    }
+
+    private void removeEntry(Index index, Comparable key, NitriteId nitriteId) {
+        NitriteMap<Comparable, PostingList> indexMap = indexMetaService.getIndexMap(index.getField());
+        PostingList nitriteIdList = indexMap.get(key);
+        if (nitriteIdList != null) {
+            PostingList updated = nitriteIdList.without(nitriteId);
+            if (updated.isEmpty()) {
+                indexMap.remove(key);
+            } else {
+                indexMap.put(key, updated);
+            }
+            indexMetaService.updateStatistics(index.getField(), nitriteIdList.size(), updated.size());
+        }
+    }
+
+    private static UniqueConstraintException uniqueConstraintViolation(Index index, int errorCode) {
+        return new UniqueConstraintException(errorMessage(
+                "unique key constraint violation for " + index.getField(), errorCode));
+    }
+
     private synchronized AtomicBoolean getBuildFlag(String field) {
         AtomicBoolean flag = indexBuildRegistry.get(field);
         if (flag != null) return flag;
@@ -19,6 +19,7 @@
 package org.dizitart.no2.internals;
 
 import org.dizitart.no2.*;
+import org.dizitart.no2.exceptions.IndexingException;
 import org.dizitart.no2.exceptions.InvalidOperationException;
 import org.dizitart.no2.store.NitriteMap;
 import org.dizitart.no2.util.Iterables;
@@ -27,15 +28,23 @@ import java.util.*;
 
 import static org.dizitart.no2.exceptions.ErrorMessage.REMOVE_ON_DOCUMENT_ITERATOR_NOT_SUPPORTED;
 import static org.dizitart.no2.util.EqualsUtils.deepEquals;
+import static org.dizitart.no2.util.IndexUtils.stableHash;
 
 /**
+ * Joins the documents of a cursor with the documents of a foreign cursor,
+ * where the value of the local field is equal to the value of the foreign
+ * field. The foreign documents are found by probing the index of the
+ * foreign field, or from a hash table of the foreign cursor built once
+ * for an iteration, instead of scanning the foreign cursor for every
+ * local document.
+ *
  * @author Anindya Chatterjee.
  */
 class JoinedDocumentIterable implements RecordIterable<Document> {
     private final Collection<NitriteId> resultSet;
     private final NitriteMap<NitriteId, Document> underlyingMap;
     private boolean hasMore;
-    private int totalCount;
+    private FindResult findResult;
     private Cursor foreignCursor;
     private Lookup lookup;
 
@@ -49,7 +58,7 @@ class JoinedDocumentIterable implements RecordIterable<Document> {
         }
         this.underlyingMap = findResult.getUnderlyingMap();
         this.hasMore = findResult.isHasMore();
-        this.totalCount = findResult.getTotalCount();
+        this.findResult = findResult;
     }
 
     @Override
@@ -64,7 +73,7 @@ class JoinedDocumentIterable implements RecordIterable<Document> {
 
     @Override
     public int totalCount() {
-        return totalCount;
+        return findResult.getTotalCount();
     }
 
     @Override
@@ -89,9 +98,11 @@ class JoinedDocumentIterable implements RecordIterable<Document> {
 
     private class JoinedDocumentIterator implements Iterator<Document> {
         private Iterator<NitriteId> iterator;
+        private ForeignIndex foreignIndex;
 
         JoinedDocumentIterator() {
             iterator = resultSet.iterator();
+            foreignIndex = foreignIndex();
         }
 
         @Override
@@ -104,7 +115,7 @@ class JoinedDocumentIterable implements RecordIterable<Document> {
             NitriteId next = iterator.next();
             Document document = underlyingMap.get(next);
             if (document != null) {
-                return join(new Document(document), foreignCursor, lookup);
+                return join(new Document(document));
             }
             return null;
         }
@@ -114,17 +125,17 @@ class JoinedDocumentIterable implements RecordIterable<Document> {
             throw new InvalidOperationException(REMOVE_ON_DOCUMENT_ITERATOR_NOT_SUPPORTED);
         }
 
-        private Document join(Document localDocument, Cursor foreignCursor, Lookup lookup) {
+        private Document join(Document localDocument) {
             Object localObject = localDocument.get(lookup.getLocalField());
             if (localObject == null) return localDocument;
             Document resultDocument = new Document(localDocument);
             Set<Document> target = new HashSet<>();
 
-            for (Document foreignDocument: foreignCursor) {
+            for (Document foreignDocument : foreignIndex.find(localObject)) {
                 Object foreignObject = foreignDocument.get(lookup.getForeignField());
                 if (foreignObject != null) {
                     if (deepEquals(foreignObject, localObject)) {
-                        target.add(foreignDocument);
+                        target.add(new Document(foreignDocument));
                     }
                 }
             }
@@ -134,4 +145,116 @@ class JoinedDocumentIterable implements RecordIterable<Document> {
             return resultDocument;
         }
     }
+
+    private ForeignIndex foreignIndex() {
+        // probing an index of the foreign collection for every local
+        // document is cheaper than hashing the whole foreign cursor,
+        // as long as there are fewer local documents than foreign ones
+        if (foreignCursor instanceof DocumentCursor
+                && !lookup.getForeignField().contains(".")
+                && resultSet.size() < foreignCursor.size()) {
+            FindResult foreignResult = ((DocumentCursor) foreignCursor).getFindResult();
+            if (foreignResult.getNitriteService() != null) {
+                return new IndexProbe(foreignResult);
+            }
+        }
+        return new HashTable();
+    }
+
+    // finds the foreign documents which may have a value equal to
+    // a local value, and are verified by the join afterwards
+    private interface ForeignIndex {
+        Iterable<Document> find(Object localObject);
+    }
+
+    // a hash table of the foreign documents by their values, built once
+    // for every iteration of the join; the documents with a value which
+    // can not be hashed, are compared with every local value
+    private class HashTable implements ForeignIndex {
+        private final Map<Integer, List<Document>> buckets = new HashMap<>();
+        private final List<Document> unhashed = new ArrayList<>();
+
+        HashTable() {
+            for (Document foreignDocument : foreignCursor) {
+                Object foreignObject = foreignDocument.get(lookup.getForeignField());
+                if (foreignObject == null) continue;
+
+                Integer hash = hash(foreignObject);
+                if (hash == null) {
+                    unhashed.add(foreignDocument);
+                } else {
+                    List<Document> bucket = buckets.get(hash);
+                    if (bucket == null) {
+                        bucket = new ArrayList<>();
+                        buckets.put(hash, bucket);
+                    }
+                    bucket.add(foreignDocument);
+                }
+            }
+        }
+
+        @Override
+        public Iterable<Document> find(Object localObject) {
+            Integer hash = hash(localObject);
+            if (hash == null) {
+                return foreignCursor;
+            }
+
+            List<Document> bucket = buckets.get(hash);
+            if (unhashed.isEmpty()) {
+                return bucket == null ? Collections.<Document>emptyList() : bucket;
+            }
+
+            List<Document> candidates = new ArrayList<>(unhashed);
+            if (bucket != null) {
+                candidates.addAll(bucket);
+            }
+            return candidates;
+        }
+
+        private Integer hash(Object value) {
+            try {
+                return stableHash(value);
+            } catch (IndexingException ie) {
+                return null;
+            }
+        }
+    }
+
+    // probes the index of the foreign field, if it has one, for the
+    // documents of the foreign cursor with a local value
+    private class IndexProbe implements ForeignIndex {
+        private final FindResult foreignResult;
+        private final Set<NitriteId> foreignIds;
+        private HashTable hashTable;
+
+        IndexProbe(FindResult foreignResult) {
+            this.foreignResult = foreignResult;
+            this.foreignIds = foreignCursor.idSet();
+        }
+
+        @Override
+        public Iterable<Document> find(Object localObject) {
+            Set<NitriteId> nitriteIds = foreignResult.getNitriteService()
+                    .findJoinedWithIndex(lookup.getForeignField(), localObject);
+            if (nitriteIds == null) {
+                if (hashTable == null) {
+                    hashTable = new HashTable();
+                }
+                return hashTable.find(localObject);
+            }
+
+            List<Document> candidates = new ArrayList<>();
+            NitriteMap<NitriteId, Document> foreignMap = foreignResult.getUnderlyingMap();
+            for (NitriteId nitriteId : nitriteIds) {
+                if (foreignIds.contains(nitriteId)) {
+                    Document foreignDocument = foreignMap.get(nitriteId);
+                    if (foreignDocument != null) {
+                        candidates.add(foreignDocument);
+                    }
+                }
+            }
+            return candidates;
+        }
+    }
 }
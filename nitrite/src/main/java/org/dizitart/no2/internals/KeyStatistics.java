@@ -0,0 +1,208 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.internals;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dizitart.no2.IndexStatistics;
+import org.dizitart.no2.store.NitriteMap;
+import org.dizitart.no2.store.PostingList;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Keeps the statistics of the keys of an index. The key and entry counts
+ * and the distribution of the posting list sizes are collected by a scan
+ * of a snapshot of the index, taken when the index is built or loaded, and
+ * every write to the index after the snapshot is added on top of them.
+ * The equi-depth histogram can not be maintained that way, so it is
+ * collected again in background once enough entries have changed.
+ *
+ * The scans run in the thread building the index, or in background, never
+ * in a query; until the first one is over, there are no statistics.
+ *
+ * @author Anindya Chatterjee.
+ * @since 3.4.3
+ */
+@Slf4j
+class KeyStatistics {
+    private static final int HISTOGRAM_BUCKETS = 32;
+    // the histogram is collected again once this fraction
+    // of the entries, or at least MIN_STALE_CHANGES, changed
+    private static final double STALE_FRACTION = 0.1;
+    private static final long MIN_STALE_CHANGES = 1000;
+
+    private final String field;
+    private final NitriteMap<Comparable, PostingList> indexMap;
+    private final ExecutorService executor;
+    private final long[] postingSizes;
+    private NitriteMap<Comparable, PostingList> indexSnapshot;
+    private long keyCount;
+    private long entryCount;
+    private long changeCount;
+    private boolean refreshing;
+    private List<IndexStatistics.Bucket> histogram;
+
+    // must be created while nothing else writes to the index, as every
+    // write after the snapshot is counted by update instead of collect
+    KeyStatistics(String field, NitriteMap<Comparable, PostingList> indexMap,
+                  ExecutorService executor) {
+        this.field = field;
+        this.indexMap = indexMap;
+        this.executor = executor;
+        this.postingSizes = new long[Integer.SIZE];
+        this.indexSnapshot = indexMap.snapshot();
+    }
+
+    void collect() {
+        NitriteMap<Comparable, PostingList> snapshot;
+        synchronized (this) {
+            snapshot = indexSnapshot;
+            if (snapshot == null) return;
+        }
+
+        long[] sizes = new long[Integer.SIZE];
+        long keys = 0;
+        long entries = 0;
+        for (Map.Entry<Comparable, PostingList> entry : snapshot.entrySet()) {
+            int size = entry.getValue().size();
+            if (size == 0) continue;
+
+            sizes[sizeClass(size)]++;
+            keys++;
+            entries += size;
+        }
+        List<IndexStatistics.Bucket> buckets = collectHistogram(snapshot, entries);
+
+        synchronized (this) {
+            for (int i = 0; i < sizes.length; i++) {
+                postingSizes[i] += sizes[i];
+            }
+            keyCount += keys;
+            entryCount += entries;
+            histogram = buckets;
+            indexSnapshot = null;
+        }
+    }
+
+    synchronized void update(int oldSize, int newSize) {
+        if (oldSize == newSize) return;
+
+        if (oldSize > 0) {
+            postingSizes[sizeClass(oldSize)]--;
+        } else {
+            keyCount++;
+        }
+
+        if (newSize > 0) {
+            postingSizes[sizeClass(newSize)]++;
+        } else {
+            keyCount--;
+        }
+
+        entryCount += newSize - oldSize;
+        changeCount += Math.abs(newSize - oldSize);
+    }
+
+    synchronized IndexStatistics snapshot() {
+        // not collected yet
+        if (histogram == null) return null;
+
+        if (!refreshing && changeCount > Math.max(MIN_STALE_CHANGES, entryCount * STALE_FRACTION)) {
+            refreshHistogram();
+        }
+
+        SortedMap<Integer, Long> distribution = new TreeMap<>();
+        for (int i = 0; i < postingSizes.length; i++) {
+            if (postingSizes[i] > 0) {
+                distribution.put(1 << i, postingSizes[i]);
+            }
+        }
+
+        return new IndexStatistics(field, keyCount, entryCount,
+                Collections.unmodifiableSortedMap(distribution), histogram);
+    }
+
+    // the stale histogram is served until the new one is collected
+    private void refreshHistogram() {
+        final long entries = entryCount;
+        refreshing = true;
+        changeCount = 0;
+        try {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    List<IndexStatistics.Bucket> buckets = null;
+                    try {
+                        buckets = collectHistogram(indexMap.snapshot(), entries);
+                    } catch (RuntimeException re) {
+                        log.error("Failed to collect the histogram of " + field, re);
+                    } finally {
+                        synchronized (KeyStatistics.this) {
+                            if (buckets != null) {
+                                histogram = buckets;
+                            }
+                            refreshing = false;
+                        }
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            // the database is closing
+            refreshing = false;
+        }
+    }
+
+    private static List<IndexStatistics.Bucket> collectHistogram(
+            NitriteMap<Comparable, PostingList> snapshot, long entryCount) {
+        List<IndexStatistics.Bucket> buckets = new ArrayList<>();
+        long depth = Math.max(1, (entryCount + HISTOGRAM_BUCKETS - 1) / HISTOGRAM_BUCKETS);
+
+        Comparable lower = null;
+        Comparable upper = null;
+        long keys = 0;
+        long entries = 0;
+        for (Map.Entry<Comparable, PostingList> entry : snapshot.entrySet()) {
+            if (lower == null) {
+                lower = entry.getKey();
+            }
+            upper = entry.getKey();
+            keys++;
+            entries += entry.getValue().size();
+
+            if (entries >= depth) {
+                buckets.add(new IndexStatistics.Bucket(lower, upper, keys, entries));
+                lower = null;
+                keys = 0;
+                entries = 0;
+            }
+        }
+
+        if (keys > 0) {
+            buckets.add(new IndexStatistics.Bucket(lower, upper, keys, entries));
+        }
+        return Collections.unmodifiableList(buckets);
+    }
+
+    // the floor of the binary logarithm of the size
+    private static int sizeClass(int size) {
+        return Integer.SIZE - 1 - Integer.numberOfLeadingZeros(size);
+    }
+}
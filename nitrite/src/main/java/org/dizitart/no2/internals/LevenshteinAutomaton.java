@@ -0,0 +1,159 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.internals;
+
+import org.dizitart.no2.store.NitriteMap;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A Levenshtein automaton, which accepts the words within a maximum
+ * number of edits - insertions, deletions and substitutions of a
+ * character - from a term. A state of the automaton is a row of the
+ * edit distances between the term and a prefix of the word being read,
+ * capped at one more than the maximum edits. A state with no distance
+ * within the maximum edits is dead, as no word starting with the
+ * prefix can be accepted.
+ *
+ * The automaton is intersected with a sorted term dictionary. As soon
+ * as the prefix of a word leads to a dead state, the dictionary is
+ * seeked to the smallest string the automaton can still accept after
+ * that word, so the ranges of words which can not match are skipped
+ * instead of visited.
+ *
+ * @author Anindya Chatterjee.
+ * @since 3.4.3
+ */
+class LevenshteinAutomaton {
+    private final char[] term;
+    private final int maxEdits;
+    // the distinct characters of the term in ascending order
+    private final char[] alphabet;
+
+    LevenshteinAutomaton(String term, int maxEdits) {
+        this.term = term.toCharArray();
+        this.maxEdits = maxEdits;
+
+        char[] chars = term.toCharArray();
+        Arrays.sort(chars);
+        int size = 0;
+        for (int i = 0; i < chars.length; i++) {
+            if (i == 0 || chars[i] != chars[i - 1]) {
+                chars[size++] = chars[i];
+            }
+        }
+        this.alphabet = Arrays.copyOf(chars, size);
+    }
+
+    /**
+     * Finds the words of the `dictionary` accepted by the automaton.
+     *
+     * @param dictionary the term dictionary, keyed by the words
+     * @return the accepted words in ascending order, along with
+     * their edit distances from the term.
+     */
+    Map<String, Integer> intersect(NitriteMap<Comparable, ?> dictionary) {
+        Map<String, Integer> matches = new LinkedHashMap<>();
+        Comparable next = dictionary.firstKey();
+        while (next != null) {
+            String word = (String) next;
+            int[][] rows = new int[word.length() + 1][];
+            rows[0] = start();
+
+            int dead = -1;
+            for (int i = 0; i < word.length(); i++) {
+                rows[i + 1] = step(rows[i], word.charAt(i));
+                if (!isAlive(rows[i + 1])) {
+                    dead = i;
+                    break;
+                }
+            }
+
+            if (dead < 0) {
+                int distance = rows[word.length()][term.length];
+                if (distance <= maxEdits) {
+                    matches.put(word, distance);
+                }
+                next = dictionary.higherKey(word);
+            } else {
+                String seek = nextString(word, dead, rows);
+                next = seek == null ? null : dictionary.ceilingKey(seek);
+            }
+        }
+        return matches;
+    }
+
+    private int[] start() {
+        int[] row = new int[term.length + 1];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = Math.min(i, maxEdits + 1);
+        }
+        return row;
+    }
+
+    private int[] step(int[] row, char c) {
+        int[] next = new int[row.length];
+        next[0] = Math.min(row[0] + 1, maxEdits + 1);
+        for (int i = 1; i < row.length; i++) {
+            int cost = term[i - 1] == c ? 0 : 1;
+            int distance = Math.min(row[i - 1] + cost, Math.min(row[i], next[i - 1]) + 1);
+            next[i] = Math.min(distance, maxEdits + 1);
+        }
+        return next;
+    }
+
+    private boolean isAlive(int[] row) {
+        for (int distance : row) {
+            if (distance <= maxEdits) return true;
+        }
+        return false;
+    }
+
+    // the smallest string greater than every word starting with the
+    // first `dead` + 1 characters of the word, which leads to a live
+    // state; all the words in between can not be accepted
+    private String nextString(String word, int dead, int[][] rows) {
+        for (int i = dead; i >= 0; i--) {
+            int c = nextChar(rows[i], word.charAt(i));
+            if (c >= 0) {
+                return word.substring(0, i) + (char) c;
+            }
+        }
+        return null;
+    }
+
+    private int nextChar(int[] row, char after) {
+        // a character of the term leads to a state at least as live
+        // as any other character, so if the next character leads to a
+        // live state it is the smallest one, otherwise only a character
+        // of the term can
+        if (after < Character.MAX_VALUE && isAlive(step(row, (char) (after + 1)))) {
+            return after + 1;
+        }
+
+        for (char c : alphabet) {
+            if (c > after && isAlive(step(row, c))) {
+                return c;
+            }
+        }
+        return -1;
+    }
+}
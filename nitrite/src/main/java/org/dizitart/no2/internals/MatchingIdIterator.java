@@ -0,0 +1,79 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.dizitart.no2.internals;
+
+import org.dizitart.no2.Document;
+import org.dizitart.no2.NitriteId;
+import org.dizitart.no2.exceptions.InvalidOperationException;
+import org.dizitart.no2.filters.DocumentPredicate;
+import org.dizitart.no2.store.NitriteMap;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.dizitart.no2.exceptions.ErrorMessage.REMOVE_ON_DOCUMENT_ITERATOR_NOT_SUPPORTED;
+
+/**
+ * An iterator over the ids of the documents matching a predicate.
+ * Documents are read and tested only as ids are pulled, so a
+ * consumer can stop the scan as soon as it has seen enough matches.
+ *
+ * @author Anindya Chatterjee.
+ */
+class MatchingIdIterator implements Iterator<NitriteId> {
+    private final Iterator<Map.Entry<NitriteId, Document>> entryIterator;
+    private final DocumentPredicate predicate;
+    private NitriteId nextId;
+
+    MatchingIdIterator(NitriteMap<NitriteId, Document> documentMap, DocumentPredicate predicate) {
+        this(documentMap.entrySet().iterator(), predicate);
+    }
+
+    MatchingIdIterator(Iterator<Map.Entry<NitriteId, Document>> entryIterator,
+                       DocumentPredicate predicate) {
+        this.entryIterator = entryIterator;
+        this.predicate = predicate;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (nextId == null && entryIterator.hasNext()) {
+            Map.Entry<NitriteId, Document> entry = entryIterator.next();
+            if (predicate.test(entry.getValue())) {
+                nextId = entry.getKey();
+            }
+        }
+        return nextId != null;
+    }
+
+    @Override
+    public NitriteId next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        NitriteId id = nextId;
+        nextId = null;
+        return id;
+    }
+
+    @Override
+    public void remove() {
+        throw new InvalidOperationException(REMOVE_ON_DOCUMENT_ITERATOR_NOT_SUPPORTED);
+    }
+}
@@ -22,17 +22,23 @@ import org.dizitart.no2.*;
 import org.dizitart.no2.event.ChangeInfo;
 import org.dizitart.no2.event.ChangeListener;
 import org.dizitart.no2.event.EventBus;
+import org.dizitart.no2.filters.IndexAwareFilter;
+import org.dizitart.no2.filters.KeyRange;
 import org.dizitart.no2.fulltext.EnglishTextTokenizer;
+import org.dizitart.no2.fulltext.RankedResult;
 import org.dizitart.no2.fulltext.TextIndexingService;
 import org.dizitart.no2.fulltext.TextTokenizer;
 import org.dizitart.no2.mapper.NitriteMapper;
 import org.dizitart.no2.store.NitriteMap;
+import org.dizitart.no2.store.PostingList;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import static org.dizitart.no2.Constants.DOC_ID;
 import static org.dizitart.no2.exceptions.ErrorCodes.*;
 import static org.dizitart.no2.exceptions.ErrorMessage.errorMessage;
 import static org.dizitart.no2.util.ValidationUtils.notNull;
@@ -51,6 +57,7 @@ public class NitriteService {
     private SearchService searchService;
     private IndexedSearchService indexedSearchService;
     private IndexMetaService indexMetaService;
+    private QueryPlanner queryPlanner;
     private EventBus<ChangeInfo, ChangeListener> eventBus;
     private ReentrantReadWriteLock readWriteLock;
     private Lock readLock;
@@ -93,6 +100,63 @@ public class NitriteService {
         return indexMetaService.hasIndex(field);
     }
 
+    /**
+     * Gets the statistics of the keys of the index on a field.
+     *
+     * @param field the field
+     * @return the statistics, or `null` if the field is not indexed
+     * or its statistics are still being collected.
+     */
+    public IndexStatistics getIndexStatistics(String field) {
+        notNull(field, errorMessage("field can not be null", VE_HAS_INDEX_NULL_FIELD));
+        try {
+            readLock.lock();
+            return indexMetaService.getStatistics(field);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Specifies if a field has a {@link IndexType#Multikey} index, which
+     * holds the elements of the field instead of its value.
+     *
+     * @param field the field
+     * @return `true` if the field has a multikey index; otherwise `false`.
+     */
+    public boolean hasMultikeyIndex(String field) {
+        notNull(field, errorMessage("field can not be null", VE_HAS_INDEX_NULL_FIELD));
+        Index index = indexMetaService.findIndex(field);
+        return index != null && index.getIndexType() == IndexType.Multikey;
+    }
+
+    /**
+     * Gets the filter of the partial index on a field, which a query must
+     * imply to use the index.
+     *
+     * @param field the field
+     * @return the filter of the partial index, or `null` if the
+     * field does not have a partial index.
+     */
+    public Filter getPartialFilter(String field) {
+        notNull(field, errorMessage("field can not be null", VE_HAS_INDEX_NULL_FIELD));
+        Index index = indexMetaService.findIndex(field);
+        return index == null ? null : index.getPartialFilter();
+    }
+
+    /**
+     * Specifies if a field has a {@link IndexType#Hash} index, which
+     * can only answer equality lookups on the field.
+     *
+     * @param field the field
+     * @return `true` if the field has a hash index; otherwise `false`.
+     */
+    public boolean hasHashIndex(String field) {
+        notNull(field, errorMessage("field can not be null", VE_HAS_INDEX_NULL_FIELD));
+        Index index = indexMetaService.findIndex(field);
+        return index != null && index.getIndexType() == IndexType.Hash;
+    }
+
     /**
      * Finds with equal filer using index.
      *
@@ -196,6 +260,98 @@ public class NitriteService {
         return indexedSearchService.findText(field, value);
     }
 
+    /**
+     * Finds the best matches of a text filter using full-text index,
+     * in the order of their relevance.
+     *
+     * @param field the field
+     * @param value the value
+     * @param limit the number of best matches needed
+     * @return the ranked matches, or `null` if the full-text index can not rank them.
+     * @since 3.4.3
+     */
+    public RankedResult findRankedTextWithIndex(String field, String value, int limit) {
+        notNull(field, errorMessage("field can not be null", VE_FIND_TEXT_INDEX_NULL_FIELD));
+        notNull(value, errorMessage("value can not be null", VE_FIND_TEXT_INDEX_NULL_VALUE));
+        return indexedSearchService.findRankedText(field, value, limit);
+    }
+
+    /**
+     * Finds with fuzzy text filter using full-text index.
+     *
+     * @param field    the field
+     * @param value    the value
+     * @param maxEdits the maximum number of edits
+     * @return the result set, the documents with the closest words first.
+     * @since 3.4.3
+     */
+    public Set<NitriteId> findFuzzyTextWithIndex(String field, String value, int maxEdits) {
+        notNull(field, errorMessage("field can not be null", VE_FIND_TEXT_INDEX_NULL_FIELD));
+        notNull(value, errorMessage("value can not be null", VE_FIND_TEXT_INDEX_NULL_VALUE));
+        return indexedSearchService.findFuzzyText(field, value, maxEdits);
+    }
+
+    /**
+     * Finds with and filter using a query plan. The most selective indexed
+     * filter is used to find the candidate documents and the rest of the
+     * filters are verified against each candidate.
+     *
+     * @param filters     the operand filters
+     * @param documentMap the document map
+     * @return the result set
+     */
+    public Set<NitriteId> findAndWithPlan(Filter[] filters, NitriteMap<NitriteId, Document> documentMap) {
+        notNull(filters, errorMessage("filters can not be null", VE_FIND_AND_PLAN_NULL_FILTERS));
+        return queryPlanner.findAnd(filters, documentMap);
+    }
+
+    /**
+     * Orders the candidate ids by the index of a field, without reading any
+     * document. Candidates without an index entry, i.e. with a `null` value,
+     * are left out. The index walk stops as soon as `limit` ids are found.
+     * If the walk resumes after a key, only the ids ordered after the key,
+     * by the value and then by the id, are found.
+     *
+     * @param field      the sort field
+     * @param ascending  if the ids should be in ascending order of the values
+     * @param candidates the candidate ids
+     * @param afterValue the value of the key to resume the walk after
+     * @param afterId    the id of the key to resume the walk after,
+     *                   or `null` to walk from the start of the index
+     * @param limit      the maximum number of ids, or `0` for all of them
+     * @return the ordered ids, or `null` if the field does not have an index
+     * which can be used for sorting.
+     */
+    List<NitriteId> findSortedWithIndex(String field, boolean ascending,
+                                        Set<NitriteId> candidates, Comparable afterValue,
+                                        NitriteId afterId, int limit) {
+        if (!hasIndex(field) || isIndexing(field) || indexMetaService.hasTextIndex(field)
+                || hasMultikeyIndex(field) || hasHashIndex(field)
+                || getPartialFilter(field) != null) {
+            return null;
+        }
+        return indexedSearchService.findSorted(field, ascending, candidates,
+                afterValue, afterId, limit);
+    }
+
+    /**
+     * Finds the documents where the value of a field is equal to `value`
+     * using index, to join them with the documents of another collection.
+     *
+     * @param field the field
+     * @param value the value
+     * @return the result set, or `null` if the field does not have an
+     * index which holds every document of the collection.
+     */
+    Set<NitriteId> findJoinedWithIndex(String field, Object value) {
+        if (!hasIndex(field) || isIndexing(field) || indexMetaService.hasTextIndex(field)
+                || hasMultikeyIndex(field) || getPartialFilter(field) != null
+                || !(value instanceof Comparable || hasHashIndex(field))) {
+            return null;
+        }
+        return indexedSearchService.findEqual(field, value);
+    }
+
     /**
      * Gets the {@link NitriteMapper} implementation.
      *
@@ -221,13 +377,16 @@ public class NitriteService {
      * @param field     the value
      * @param indexType the index type
      * @param async     asynchronous operation if set to `true`
+     * @param listener  the listener to notify of the progress, or `null`
+     * @param partialFilter the filter a document must match to be indexed, or `null`
      */
-    void createIndex(String field, IndexType indexType, boolean async) {
+    void createIndex(String field, IndexType indexType, boolean async,
+                     IndexProgressListener listener, Filter partialFilter) {
         notNull(field, errorMessage("field can not be null", VE_CREATE_INDEX_NULL_FIELD));
         notNull(indexType, errorMessage("indexType can not be null", VE_CREATE_INDEX_NULL_INDEX_TYPE));
         try {
             writeLock.lock();
-            indexingService.createIndex(field, indexType, async);
+            indexingService.createIndex(field, indexType, async, listener, partialFilter);
         } finally {
             writeLock.unlock();
         }
@@ -364,6 +523,47 @@ public class NitriteService {
         }
     }
 
+    /**
+     * Counts the documents matching a filter, from the index
+     * of the filter if possible.
+     *
+     * @param filter the filter
+     * @return the number of matching documents
+     */
+    long count(Filter filter) {
+        try {
+            readLock.lock();
+            return searchService.count(filter);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Finds the index range the filter selects, if the keys of the range
+     * alone can answer the filter, i.e. the filter operates on a single
+     * field which has a plain index, and the index can currently be used.
+     *
+     * @param filter the filter
+     * @return the covering index range, or `null` if there is none.
+     */
+    CoveringIndex findCoveringIndex(IndexAwareFilter filter) {
+        String field = filter.getField();
+        KeyRange range = filter.getKeyRange();
+        // the keys of a nested field do not tell the top level value
+        if (range == null || DOC_ID.equals(field) || field.contains(".")) return null;
+
+        Index index = indexMetaService.findIndex(field);
+        if (index == null || (index.getIndexType() != IndexType.Unique
+                && index.getIndexType() != IndexType.NonUnique)
+                || !filter.canUseIndex()) {
+            return null;
+        }
+
+        NitriteMap<Comparable, PostingList> indexMap = indexMetaService.getIndexMap(field);
+        return indexMap == null ? null : new CoveringIndex(field, range, indexMap);
+    }
+
     /**
      * Returns ids of all records stored in the database.
      *
@@ -514,6 +714,7 @@ public class NitriteService {
 
         this.indexingService = new IndexingService(indexMetaService, textIndexingService, nitriteContext);
         this.indexedSearchService = new IndexedSearchService(indexMetaService, textIndexingService);
+        this.queryPlanner = new QueryPlanner(indexMetaService, indexedSearchService);
         this.searchService = new SearchService(this, mapStore);
         this.dataService = new DataService(indexingService, searchService, mapStore, eventBus);
     }
@@ -21,13 +21,15 @@ package org.dizitart.no2.internals;
 import org.dizitart.no2.NitriteId;
 import org.dizitart.no2.exceptions.FilterException;
 import org.dizitart.no2.exceptions.IndexingException;
+import org.dizitart.no2.fulltext.BaseTextTokenizer;
+import org.dizitart.no2.fulltext.RankedResult;
 import org.dizitart.no2.fulltext.TextIndexingService;
 import org.dizitart.no2.fulltext.TextTokenizer;
 import org.dizitart.no2.store.NitriteMap;
+import org.dizitart.no2.store.PostingList;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentSkipListSet;
 
 import static org.dizitart.no2.exceptions.ErrorCodes.IE_FAILED_TO_WRITE_FTS_DATA;
 import static org.dizitart.no2.exceptions.ErrorCodes.IE_REMOVE_FULL_TEXT_INDEX_FAILED;
@@ -38,6 +40,9 @@ import static org.dizitart.no2.util.IndexUtils.sortByScore;
  * @author Anindya Chatterjee.
  */
 class NitriteTextIndexingService implements TextIndexingService {
+    private static final int TRIGRAM_LENGTH = 3;
+    private static final int MAX_FUZZY_EDITS = 2;
+
     private TextTokenizer tokenizerService;
     private IndexMetaService indexMetaService;
     private final Object indexLock = new Object();
@@ -60,22 +65,36 @@ class NitriteTextIndexingService implements TextIndexingService {
     @Override
     public void deleteIndex(NitriteId id, String field, String text) {
         try {
-            NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap
+            NitriteMap<Comparable, PostingList> indexMap
                     = indexMetaService.getIndexMap(field);
-            Set<String> words = tokenizerService.tokenize(text);
-
-            for (String word : words) {
-                ConcurrentSkipListSet<NitriteId> nitriteIds = indexMap.get(word);
+            NitriteMap<String, Boolean> reversedTermMap
+                    = indexMetaService.getReversedTermMap(field);
+            NitriteMap<String, Boolean> trigramMap
+                    = indexMetaService.getTrigramMap(field);
+            NitriteMap<CompoundKey, Integer> frequencyMap
+                    = indexMetaService.getFrequencyMap(field);
+            Map<String, Integer> frequencies = termFrequencies(text);
+
+            for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+                String word = frequency.getKey();
+                PostingList nitriteIds = indexMap.get(word);
                 if (nitriteIds != null) {
-                    nitriteIds.remove(id);
+                    PostingList updated = nitriteIds.without(id);
 
-                    if (nitriteIds.isEmpty()) {
+                    if (updated.isEmpty()) {
                         indexMap.remove(word);
+                        removeTerm(reversedTermMap, trigramMap, word);
                     } else {
-                        indexMap.put(word, nitriteIds);
+                        indexMap.put(word, updated);
                     }
+                    indexMetaService.updateStatistics(field, nitriteIds.size(), updated.size());
+                }
+
+                if (frequencyMap != null && frequency.getValue() > 1) {
+                    frequencyMap.remove(new CompoundKey(word, id.getIdValue()));
                 }
             }
+            updateLength(field, id, 0);
         } catch (IOException ioe) {
             throw new IndexingException(errorMessage(
                     "failed to remove full-text index data for " + field + " with id " + id,
@@ -101,6 +120,119 @@ class NitriteTextIndexingService implements TextIndexingService {
         }
     }
 
+    /**
+     * Searches `searchString` using the full-text index of the `field`, and
+     * gets its best `limit` matches by their BM25 score.
+     *
+     * @param field        the field
+     * @param searchString the search string
+     * @param limit        the number of best matches needed
+     * @return the ranked matches, or `null` if the search can not be
+     * ranked, like a wildcard search or a search on a full-text index
+     * created by an older version.
+     */
+    RankedResult searchRankedByIndex(String field, String searchString, int limit) {
+        if (searchString.startsWith("*") || searchString.endsWith("*")) return null;
+
+        try {
+            TextRanker textRanker = textRanker(field);
+            if (textRanker == null) return null;
+
+            Map<String, PostingList> postings = postings(field, searchString);
+            PostingList matches = PostingList.empty();
+            for (PostingList postingList : postings.values()) {
+                matches = matches.union(postingList);
+            }
+            return new RankedResult(textRanker.rank(postings, limit), matches.size());
+        } catch (IOException ioe) {
+            throw new IndexingException(FAILED_TO_QUERY_FTS_DATA, ioe);
+        }
+    }
+
+    /**
+     * Searches the words within `maxEdits` edits of a `term` using the
+     * full-text index of the `field`. Only the ranges of the term
+     * dictionary which can hold such words are visited.
+     *
+     * @param field    the field
+     * @param term     the term to search
+     * @param maxEdits the maximum number of edits, between 0 and 2
+     * @return the matching ids, the ones with the closest words first.
+     */
+    Set<NitriteId> searchFuzzyByIndex(String field, String term, int maxEdits) {
+        if (maxEdits < 0 || maxEdits > MAX_FUZZY_EDITS) {
+            throw new FilterException(INVALID_FUZZY_MAX_EDITS);
+        }
+
+        StringTokenizer stringTokenizer = new StringTokenizer(term);
+        if (stringTokenizer.countTokens() > 1) {
+            throw new FilterException(MULTIPLE_WORDS_WITH_FUZZY);
+        }
+
+        NitriteMap<Comparable, PostingList> indexMap
+                = indexMetaService.getIndexMap(field);
+        LevenshteinAutomaton automaton
+                = new LevenshteinAutomaton(term.trim().toLowerCase(), maxEdits);
+        Map<String, Integer> words = automaton.intersect(indexMap);
+
+        Set<NitriteId> idSet = new LinkedHashSet<>();
+        for (int edits = 0; edits <= maxEdits; edits++) {
+            for (Map.Entry<String, Integer> entry : words.entrySet()) {
+                if (entry.getValue() == edits) {
+                    addPostings(indexMap, entry.getKey(), idSet);
+                }
+            }
+        }
+        return idSet;
+    }
+
+    /**
+     * Writes the words of a run of documents to the full-text index of the
+     * `field` at once, merging the posting list of every word of the run
+     * with the one already in the index.
+     *
+     * @param field the field
+     * @param run   the accumulated words of the documents
+     */
+    void writeRun(String field, TextRun run) {
+        synchronized (indexLock) {
+            NitriteMap<Comparable, PostingList> indexMap
+                    = indexMetaService.getIndexMap(field);
+            NitriteMap<String, Boolean> reversedTermMap
+                    = indexMetaService.getReversedTermMap(field);
+            NitriteMap<String, Boolean> trigramMap
+                    = indexMetaService.getTrigramMap(field);
+
+            for (Map.Entry<String, List<NitriteId>> entry : run.getPostings().entrySet()) {
+                String word = entry.getKey();
+                PostingList nitriteIds = indexMap.get(word);
+                if (nitriteIds == null) {
+                    nitriteIds = PostingList.empty();
+                    addTerm(reversedTermMap, trigramMap, word);
+                }
+
+                PostingList updated = nitriteIds.union(PostingList.of(entry.getValue()));
+                indexMap.put(word, updated);
+                indexMetaService.updateStatistics(field, nitriteIds.size(), updated.size());
+            }
+
+            NitriteMap<CompoundKey, Integer> frequencyMap
+                    = indexMetaService.getFrequencyMap(field);
+            if (frequencyMap != null) {
+                for (Map.Entry<CompoundKey, Integer> entry : run.getFrequencies().entrySet()) {
+                    frequencyMap.put(entry.getKey(), entry.getValue());
+                }
+            }
+
+            NitriteMap<Long, Integer> lengthMap = indexMetaService.getLengthMap(field);
+            if (lengthMap != null) {
+                for (Map.Entry<NitriteId, Integer> entry : run.getLengths().entrySet()) {
+                    updateLength(field, lengthMap, entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
     @Override
     public void drop() {
         // nothing to do. already handled by IndexingService
@@ -123,22 +255,40 @@ class NitriteTextIndexingService implements TextIndexingService {
 
     private void createOrUpdate(NitriteId id, String field, String text) {
         try {
-            NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap
+            NitriteMap<Comparable, PostingList> indexMap
                     = indexMetaService.getIndexMap(field);
-            Set<String> words = tokenizerService.tokenize(text);
-
-            for (String word : words) {
-                ConcurrentSkipListSet<NitriteId> nitriteIds = indexMap.get(word);
+            NitriteMap<String, Boolean> reversedTermMap
+                    = indexMetaService.getReversedTermMap(field);
+            NitriteMap<String, Boolean> trigramMap
+                    = indexMetaService.getTrigramMap(field);
+            NitriteMap<CompoundKey, Integer> frequencyMap
+                    = indexMetaService.getFrequencyMap(field);
+            Map<String, Integer> frequencies = termFrequencies(text);
+
+            int length = 0;
+            for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+                String word = frequency.getKey();
+                PostingList nitriteIds = indexMap.get(word);
 
                 synchronized (indexLock) {
                     if (nitriteIds == null) {
-                        nitriteIds = new ConcurrentSkipListSet<>();
+                        nitriteIds = PostingList.empty();
+                        addTerm(reversedTermMap, trigramMap, word);
                     }
                 }
 
-                nitriteIds.add(id);
-                indexMap.put(word, nitriteIds);
+                PostingList updated = nitriteIds.with(id);
+                indexMap.put(word, updated);
+                indexMetaService.updateStatistics(field, nitriteIds.size(), updated.size());
+
+                // a word occurring once in a document is the common
+                // case, so only the other frequencies are stored
+                if (frequencyMap != null && frequency.getValue() > 1) {
+                    frequencyMap.put(new CompoundKey(word, id.getIdValue()), frequency.getValue());
+                }
+                length += frequency.getValue();
             }
+            updateLength(field, id, length);
         } catch (IOException ioe) {
             throw new IndexingException(errorMessage(
                     "could not write full-text index data for " + text,
@@ -171,29 +321,54 @@ class NitriteTextIndexingService implements TextIndexingService {
             throw new FilterException(INVALID_SEARCH_TERM_TRAILING_STAR);
         }
 
-        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap
+        NitriteMap<Comparable, PostingList> indexMap
                 = indexMetaService.getIndexMap(field);
         Set<NitriteId> idSet = new LinkedHashSet<>();
-        String term = searchString.substring(0, searchString.length() - 1);
+        String term = searchString.substring(0, searchString.length() - 1).toLowerCase();
 
-        for (Map.Entry<Comparable, ConcurrentSkipListSet<NitriteId>> entry : indexMap.entrySet()) {
+        // all the words with the prefix sort together, starting from the prefix itself
+        Iterator<Map.Entry<Comparable, PostingList>> entries
+                = indexMap.entries(term, true, null, false, false);
+        while (entries.hasNext()) {
+            Map.Entry<Comparable, PostingList> entry = entries.next();
             String key = (String) entry.getKey();
-            if (key.startsWith(term.toLowerCase())) {
-                idSet.addAll(entry.getValue());
-            }
+            if (!key.startsWith(term)) break;
+            idSet.addAll(entry.getValue());
         }
         return idSet;
     }
 
     private Set<NitriteId> searchContains(String field, String term) {
-        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap
+        NitriteMap<Comparable, PostingList> indexMap
                 = indexMetaService.getIndexMap(field);
+        NitriteMap<String, Boolean> trigramMap
+                = indexMetaService.getTrigramMap(field);
         Set<NitriteId> idSet = new LinkedHashSet<>();
+        term = term.toLowerCase();
+
+        // a term shorter than a trigram can be anywhere in a word
+        if (trigramMap == null || term.length() < TRIGRAM_LENGTH) {
+            for (Map.Entry<Comparable, PostingList> entry : indexMap.entrySet()) {
+                String key = (String) entry.getKey();
+                if (key.contains(term)) {
+                    idSet.addAll(entry.getValue());
+                }
+            }
+            return idSet;
+        }
 
-        for (Map.Entry<Comparable, ConcurrentSkipListSet<NitriteId>> entry : indexMap.entrySet()) {
-            String key = (String) entry.getKey();
-            if (key.contains(term.toLowerCase())) {
-                idSet.addAll(entry.getValue());
+        // every word containing the term has all of its trigrams, so the
+        // words of any one of them are the candidates to verify
+        String trigram = rarestTrigram(trigramMap, term);
+        Iterator<Map.Entry<String, Boolean>> entries
+                = trigramMap.entries(trigram, true, null, false, false);
+        while (entries.hasNext()) {
+            String key = entries.next().getKey();
+            if (!key.startsWith(trigram)) break;
+
+            String word = key.substring(TRIGRAM_LENGTH);
+            if (word.contains(term)) {
+                addPostings(indexMap, word, idSet);
             }
         }
         return idSet;
@@ -204,36 +379,53 @@ class NitriteTextIndexingService implements TextIndexingService {
             throw new FilterException(INVALID_SEARCH_TERM_LEADING_STAR);
         }
 
-        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap
+        NitriteMap<Comparable, PostingList> indexMap
                 = indexMetaService.getIndexMap(field);
+        NitriteMap<String, Boolean> reversedTermMap
+                = indexMetaService.getReversedTermMap(field);
         Set<NitriteId> idSet = new LinkedHashSet<>();
-        String term = searchString.substring(1);
+        String term = searchString.substring(1).toLowerCase();
 
-        for (Map.Entry<Comparable, ConcurrentSkipListSet<NitriteId>> entry : indexMap.entrySet()) {
-            String key = (String) entry.getKey();
-            if (key.endsWith(term.toLowerCase())) {
-                idSet.addAll(entry.getValue());
+        if (reversedTermMap == null) {
+            for (Map.Entry<Comparable, PostingList> entry : indexMap.entrySet()) {
+                String key = (String) entry.getKey();
+                if (key.endsWith(term)) {
+                    idSet.addAll(entry.getValue());
+                }
             }
+            return idSet;
+        }
+
+        // the words with the suffix are the reversed words with the reversed
+        // suffix as their prefix, which sort together like a trailing wildcard
+        String reversedTerm = reverse(term);
+        Iterator<Map.Entry<String, Boolean>> entries
+                = reversedTermMap.entries(reversedTerm, true, null, false, false);
+        while (entries.hasNext()) {
+            String key = entries.next().getKey();
+            if (!key.startsWith(reversedTerm)) break;
+            addPostings(indexMap, reverse(key), idSet);
         }
         return idSet;
     }
 
     private Set<NitriteId> searchExactByIndex(String field, String searchString) throws IOException {
-        NitriteMap<Comparable, ConcurrentSkipListSet<NitriteId>> indexMap
-                = indexMetaService.getIndexMap(field);
+        Map<String, PostingList> postings = postings(field, searchString);
+        TextRanker textRanker = textRanker(field);
+        if (textRanker != null) {
+            return new LinkedHashSet<>(textRanker.rank(postings, Integer.MAX_VALUE));
+        }
 
-        Set<String> words = tokenizerService.tokenize(searchString);
+        // without term frequencies, a document scores
+        // the number of search words it contains
         Map<NitriteId, Integer> scoreMap = new HashMap<>();
-        for (String word : words) {
-            ConcurrentSkipListSet<NitriteId> nitriteIds = indexMap.get(word);
-            if (nitriteIds != null) {
-                for (NitriteId id : nitriteIds) {
-                    Integer score = scoreMap.get(id);
-                    if (score == null) {
-                        scoreMap.put(id, 1);
-                    } else {
-                        scoreMap.put(id, score + 1);
-                    }
+        for (PostingList nitriteIds : postings.values()) {
+            for (NitriteId id : nitriteIds) {
+                Integer score = scoreMap.get(id);
+                if (score == null) {
+                    scoreMap.put(id, 1);
+                } else {
+                    scoreMap.put(id, score + 1);
                 }
             }
         }
@@ -241,4 +433,128 @@ class NitriteTextIndexingService implements TextIndexingService {
         Map<NitriteId, Integer> sortedScoreMap = sortByScore(scoreMap);
         return sortedScoreMap.keySet();
     }
+
+    private Map<String, PostingList> postings(String field, String searchString) throws IOException {
+        NitriteMap<Comparable, PostingList> indexMap
+                = indexMetaService.getIndexMap(field);
+
+        Set<String> words = tokenizerService.tokenize(searchString);
+        Map<String, PostingList> postings = new LinkedHashMap<>();
+        for (String word : words) {
+            PostingList nitriteIds = indexMap.get(word);
+            if (nitriteIds != null) {
+                postings.put(word, nitriteIds);
+            }
+        }
+        return postings;
+    }
+
+    private TextRanker textRanker(String field) {
+        NitriteMap<CompoundKey, Integer> frequencyMap = indexMetaService.getFrequencyMap(field);
+        TextStatistics statistics = indexMetaService.getTextStatistics(field);
+        if (frequencyMap == null || statistics == null) return null;
+        return new TextRanker(frequencyMap, indexMetaService.getLengthMap(field), statistics);
+    }
+
+    Map<String, Integer> termFrequencies(String text) throws IOException {
+        if (tokenizerService instanceof BaseTextTokenizer) {
+            return ((BaseTextTokenizer) tokenizerService).termFrequencies(text);
+        }
+
+        // a custom tokenizer only tells which words a text has
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String word : tokenizerService.tokenize(text)) {
+            frequencies.put(word, 1);
+        }
+        return frequencies;
+    }
+
+    private void updateLength(String field, NitriteId id, int length) {
+        NitriteMap<Long, Integer> lengthMap = indexMetaService.getLengthMap(field);
+        if (lengthMap != null) {
+            updateLength(field, lengthMap, id, length);
+        }
+    }
+
+    private void updateLength(String field, NitriteMap<Long, Integer> lengthMap,
+                              NitriteId id, int length) {
+        Integer oldLength = lengthMap.get(id.getIdValue());
+        if (length > 0) {
+            lengthMap.put(id.getIdValue(), length);
+        } else if (oldLength != null) {
+            lengthMap.remove(id.getIdValue());
+        }
+        indexMetaService.updateTextStatistics(field,
+                oldLength == null ? 0 : oldLength, length);
+    }
+
+    // the term dictionaries only change when a word is first added
+    // to, or last removed from, the index of a field
+    private void addTerm(NitriteMap<String, Boolean> reversedTermMap,
+                         NitriteMap<String, Boolean> trigramMap, String word) {
+        if (reversedTermMap != null) {
+            reversedTermMap.put(reverse(word), Boolean.TRUE);
+        }
+        if (trigramMap != null) {
+            for (String trigram : trigrams(word)) {
+                trigramMap.put(trigram + word, Boolean.TRUE);
+            }
+        }
+    }
+
+    private void removeTerm(NitriteMap<String, Boolean> reversedTermMap,
+                            NitriteMap<String, Boolean> trigramMap, String word) {
+        if (reversedTermMap != null) {
+            reversedTermMap.remove(reverse(word));
+        }
+        if (trigramMap != null) {
+            for (String trigram : trigrams(word)) {
+                trigramMap.remove(trigram + word);
+            }
+        }
+    }
+
+    // counting the words of a trigram stops as soon as
+    // it has as many as the rarest trigram found so far
+    private String rarestTrigram(NitriteMap<String, Boolean> trigramMap, String term) {
+        String rarest = null;
+        long least = Long.MAX_VALUE;
+        for (String trigram : trigrams(term)) {
+            long count = 0;
+            Iterator<Map.Entry<String, Boolean>> entries
+                    = trigramMap.entries(trigram, true, null, false, false);
+            while (count < least && entries.hasNext()
+                    && entries.next().getKey().startsWith(trigram)) {
+                count++;
+            }
+
+            if (count < least) {
+                least = count;
+                rarest = trigram;
+            }
+        }
+        return rarest;
+    }
+
+    private void addPostings(NitriteMap<Comparable, PostingList> indexMap,
+                             String word, Set<NitriteId> idSet) {
+        // a dictionary entry can outlive its word for a moment
+        // while the word is being removed concurrently
+        PostingList nitriteIds = indexMap.get(word);
+        if (nitriteIds != null) {
+            idSet.addAll(nitriteIds);
+        }
+    }
+
+    private static Set<String> trigrams(String word) {
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + TRIGRAM_LENGTH <= word.length(); i++) {
+            trigrams.add(word.substring(i, i + TRIGRAM_LENGTH));
+        }
+        return trigrams;
+    }
+
+    private static String reverse(String word) {
+        return new StringBuilder(word).reverse().toString();
+    }
 }
@@ -26,14 +26,19 @@ import org.dizitart.no2.exceptions.InvalidOperationException;
 import org.dizitart.no2.store.NitriteMap;
 import org.dizitart.no2.util.Iterables;
 
-import java.util.Collection;
-import java.util.Iterator;
-import java.util.List;
-import java.util.TreeSet;
+import java.util.*;
 
+import static org.dizitart.no2.Constants.DOC_ID;
 import static org.dizitart.no2.exceptions.ErrorMessage.REMOVE_ON_DOCUMENT_ITERATOR_NOT_SUPPORTED;
 
 /**
+ * Projects the documents of a result on the fields of a projection. A
+ * projected document is built straight from the stored document with
+ * only the projected fields, and an embedded field like `address.city`
+ * only brings the part of its parent documents leading to it. If the
+ * projection is covered by the index the result was found from, or
+ * only has the id, the stored documents are not read at all.
+ *
  * @author Anindya Chatterjee.
  */
 class ProjectedDocumentIterable implements RecordIterable<Document> {
@@ -41,10 +46,24 @@ class ProjectedDocumentIterable implements RecordIterable<Document> {
     private final NitriteMap<NitriteId, Document> underlyingMap;
     private Document projection;
     private boolean hasMore;
-    private int totalCount;
+    private FindResult findResult;
+    private boolean idOnly;
+    // the embedded fields of the projection, with their keys split once
+    private Map<String, String[]> embeddedFields;
 
     ProjectedDocumentIterable(Document projection, FindResult findResult) {
         this.projection = projection;
+        this.idOnly = projection != null && projection.size() == 1
+                && projection.containsKey(DOC_ID);
+        this.embeddedFields = new LinkedHashMap<>();
+        if (projection != null) {
+            for (String field : projection.keySet()) {
+                // an embedded field of a projection is separated by a dot
+                if (field.contains(".")) {
+                    embeddedFields.put(field, field.split("\\."));
+                }
+            }
+        }
         if (findResult.getIdSet() != null) {
             resultSet = findResult.getIdSet();
         } else {
@@ -52,11 +71,15 @@ class ProjectedDocumentIterable implements RecordIterable<Document> {
         }
         this.underlyingMap = findResult.getUnderlyingMap();
         this.hasMore = findResult.isHasMore();
-        this.totalCount = findResult.getTotalCount();
+        this.findResult = findResult;
     }
 
     @Override
     public Iterator<Document> iterator() {
+        CoveringIndex coveringIndex = findResult.getCoveringIndex();
+        if (coveringIndex != null && coveringIndex.covers(projection)) {
+            return coveringIndex.iterator(resultSet, projection);
+        }
         return new ProjectedDocumentIterator();
     }
 
@@ -72,7 +95,7 @@ class ProjectedDocumentIterable implements RecordIterable<Document> {
 
     @Override
     public int totalCount() {
-        return totalCount;
+        return findResult.getTotalCount();
     }
 
     @Override
@@ -114,15 +137,19 @@ class ProjectedDocumentIterable implements RecordIterable<Document> {
         private void nextMatch() {
             while (iterator.hasNext()) {
                 NitriteId next = iterator.next();
-                Document document = underlyingMap.get(next);
-                if (document != null) {
-                    Document projected = project(new Document(document));
-                    if (projected != null) {
-                        nextElement = projected;
+                if (idOnly) {
+                    if (underlyingMap.containsKey(next)) {
+                        nextElement = new Document();
+                        nextElement.put(DOC_ID, next.getIdValue());
                         return;
                     }
-                } else {
-                    nextElement = null;
+                    continue;
+                }
+
+                Document document = underlyingMap.get(next);
+                if (document != null) {
+                    nextElement = project(document);
+                    return;
                 }
             }
 
@@ -134,16 +161,52 @@ class ProjectedDocumentIterable implements RecordIterable<Document> {
             throw new InvalidOperationException(REMOVE_ON_DOCUMENT_ITERATOR_NOT_SUPPORTED);
         }
 
-        private Document project(Document original) {
-            if (projection == null) return original;
-            Document result = new Document(original);
+        private Document project(Document document) {
+            if (projection == null) return new Document(document);
 
-            for (KeyValuePair keyValuePair : original) {
-                if (!projection.containsKey(keyValuePair.getKey())) {
-                    result.remove(keyValuePair.getKey());
+            // only the projected fields are copied, in the order of the document
+            Document result = new Document();
+            for (KeyValuePair keyValuePair : document) {
+                if (projection.containsKey(keyValuePair.getKey())) {
+                    result.put(keyValuePair.getKey(), keyValuePair.getValue());
+                }
+            }
+
+            if (!embeddedFields.isEmpty()) {
+                Set<Document> embeddedDocuments
+                        = Collections.newSetFromMap(new IdentityHashMap<Document, Boolean>());
+                for (Map.Entry<String, String[]> field : embeddedFields.entrySet()) {
+                    if (!result.containsKey(field.getKey())) {
+                        projectEmbedded(document, field.getValue(), result, embeddedDocuments);
+                    }
                 }
             }
             return result;
         }
+
+        private void projectEmbedded(Document document, String[] keys, Document result,
+                                     Set<Document> embeddedDocuments) {
+            Object value = document;
+            for (String key : keys) {
+                if (!(value instanceof Document)) return;
+                value = ((Document) value).get(key);
+                if (value == null) return;
+            }
+
+            Document target = result;
+            for (int i = 0; i < keys.length - 1; i++) {
+                Object child = target.get(keys[i]);
+                if (child == null) {
+                    child = new Document();
+                    embeddedDocuments.add((Document) child);
+                    target.put(keys[i], child);
+                } else if (!embeddedDocuments.contains(child)) {
+                    // the whole parent is already projected
+                    return;
+                }
+                target = (Document) child;
+            }
+            target.put(keys[keys.length - 1], value);
+        }
     }
 }
@@ -0,0 +1,308 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.internals;
+
+import org.dizitart.no2.Document;
+import org.dizitart.no2.Filter;
+import org.dizitart.no2.Index;
+import org.dizitart.no2.IndexStatistics;
+import org.dizitart.no2.IndexType;
+import org.dizitart.no2.NitriteId;
+import org.dizitart.no2.filters.BaseFilter;
+import org.dizitart.no2.filters.DocumentPredicate;
+import org.dizitart.no2.filters.IndexAwareFilter;
+import org.dizitart.no2.filters.KeyRange;
+import org.dizitart.no2.store.NitriteMap;
+
+import java.util.*;
+
+import static org.dizitart.no2.Constants.DOC_ID;
+
+/**
+ * A cost based planner for conjunctive queries.
+ *
+ * Instead of evaluating every operand of an AND filter independently and
+ * intersecting the results, the planner picks the most selective operand
+ * which can be answered from an index as the driving access path, and
+ * verifies the remaining operands, compiled into {@link DocumentPredicate}s,
+ * against each candidate document. If no operand can use an index, all of
+ * them are evaluated in a single scan of the collection.
+ *
+ * Equality operands on a prefix of the fields of a compound index, along
+ * with a range operand on the next field, are answered together by a
+ * single range scan of that index.
+ *
+ * The selectivity of a range on a plain index is estimated from the
+ * histogram of its keys, see {@link IndexStatistics}.
+ *
+ * @author Anindya Chatterjee.
+ */
+class QueryPlanner {
+    private final IndexMetaService indexMetaService;
+    private final IndexedSearchService indexedSearchService;
+
+    QueryPlanner(IndexMetaService indexMetaService, IndexedSearchService indexedSearchService) {
+        this.indexMetaService = indexMetaService;
+        this.indexedSearchService = indexedSearchService;
+    }
+
+    Set<NitriteId> findAnd(Filter[] filters, NitriteMap<NitriteId, Document> documentMap) {
+        if (filters == null || filters.length == 0) {
+            return new LinkedHashSet<>();
+        }
+
+        // equalities on a prefix of the fields of a compound index, and
+        // a range on the next one, are served by a single index scan
+        CompoundScan compoundScan = planCompoundScan(filters);
+
+        IndexAwareFilter drivingFilter = null;
+        double drivingSelectivity = Double.MAX_VALUE;
+        List<DocumentPredicate> predicates = new ArrayList<>();
+        List<Filter> compositeFilters = new ArrayList<>();
+        List<DocumentPredicate> compositePredicates = new ArrayList<>();
+        List<Filter> setFilters = new ArrayList<>();
+
+        for (Filter filter : filters) {
+            if (compoundScan != null && compoundScan.covers(filter)) continue;
+
+            if (filter instanceof IndexAwareFilter
+                    && ((IndexAwareFilter) filter).canUseIndex()) {
+                IndexAwareFilter indexAwareFilter = (IndexAwareFilter) filter;
+                if (compoundScan != null) {
+                    predicates.add(indexAwareFilter);
+                    continue;
+                }
+
+                double selectivity = selectivity(indexAwareFilter, documentMap);
+
+                if (selectivity < drivingSelectivity) {
+                    if (drivingFilter != null) {
+                        predicates.add(drivingFilter);
+                    }
+                    drivingFilter = indexAwareFilter;
+                    drivingSelectivity = selectivity;
+                } else {
+                    predicates.add(indexAwareFilter);
+                }
+                continue;
+            }
+
+            DocumentPredicate predicate = compile(filter);
+            if (predicate == null) {
+                // filters which can only produce a result set, like
+                // text or custom filters
+                setFilters.add(filter);
+            } else if (filter instanceof DocumentPredicate) {
+                predicates.add(predicate);
+            } else {
+                compositeFilters.add(filter);
+                compositePredicates.add(predicate);
+            }
+        }
+
+        if (compoundScan == null && drivingFilter == null && setFilters.isEmpty()
+                && predicates.isEmpty() && !compositeFilters.isEmpty()) {
+            // a composite filter like OR may still find its own way
+            // through indexes, so let it produce the candidates
+            setFilters.add(compositeFilters.get(0));
+            compositePredicates.remove(0);
+        }
+        predicates.addAll(compositePredicates);
+
+        Set<NitriteId> candidates = null;
+        if (compoundScan != null) {
+            candidates = indexedSearchService.findCompound(compoundScan.indexName,
+                    compoundScan.prefix(), compoundScan.range());
+        } else if (drivingFilter != null) {
+            candidates = new LinkedHashSet<>(drivingFilter.applyOnIndex(documentMap));
+        }
+
+        for (Filter filter : setFilters) {
+            if (candidates != null && candidates.isEmpty()) {
+                return candidates;
+            }
+
+            Set<NitriteId> nitriteIds = filter.apply(documentMap);
+            if (nitriteIds != null) {
+                if (candidates == null) {
+                    candidates = new LinkedHashSet<>(nitriteIds);
+                } else {
+                    candidates.retainAll(nitriteIds);
+                }
+            }
+        }
+
+        if (candidates == null) {
+            if (predicates.isEmpty()) {
+                return new LinkedHashSet<>();
+            }
+            return scan(documentMap, predicates);
+        }
+
+        if (predicates.isEmpty() || candidates.isEmpty()) {
+            return candidates;
+        }
+
+        Set<NitriteId> resultSet = new LinkedHashSet<>();
+        for (NitriteId nitriteId : candidates) {
+            Document document = documentMap.get(nitriteId);
+            if (document != null && matchesAll(document, predicates)) {
+                resultSet.add(nitriteId);
+            }
+        }
+        return resultSet;
+    }
+
+    private CompoundScan planCompoundScan(Filter[] filters) {
+        Map<String, IndexAwareFilter> equalities = new HashMap<>();
+        Map<String, IndexAwareFilter> ranges = new HashMap<>();
+        for (Filter filter : filters) {
+            if (filter instanceof IndexAwareFilter) {
+                IndexAwareFilter indexAwareFilter = (IndexAwareFilter) filter;
+                String field = indexAwareFilter.getField();
+                KeyRange keyRange = indexAwareFilter.getKeyRange();
+                if (keyRange == null || DOC_ID.equals(field)) continue;
+
+                Map<String, IndexAwareFilter> target = keyRange.isSingleKey() ? equalities : ranges;
+                if (!target.containsKey(field)) {
+                    target.put(field, indexAwareFilter);
+                }
+            }
+        }
+        if (equalities.isEmpty()) return null;
+
+        CompoundScan bestScan = null;
+        for (Index index : indexMetaService.listIndexes()) {
+            if (!index.isCompound() || !indexMetaService.isConsistent(index.getField())
+                    || !impliesPartialFilter(filters, index)) continue;
+
+            String[] fields = index.getFields();
+            CompoundScan scan = new CompoundScan(index.getField());
+            int position = 0;
+            while (position < fields.length && equalities.containsKey(fields[position])) {
+                scan.equalities.add(equalities.get(fields[position++]));
+            }
+            if (scan.equalities.isEmpty()) continue;
+
+            if (position < fields.length) {
+                scan.rangeFilter = ranges.get(fields[position]);
+            }
+
+            // a scan over a single field is left to a single field index
+            if (scan.size() > 1 && (bestScan == null || scan.size() > bestScan.size())) {
+                bestScan = scan;
+            }
+        }
+        return bestScan;
+    }
+
+    private boolean impliesPartialFilter(Filter[] filters, Index index) {
+        if (!index.isPartial()) return true;
+        // the operands share the and filter, so any of them can tell
+        return filters[0] instanceof BaseFilter
+                && ((BaseFilter) filters[0]).implies(index.getPartialFilter());
+    }
+
+    private Set<NitriteId> scan(NitriteMap<NitriteId, Document> documentMap,
+                                List<DocumentPredicate> predicates) {
+        Set<NitriteId> resultSet = new LinkedHashSet<>();
+        for (Map.Entry<NitriteId, Document> entry : documentMap.entrySet()) {
+            if (matchesAll(entry.getValue(), predicates)) {
+                resultSet.add(entry.getKey());
+            }
+        }
+        return resultSet;
+    }
+
+    private boolean matchesAll(Document document, List<DocumentPredicate> predicates) {
+        for (DocumentPredicate predicate : predicates) {
+            if (!predicate.test(document)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private DocumentPredicate compile(Filter filter) {
+        if (filter instanceof BaseFilter) {
+            return ((BaseFilter) filter).compile();
+        }
+        return null;
+    }
+
+    private double selectivity(IndexAwareFilter filter, NitriteMap<NitriteId, Document> documentMap) {
+        String field = filter.getField();
+        KeyRange range = filter.getKeyRange();
+        long size = documentMap.sizeAsLong();
+
+        // the histogram of a plain index tells how many entries a
+        // key range holds, others are left to the filter to estimate
+        if (range != null && size > 0 && !DOC_ID.equals(field)) {
+            Index index = indexMetaService.findIndex(field);
+            if (index != null && (index.getIndexType() == IndexType.Unique
+                    || index.getIndexType() == IndexType.NonUnique)) {
+                IndexStatistics statistics = indexMetaService.getStatistics(field);
+                long entries = statistics == null ? -1 : statistics.estimateEntries(range);
+                if (entries >= 0) {
+                    return Math.min(1.0, (double) entries / size);
+                }
+            }
+        }
+        return filter.estimateSelectivity(keyCount(field, documentMap));
+    }
+
+    private long keyCount(String field, NitriteMap<NitriteId, Document> documentMap) {
+        if (DOC_ID.equals(field)) {
+            return documentMap.sizeAsLong();
+        }
+
+        NitriteMap<Comparable, ?> indexMap = indexMetaService.getIndexMap(field);
+        return indexMap == null ? 0 : indexMap.sizeAsLong();
+    }
+
+    private static class CompoundScan {
+        private final String indexName;
+        private final List<IndexAwareFilter> equalities = new ArrayList<>();
+        private IndexAwareFilter rangeFilter;
+
+        CompoundScan(String indexName) {
+            this.indexName = indexName;
+        }
+
+        int size() {
+            return equalities.size() + (rangeFilter == null ? 0 : 1);
+        }
+
+        boolean covers(Filter filter) {
+            return filter == rangeFilter || equalities.contains(filter);
+        }
+
+        List<Object> prefix() {
+            List<Object> prefix = new ArrayList<>(equalities.size());
+            for (IndexAwareFilter filter : equalities) {
+                prefix.add(filter.getKeyRange().getLower());
+            }
+            return prefix;
+        }
+
+        KeyRange range() {
+            return rangeFilter == null ? null : rangeFilter.getKeyRange();
+        }
+    }
+}
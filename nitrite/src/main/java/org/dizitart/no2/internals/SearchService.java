@@ -21,14 +21,20 @@ package org.dizitart.no2.internals;
 import org.dizitart.no2.*;
 import org.dizitart.no2.exceptions.FilterException;
 import org.dizitart.no2.exceptions.InvalidOperationException;
+import org.dizitart.no2.exceptions.ValidationException;
+import org.dizitart.no2.filters.BaseFilter;
+import org.dizitart.no2.filters.DocumentPredicate;
+import org.dizitart.no2.filters.IndexAwareFilter;
+import org.dizitart.no2.fulltext.RankedResult;
 import org.dizitart.no2.store.NitriteMap;
+import org.dizitart.no2.util.FieldPath;
+import org.dizitart.no2.util.NumberUtils;
 
 import java.text.Collator;
 import java.util.*;
 
 import static org.dizitart.no2.exceptions.ErrorCodes.VE_SEARCH_SERVICE_NULL_NITRITE_SERVICE;
 import static org.dizitart.no2.exceptions.ErrorMessage.*;
-import static org.dizitart.no2.util.DocumentUtils.getFieldValue;
 import static org.dizitart.no2.util.StringUtils.isNullOrEmpty;
 import static org.dizitart.no2.util.ValidationUtils.notNull;
 import static org.dizitart.no2.util.ValidationUtils.validateLimit;
@@ -48,6 +54,7 @@ class SearchService {
 
     Cursor find() {
         FindResult findResult = new FindResult();
+        findResult.setNitriteService(nitriteService);
         findResult.setHasMore(false);
         findResult.setTotalCount(underlyingMap.size());
         findResult.setIdSet(underlyingMap.keySet());
@@ -72,6 +79,7 @@ class SearchService {
         }
 
         FindResult findResult = new FindResult();
+        findResult.setNitriteService(nitriteService);
         findResult.setUnderlyingMap(underlyingMap);
         if (result != null) {
             findResult.setHasMore(false);
@@ -79,11 +87,43 @@ class SearchService {
             findResult.setIdSet(result);
         }
 
+        if (filter instanceof IndexAwareFilter) {
+            findResult.setCoveringIndex(
+                    nitriteService.findCoveringIndex((IndexAwareFilter) filter));
+        }
+
         return new DocumentCursor(findResult);
     }
 
+    long count(Filter filter) {
+        if (filter == null) {
+            return underlyingMap.sizeAsLong();
+        }
+        filter.setNitriteService(nitriteService);
+
+        try {
+            if (filter instanceof IndexAwareFilter) {
+                // the posting lists in the range of the index are
+                // counted, without collecting the ids they hold
+                CoveringIndex coveringIndex
+                        = nitriteService.findCoveringIndex((IndexAwareFilter) filter);
+                if (coveringIndex != null) {
+                    return coveringIndex.count();
+                }
+            }
+
+            Set<NitriteId> result = filter.apply(underlyingMap);
+            return result == null ? 0 : result.size();
+        } catch (FilterException fe) {
+            throw fe;
+        } catch (Throwable t) {
+            throw new FilterException(FILTERED_COUNT_OPERATION_FAILED, t);
+        }
+    }
+
     Cursor find(FindOptions findOptions) {
         FindResult findResult = new FindResult();
+        findResult.setNitriteService(nitriteService);
         findResult.setUnderlyingMap(underlyingMap);
         setUnfilteredResultSet(findOptions, findResult);
 
@@ -96,6 +136,7 @@ class SearchService {
         }
         filter.setNitriteService(nitriteService);
         FindResult findResult = new FindResult();
+        findResult.setNitriteService(nitriteService);
         findResult.setUnderlyingMap(underlyingMap);
         setFilteredResultSet(filter, findOptions, findResult);
 
@@ -103,6 +144,17 @@ class SearchService {
     }
 
     private void setUnfilteredResultSet(FindOptions findOptions, FindResult findResult) {
+        if (findOptions.isKeyset()) {
+            List<NitriteId> keysetIds;
+            if (isNullOrEmpty(findOptions.getField())) {
+                keysetIds = idsAfter(findOptions);
+            } else {
+                keysetIds = sortIds(underlyingMap.keySet(), findOptions, keysetLimit(findOptions));
+            }
+            setKeysetResultSet(keysetIds, underlyingMap.size(), findOptions, findResult);
+            return;
+        }
+
         validateLimit(findOptions, underlyingMap.sizeAsLong());
 
         Set<NitriteId> resultSet;
@@ -118,6 +170,14 @@ class SearchService {
     }
 
     private void setFilteredResultSet(Filter filter, FindOptions findOptions, FindResult findResult) {
+        DocumentPredicate predicate = scanPredicate(filter, findOptions);
+        if (predicate != null) {
+            setScannedResultSet(predicate, findOptions, findResult);
+            return;
+        }
+
+        if (setRankedResultSet(filter, findOptions, findResult)) return;
+
         Set<NitriteId> nitriteIdSet;
         try {
             nitriteIdSet = filter.apply(underlyingMap);
@@ -129,6 +189,17 @@ class SearchService {
 
         if (nitriteIdSet == null || nitriteIdSet.isEmpty()) return;
 
+        if (findOptions.isKeyset()) {
+            List<NitriteId> keysetIds;
+            if (isNullOrEmpty(findOptions.getField())) {
+                keysetIds = idsAfter(nitriteIdSet, findOptions);
+            } else {
+                keysetIds = sortIds(nitriteIdSet, findOptions, keysetLimit(findOptions));
+            }
+            setKeysetResultSet(keysetIds, nitriteIdSet.size(), findOptions, findResult);
+            return;
+        }
+
         validateLimit(findOptions, nitriteIdSet.size());
         Set<NitriteId> resultSet;
 
@@ -143,65 +214,392 @@ class SearchService {
         findResult.setTotalCount(nitriteIdSet.size());
     }
 
-    private Set<NitriteId> sortIdSet(Collection<NitriteId> nitriteIdSet, FindOptions findOptions) {
-        String sortField = findOptions.getField();
-        Collator collator = findOptions.getCollator();
+    private DocumentPredicate scanPredicate(Filter filter, FindOptions findOptions) {
+        // an unsorted page of a filter which can not use any index is
+        // filled by a lazy scan, instead of collecting all matches first
+        if (isNullOrEmpty(findOptions.getField())
+                && findOptions.getSize() > 0
+                && filter instanceof BaseFilter) {
+            BaseFilter baseFilter = (BaseFilter) filter;
+            if (!baseFilter.canUseIndex()) {
+                return baseFilter.compile();
+            }
+        }
+        return null;
+    }
 
-        NavigableMap<Object, List<NitriteId>> sortedMap;
-        if (collator != null) {
-            sortedMap = new TreeMap<>(collator);
+    private void setScannedResultSet(DocumentPredicate predicate, FindOptions findOptions,
+                                     FindResult findResult) {
+        int offset = findOptions.getOffset();
+        int size = findOptions.getSize();
+
+        // the page and the matches counted later on are both read from
+        // the collection as it is now, so later writes change neither
+        NitriteMap<NitriteId, Document> snapshot = underlyingMap.snapshot();
+
+        // a keyset page of the scan resumes from the key
+        NitriteId afterId = findOptions.isKeyset() ? findOptions.getAfterId() : null;
+        Iterator<NitriteId> matchingIds;
+        if (afterId == null) {
+            matchingIds = new MatchingIdIterator(snapshot, predicate);
         } else {
-            sortedMap = new TreeMap<>();
+            matchingIds = new MatchingIdIterator(
+                    snapshot.entries(afterId, false, null, false, false), predicate);
+        }
+
+        int matchCount = 0;
+        Set<NitriteId> resultSet = new LinkedHashSet<>();
+        boolean hasMore;
+        try {
+            while (matchCount < offset && matchingIds.hasNext()) {
+                matchingIds.next();
+                matchCount++;
+            }
+
+            while (resultSet.size() < size && matchingIds.hasNext()) {
+                resultSet.add(matchingIds.next());
+                matchCount++;
+            }
+            hasMore = matchingIds.hasNext();
+        } catch (FilterException fe) {
+            throw fe;
+        } catch (Throwable t) {
+            throw new FilterException(FILTERED_FIND_WITH_OPTIONS_OPERATION_FAILED, t);
+        }
+
+        if (afterId != null) {
+            validateLimit(findOptions, matchCount);
+
+            // the matches before the key were not seen either, so all
+            // matches are counted only when the total is asked for
+            findResult.setIdSet(resultSet);
+            findResult.setHasMore(hasMore);
+            findResult.setUncountedIds(new MatchingIdIterator(snapshot, predicate));
+            return;
+        }
+
+        if (matchCount == 0) return;
+
+        validateLimit(findOptions, matchCount);
+
+        findResult.setIdSet(resultSet);
+        findResult.setHasMore(hasMore);
+        findResult.setTotalCount(matchCount);
+        if (hasMore) {
+            findResult.setUncountedIds(matchingIds);
+        }
+    }
+
+    private boolean setRankedResultSet(Filter filter, FindOptions findOptions,
+                                       FindResult findResult) {
+        // only the best offset + size matches of a ranking filter are needed
+        int limit = sortLimit(findOptions);
+        if (!isNullOrEmpty(findOptions.getField()) || limit == 0
+                || findOptions.isKeyset() || !(filter instanceof BaseFilter)) {
+            return false;
+        }
+
+        RankedResult rankedResult;
+        try {
+            rankedResult = ((BaseFilter) filter).applyRanked(limit);
+        } catch (FilterException fe) {
+            throw fe;
+        } catch (Throwable t) {
+            throw new FilterException(FILTERED_FIND_WITH_OPTIONS_OPERATION_FAILED, t);
+        }
+
+        if (rankedResult == null) return false;
+        int totalCount = rankedResult.getTotalCount();
+        if (totalCount == 0) return true;
+
+        validateLimit(findOptions, totalCount);
+
+        findResult.setIdSet(limitIdSet(rankedResult.getTopIds(), findOptions));
+        findResult.setHasMore(totalCount > (findOptions.getSize() + findOptions.getOffset()));
+        findResult.setTotalCount(totalCount);
+        return true;
+    }
+
+    private Set<NitriteId> sortIdSet(Set<NitriteId> nitriteIdSet, FindOptions findOptions) {
+        return limitIdSet(sortIds(nitriteIdSet, findOptions, sortLimit(findOptions)), findOptions);
+    }
+
+    private List<NitriteId> sortIds(Set<NitriteId> nitriteIdSet, FindOptions findOptions, int limit) {
+        String sortField = findOptions.getField();
+        if (findOptions.getCollator() == null) {
+            List<NitriteId> sortedValues = findOptions.isKeyset()
+                    ? sortIdsAfterWithIndex(nitriteIdSet, findOptions, limit)
+                    : sortIdSetWithIndex(nitriteIdSet, findOptions);
+            if (sortedValues != null) {
+                return sortedValues;
+            }
         }
 
-        Set<NitriteId> nullValueIds = new HashSet<>();
+        Comparator<SortEntry> comparator = sortComparator(findOptions);
 
+        // a keyset page holds only the entries ordered after the key
+        SortEntry after = null;
+        if (findOptions.isKeyset() && findOptions.getAfterId() != null) {
+            after = new SortEntry(findOptions.getAfterValue(), -1, findOptions.getAfterId());
+        }
+
+        // for a page, only the top entries are kept in a bounded heap,
+        // whose head is the entry which would be evicted first
+        Collection<SortEntry> entries;
+        if (limit > 0) {
+            entries = new PriorityQueue<>(Math.min(limit, nitriteIdSet.size()) + 1,
+                    Collections.reverseOrder(comparator));
+        } else {
+            entries = new ArrayList<>();
+        }
+
+        FieldPath sortPath = FieldPath.of(sortField);
+        int sequence = 0;
         for (NitriteId id : nitriteIdSet) {
             Document document = underlyingMap.get(id);
             if (document == null) continue;
 
-            Object value = getFieldValue(document, sortField);
-
+            Object value = sortPath.getValue(document);
             if (value != null) {
                 if (value.getClass().isArray() || value instanceof Iterable) {
                     throw new InvalidOperationException(UNABLE_TO_SORT_ON_ARRAY);
                 }
-            } else {
-                nullValueIds.add(id);
-                continue;
             }
 
-            if (sortedMap.containsKey(value)) {
-                List<NitriteId> idList = sortedMap.get(value);
-                idList.add(id);
-                sortedMap.put(value, idList);
-            } else {
-                List<NitriteId> idList = new ArrayList<>();
-                idList.add(id);
-                sortedMap.put(value, idList);
+            SortEntry entry = new SortEntry(value, sequence++, id);
+            if (after != null && isNotAfter(comparator, entry, after)) continue;
+
+            entries.add(entry);
+            if (limit > 0 && entries.size() > limit) {
+                ((PriorityQueue<SortEntry>) entries).poll();
             }
         }
 
-        List<NitriteId> sortedValues;
-        if (findOptions.getSortOrder() == SortOrder.Ascending) {
-            if (findOptions.getNullOrder() == NullOrder.Default || findOptions.getNullOrder() == NullOrder.First) {
-                sortedValues = new ArrayList<>(nullValueIds);
-                sortedValues.addAll(flattenList(sortedMap.values()));
-            } else {
-                sortedValues = flattenList(sortedMap.values());
-                sortedValues.addAll(nullValueIds);
+        List<SortEntry> sortedEntries = new ArrayList<>(entries);
+        Collections.sort(sortedEntries, comparator);
+
+        List<NitriteId> sortedValues = new ArrayList<>(sortedEntries.size());
+        for (SortEntry entry : sortedEntries) {
+            sortedValues.add(entry.id);
+        }
+        return sortedValues;
+    }
+
+    private List<NitriteId> sortIdSetWithIndex(Set<NitriteId> nitriteIdSet, FindOptions findOptions) {
+        String sortField = findOptions.getField();
+        boolean ascending = findOptions.getSortOrder() == SortOrder.Ascending;
+
+        // null values are not indexed, so they are the candidates left out
+        // by the index walk. if they come first, the whole index is walked
+        // to find them, otherwise the walk stops once the page is full
+        int limit = nullsFirst(findOptions) ? 0 : sortLimit(findOptions);
+        List<NitriteId> indexedValues = nitriteService.findSortedWithIndex(sortField,
+                ascending, nitriteIdSet, null, null, limit);
+        if (indexedValues == null) return null;
+        if (limit > 0 && indexedValues.size() == limit) return indexedValues;
+
+        Set<NitriteId> indexedIds = new HashSet<>(indexedValues);
+        List<NitriteId> nullValues = new ArrayList<>();
+        for (NitriteId nitriteId : nitriteIdSet) {
+            if (!indexedIds.contains(nitriteId)) {
+                nullValues.add(nitriteId);
             }
+        }
+
+        if (nullsFirst(findOptions)) {
+            nullValues.addAll(indexedValues);
+            return nullValues;
         } else {
-            if (findOptions.getNullOrder() == NullOrder.Default || findOptions.getNullOrder() == NullOrder.Last) {
-                sortedValues = flattenList(sortedMap.descendingMap().values());
-                sortedValues.addAll(nullValueIds);
-            } else {
-                sortedValues = new ArrayList<>(nullValueIds);
-                sortedValues.addAll(flattenList(sortedMap.descendingMap().values()));
+            indexedValues.addAll(nullValues);
+            return indexedValues;
+        }
+    }
+
+    private List<NitriteId> sortIdsAfterWithIndex(Set<NitriteId> nitriteIdSet,
+                                                  FindOptions findOptions, int limit) {
+        String sortField = findOptions.getField();
+        boolean ascending = findOptions.getSortOrder() == SortOrder.Ascending;
+        boolean nullsFirst = nullsFirst(findOptions);
+        Comparable afterValue = (Comparable) findOptions.getAfterValue();
+        NitriteId afterId = findOptions.getAfterId();
+
+        // if the last page ended among the null values, or they are still
+        // ahead of the key, the whole index is walked to find them, otherwise
+        // the walk resumes from the key and stops once the page is full
+        boolean afterNull = afterId != null && afterValue == null;
+        if (afterNull || (nullsFirst && afterId == null)) {
+            List<NitriteId> indexedValues = nitriteService.findSortedWithIndex(sortField,
+                    ascending, nitriteIdSet, null, null, 0);
+            if (indexedValues == null) return null;
+
+            List<NitriteId> sortedValues = nullValueIds(nitriteIdSet, indexedValues, afterId);
+            if (nullsFirst) {
+                sortedValues.addAll(indexedValues);
+            }
+            return firstIds(sortedValues, limit);
+        }
+
+        List<NitriteId> sortedValues = nitriteService.findSortedWithIndex(sortField,
+                ascending, nitriteIdSet, afterValue, afterId, limit);
+        if (sortedValues == null) return null;
+        if (nullsFirst || (limit > 0 && sortedValues.size() == limit)) return sortedValues;
+
+        // the page continues with the null values, which are the
+        // candidates left out by a walk of the whole index
+        List<NitriteId> indexedValues = afterId == null ? sortedValues
+                : nitriteService.findSortedWithIndex(sortField, ascending, nitriteIdSet, null, null, 0);
+        sortedValues.addAll(nullValueIds(nitriteIdSet, indexedValues, null));
+        return firstIds(sortedValues, limit);
+    }
+
+    private List<NitriteId> nullValueIds(Set<NitriteId> nitriteIdSet,
+                                         List<NitriteId> indexedValues, NitriteId afterId) {
+        Set<NitriteId> indexedIds = new HashSet<>(indexedValues);
+        List<NitriteId> nullValues = new ArrayList<>();
+        for (NitriteId nitriteId : nitriteIdSet) {
+            if (!indexedIds.contains(nitriteId)
+                    && (afterId == null || nitriteId.compareTo(afterId) > 0)) {
+                nullValues.add(nitriteId);
+            }
+        }
+
+        // equal values of a keyset page are in the order of their ids
+        Collections.sort(nullValues);
+        return nullValues;
+    }
+
+    private List<NitriteId> idsAfter(FindOptions findOptions) {
+        // the ids of the collection are in order, so the page is read
+        // from the key on, without visiting the previous pages
+        int limit = keysetLimit(findOptions);
+        List<NitriteId> resultList = new ArrayList<>();
+        Iterator<Map.Entry<NitriteId, Document>> entries = underlyingMap.entries(
+                findOptions.getAfterId(), false, null, false, false);
+        while (entries.hasNext() && (limit == 0 || resultList.size() < limit)) {
+            resultList.add(entries.next().getKey());
+        }
+        return resultList;
+    }
+
+    private List<NitriteId> idsAfter(Set<NitriteId> nitriteIdSet, FindOptions findOptions) {
+        NitriteId afterId = findOptions.getAfterId();
+        int limit = keysetLimit(findOptions);
+
+        // only the smallest ids after the key are kept in a bounded heap
+        Collection<NitriteId> ids;
+        if (limit > 0) {
+            ids = new PriorityQueue<>(limit + 1, Collections.<NitriteId>reverseOrder());
+        } else {
+            ids = new ArrayList<>();
+        }
+
+        for (NitriteId nitriteId : nitriteIdSet) {
+            if (afterId != null && nitriteId.compareTo(afterId) <= 0) continue;
+            ids.add(nitriteId);
+            if (limit > 0 && ids.size() > limit) {
+                ((PriorityQueue<NitriteId>) ids).poll();
+            }
+        }
+
+        List<NitriteId> resultList = new ArrayList<>(ids);
+        Collections.sort(resultList);
+        return resultList;
+    }
+
+    private void setKeysetResultSet(List<NitriteId> keysetIds, int totalCount,
+                                    FindOptions findOptions, FindResult findResult) {
+        validateLimit(findOptions, keysetIds.size());
+
+        // the ids were fetched up to one more than the page needs
+        int limit = sortLimit(findOptions);
+        findResult.setIdSet(limitIdSet(keysetIds, findOptions));
+        findResult.setHasMore(limit > 0 && keysetIds.size() > limit);
+        findResult.setTotalCount(totalCount);
+    }
+
+    private Comparator<SortEntry> sortComparator(FindOptions findOptions) {
+        final Collator collator = findOptions.getCollator();
+        final boolean ascending = findOptions.getSortOrder() == SortOrder.Ascending;
+        final boolean nullsFirst = nullsFirst(findOptions);
+        final boolean keyset = findOptions.isKeyset();
+
+        return new Comparator<SortEntry>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public int compare(SortEntry first, SortEntry second) {
+                int result;
+                if (first.value == null || second.value == null) {
+                    if (first.value != null) {
+                        result = nullsFirst ? 1 : -1;
+                    } else if (second.value != null) {
+                        result = nullsFirst ? -1 : 1;
+                    } else {
+                        result = 0;
+                    }
+                } else {
+                    if (collator != null) {
+                        result = collator.compare(first.value, second.value);
+                    } else if (first.value instanceof Number && second.value instanceof Number) {
+                        result = NumberUtils.compare((Number) first.value, (Number) second.value);
+                    } else {
+                        result = ((Comparable) first.value).compareTo(second.value);
+                    }
+                    if (!ascending) {
+                        result = -result;
+                    }
+                }
+
+                // equal values keep the order in which they were found, or
+                // for a keyset page, the order of the ids the key resumes from
+                if (result == 0) {
+                    if (keyset) {
+                        result = first.id.compareTo(second.id);
+                    } else {
+                        result = first.sequence < second.sequence ? -1
+                                : (first.sequence == second.sequence ? 0 : 1);
+                    }
+                }
+                return result;
             }
+        };
+    }
+
+    private boolean isNotAfter(Comparator<SortEntry> comparator, SortEntry entry, SortEntry after) {
+        try {
+            return comparator.compare(entry, after) <= 0;
+        } catch (ClassCastException cce) {
+            throw new ValidationException(KEYSET_VALUE_INCOMPATIBLE, cce);
+        }
+    }
+
+    private boolean nullsFirst(FindOptions findOptions) {
+        if (findOptions.getSortOrder() == SortOrder.Ascending) {
+            return findOptions.getNullOrder() != NullOrder.Last;
+        } else {
+            return findOptions.getNullOrder() == NullOrder.First;
         }
+    }
+
+    private int sortLimit(FindOptions findOptions) {
+        // only the first offset + size ids are needed for a page
+        if (findOptions.getSize() > 0) {
+            int limit = findOptions.getOffset() + findOptions.getSize();
+            return limit > 0 ? limit : 0;
+        }
+        return 0;
+    }
 
-        return limitIdSet(sortedValues, findOptions);
+    private int keysetLimit(FindOptions findOptions) {
+        // one more id than the page tells if there is a next page
+        int limit = sortLimit(findOptions);
+        return limit > 0 ? limit + 1 : 0;
+    }
+
+    private List<NitriteId> firstIds(List<NitriteId> nitriteIds, int limit) {
+        if (limit > 0 && nitriteIds.size() > limit) {
+            return new ArrayList<>(nitriteIds.subList(0, limit));
+        }
+        return nitriteIds;
     }
 
     private Set<NitriteId> limitIdSet(Collection<NitriteId> nitriteIdSet, FindOptions findOptions) {
@@ -221,11 +619,15 @@ class SearchService {
         return resultSet;
     }
 
-    private <T> List<T> flattenList(Collection<List<T>> collection) {
-        List<T> finalList = new ArrayList<>();
-        for (List<T> list : collection) {
-            finalList.addAll(list);
+    private static class SortEntry {
+        private final Object value;
+        private final int sequence;
+        private final NitriteId id;
+
+        SortEntry(Object value, int sequence, NitriteId id) {
+            this.value = value;
+            this.sequence = sequence;
+            this.id = id;
         }
-        return finalList;
     }
 }
@@ -0,0 +1,229 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.internals;
+
+import org.dizitart.no2.NitriteId;
+import org.dizitart.no2.store.NitriteMap;
+import org.dizitart.no2.store.PostingList;
+
+import java.util.*;
+
+/**
+ * Ranks the documents matching the words of a full-text search by their
+ * BM25 score, and keeps the best of them. The posting lists of the words
+ * are visited together in ascending order of ids, and with MaxScore
+ * pruning a document is only scored if its words can still make it one
+ * of the best. Once enough documents are found, the ids which only the
+ * most common words have are not visited at all.
+ *
+ * @author Anindya Chatterjee.
+ * @since 3.4.3
+ */
+class TextRanker {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final NitriteMap<CompoundKey, Integer> frequencyMap;
+    private final NitriteMap<Long, Integer> lengthMap;
+    private final long documentCount;
+    private final double averageLength;
+
+    TextRanker(NitriteMap<CompoundKey, Integer> frequencyMap,
+               NitriteMap<Long, Integer> lengthMap,
+               TextStatistics statistics) {
+        this.frequencyMap = frequencyMap;
+        this.lengthMap = lengthMap;
+        this.documentCount = statistics.getDocumentCount();
+        this.averageLength = statistics.getAverageLength();
+    }
+
+    List<NitriteId> rank(Map<String, PostingList> postings, int limit) {
+        // the words are ordered by their maximum score, and a running
+        // sum of those tells what a document can score at most from
+        // the words up to a position
+        List<Term> terms = new ArrayList<>();
+        long matchCount = 0;
+        for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+            if (entry.getValue().isEmpty()) continue;
+            terms.add(new Term(entry.getKey(), entry.getValue()));
+            matchCount += entry.getValue().size();
+        }
+        Collections.sort(terms);
+
+        int termCount = terms.size();
+        double[] maxScores = new double[termCount];
+        double sum = 0;
+        for (int i = 0; i < termCount; i++) {
+            sum += terms.get(i).maxScore;
+            maxScores[i] = sum;
+        }
+
+        PriorityQueue<ScoredId> best = new PriorityQueue<>(
+                (int) Math.min(limit, matchCount) + 1);
+        double threshold = 0;
+        // the terms before this position are not essential, a document
+        // only having them can not score more than the threshold
+        int essential = 0;
+
+        while (true) {
+            long candidateId = Long.MAX_VALUE;
+            for (int i = essential; i < termCount; i++) {
+                Term term = terms.get(i);
+                if (term.hasCurrent() && term.current() < candidateId) {
+                    candidateId = term.current();
+                }
+            }
+            if (candidateId == Long.MAX_VALUE) break;
+
+            Candidate candidate = new Candidate(candidateId);
+            double score = 0;
+            for (int i = essential; i < termCount; i++) {
+                Term term = terms.get(i);
+                if (term.hasCurrent() && term.current() == candidateId) {
+                    score += term.score(candidate);
+                    term.next();
+                }
+            }
+
+            boolean pruned = false;
+            for (int i = essential - 1; i >= 0; i--) {
+                if (score + maxScores[i] <= threshold) {
+                    pruned = true;
+                    break;
+                }
+
+                Term term = terms.get(i);
+                term.seek(candidateId);
+                if (term.hasCurrent() && term.current() == candidateId) {
+                    score += term.score(candidate);
+                }
+            }
+            if (pruned) continue;
+
+            if (best.size() < limit) {
+                best.add(new ScoredId(candidateId, score));
+            } else if (score > threshold) {
+                best.poll();
+                best.add(new ScoredId(candidateId, score));
+            } else {
+                continue;
+            }
+
+            if (best.size() == limit) {
+                threshold = best.peek().score;
+                while (essential < termCount && maxScores[essential] <= threshold) {
+                    essential++;
+                }
+            }
+        }
+
+        List<ScoredId> scoredIds = new ArrayList<>(best);
+        Collections.sort(scoredIds, Collections.reverseOrder());
+        List<NitriteId> rankedIds = new ArrayList<>(scoredIds.size());
+        for (ScoredId scoredId : scoredIds) {
+            rankedIds.add(NitriteId.createId(scoredId.idValue));
+        }
+        return rankedIds;
+    }
+
+    private double idf(int documentFrequency) {
+        double total = Math.max(documentCount, documentFrequency);
+        return Math.log(1 + (total - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    // a document being scored, whose length is read only once it is needed
+    private class Candidate {
+        private final long idValue;
+        private double lengthNorm = -1;
+
+        Candidate(long idValue) {
+            this.idValue = idValue;
+        }
+
+        double lengthNorm() {
+            if (lengthNorm < 0) {
+                Integer length = lengthMap.get(idValue);
+                lengthNorm = averageLength == 0 || length == null ? 1
+                        : 1 - B + B * length / averageLength;
+            }
+            return lengthNorm;
+        }
+    }
+
+    private class Term implements Comparable<Term> {
+        private final String word;
+        private final PostingList postingList;
+        private final double idf;
+        private final double maxScore;
+        private int position;
+
+        Term(String word, PostingList postingList) {
+            this.word = word;
+            this.postingList = postingList;
+            this.idf = idf(postingList.size());
+            // the score of a word approaches this as its frequency grows
+            this.maxScore = idf * (K1 + 1);
+        }
+
+        boolean hasCurrent() {
+            return position < postingList.size();
+        }
+
+        long current() {
+            return postingList.idAt(position);
+        }
+
+        void next() {
+            position++;
+        }
+
+        void seek(long idValue) {
+            position = postingList.seek(idValue, position);
+        }
+
+        double score(Candidate candidate) {
+            Integer frequency = frequencyMap.get(new CompoundKey(word, candidate.idValue));
+            int tf = frequency == null ? 1 : frequency;
+            return idf * tf * (K1 + 1) / (tf + K1 * candidate.lengthNorm());
+        }
+
+        @Override
+        public int compareTo(Term other) {
+            return Double.compare(maxScore, other.maxScore);
+        }
+    }
+
+    // a lower score ranks lower, and of equal scores the later id
+    private static class ScoredId implements Comparable<ScoredId> {
+        private final long idValue;
+        private final double score;
+
+        ScoredId(long idValue, double score) {
+            this.idValue = idValue;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(ScoredId other) {
+            int comparison = Double.compare(score, other.score);
+            if (comparison != 0) return comparison;
+            return Long.compare(other.idValue, idValue);
+        }
+    }
+}
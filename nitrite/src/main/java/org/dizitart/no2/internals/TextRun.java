@@ -0,0 +1,77 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.internals;
+
+import org.dizitart.no2.NitriteId;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The words of a run of documents, accumulated in memory while a full-text
+ * index is being built. The posting list of every word is then written
+ * to the index once for the whole run, instead of once per document.
+ *
+ * @author Anindya Chatterjee.
+ * @since 3.4.3
+ */
+class TextRun {
+    private final Map<String, List<NitriteId>> postings = new HashMap<>();
+    private final Map<CompoundKey, Integer> frequencies = new HashMap<>();
+    private final Map<NitriteId, Integer> lengths = new HashMap<>();
+    private long postingCount;
+
+    void add(NitriteId nitriteId, Map<String, Integer> termFrequencies) {
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : termFrequencies.entrySet()) {
+            String word = entry.getKey();
+            List<NitriteId> nitriteIds = postings.get(word);
+            if (nitriteIds == null) {
+                nitriteIds = new ArrayList<>();
+                postings.put(word, nitriteIds);
+            }
+            nitriteIds.add(nitriteId);
+            postingCount++;
+
+            if (entry.getValue() > 1) {
+                frequencies.put(new CompoundKey(word, nitriteId.getIdValue()), entry.getValue());
+            }
+            length += entry.getValue();
+        }
+        lengths.put(nitriteId, length);
+    }
+
+    long getPostingCount() {
+        return postingCount;
+    }
+
+    Map<String, List<NitriteId>> getPostings() {
+        return postings;
+    }
+
+    Map<CompoundKey, Integer> getFrequencies() {
+        return frequencies;
+    }
+
+    Map<NitriteId, Integer> getLengths() {
+        return lengths;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.internals;
+
+import org.dizitart.no2.store.NitriteMap;
+
+/**
+ * Keeps the number of documents in a full-text index and their total
+ * length in words. Both are collected by a scan of the document lengths
+ * once, and then maintained on every write to the index.
+ *
+ * @author Anindya Chatterjee.
+ * @since 3.4.3
+ */
+class TextStatistics {
+    private long documentCount;
+    private long totalLength;
+
+    TextStatistics(NitriteMap<Long, Integer> lengthMap) {
+        for (Integer length : lengthMap.values()) {
+            documentCount++;
+            totalLength += length;
+        }
+    }
+
+    synchronized void update(int oldLength, int newLength) {
+        if (oldLength == 0 && newLength > 0) {
+            documentCount++;
+        } else if (oldLength > 0 && newLength == 0) {
+            documentCount--;
+        }
+        totalLength += newLength - oldLength;
+    }
+
+    synchronized long getDocumentCount() {
+        return documentCount;
+    }
+
+    synchronized double getAverageLength() {
+        return documentCount == 0 ? 0 : (double) totalLength / documentCount;
+    }
+}
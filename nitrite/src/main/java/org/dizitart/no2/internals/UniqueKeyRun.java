@@ -0,0 +1,64 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.internals;
+
+import org.dizitart.no2.NitriteId;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * The in-memory run of a unique index which is being built. Once the
+ * build has scanned the collection, the run holds the ids of every key
+ * found, until the index itself is written. A write made during the
+ * build checks its keys against the run, instead of scanning the
+ * collection again.
+ *
+ * @author Anindya Chatterjee.
+ * @since 3.4.3
+ */
+class UniqueKeyRun {
+    private final CountDownLatch scanned = new CountDownLatch(1);
+    private volatile Map<Comparable, List<NitriteId>> postings;
+
+    void scanned(Map<Comparable, List<NitriteId>> postings) {
+        this.postings = postings;
+        scanned.countDown();
+    }
+
+    void failed() {
+        scanned.countDown();
+    }
+
+    /**
+     * Waits until the build has scanned the collection.
+     *
+     * @return the ids of the keys found, or `null` if the build has failed.
+     */
+    Map<Comparable, List<NitriteId>> awaitPostings() {
+        try {
+            scanned.await();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        return postings;
+    }
+}
@@ -64,6 +64,13 @@ class DefaultObjectRepository<T> implements ObjectRepository<T> {
         collection.createIndex(field, indexOptions);
     }
 
+    @Override
+    public void createIndex(String[] fields, IndexOptions indexOptions) {
+        validateCollection();
+        notNull(fields, errorMessage("fields can not be null", VE_OBJ_CREATE_INDEX_NULL_FIELDS));
+        collection.createIndex(fields, indexOptions);
+    }
+
     @Override
     public void rebuildIndex(String field, boolean async) {
         validateCollection();
@@ -82,6 +89,12 @@ class DefaultObjectRepository<T> implements ObjectRepository<T> {
         return collection.hasIndex(field);
     }
 
+    @Override
+    public IndexStatistics getIndexStatistics(String field) {
+        validateCollection();
+        return collection.getIndexStatistics(field);
+    }
+
     @Override
     public boolean isIndexing(String field) {
         validateCollection();
@@ -190,6 +203,12 @@ class DefaultObjectRepository<T> implements ObjectRepository<T> {
                 collection.find(prepare(filter)), type);
     }
 
+    @Override
+    public long count(ObjectFilter filter) {
+        validateCollection();
+        return collection.count(prepare(filter));
+    }
+
     @Override
     public Cursor<T> find(FindOptions findOptions) {
         validateCollection();
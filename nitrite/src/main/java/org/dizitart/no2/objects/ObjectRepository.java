@@ -265,6 +265,21 @@ public interface ObjectRepository<T> extends PersistentCollection<T> {
      */
     Cursor<T> find(ObjectFilter filter);
 
+    /**
+     * Counts the objects selected by a filter.
+     *
+     * [icon="{@docRoot}/note.png"]
+     * NOTE: If the filter operates on a single indexed field, the objects
+     * are counted from the index alone, without fetching any of them.
+     *
+     * @param filter the filter to apply to select objects from collection.
+     * @return the number of selected objects, or the size of the
+     * collection if `filter` is `null`.
+     * @see org.dizitart.no2.objects.filters.ObjectFilters
+     * @since 3.4.3
+     */
+    long count(ObjectFilter filter);
+
     /**
      * Returns a customized cursor to all objects in the collection.
      *
@@ -223,6 +223,32 @@ public class ObjectFilters {
         return new TextObjectFilter(field, value);
     }
 
+    /**
+     * Creates a fuzzy text filter which matches the objects having a word,
+     * in a field indexed with a full-text index, within `maxEdits` edits
+     * of the `term`. An edit is an insertion, a deletion or a substitution
+     * of a single character. The objects with the closest words come first.
+     *
+     * [[app-listing]]
+     * [source,java]
+     * .Example
+     * --
+     * // matches all objects where 'address' field has a word like 'roads',
+     * // 'road' or 'toads'.
+     * repository.find(fuzzy("address", "roads", 1));
+     * --
+     *
+     * @param field    the value
+     * @param term     the single word to search
+     * @param maxEdits the maximum number of edits, between 0 and 2
+     * @return the fuzzy text filter
+     * @see org.dizitart.no2.fulltext.TextIndexingService
+     * @since 3.4.3
+     */
+    public static ObjectFilter fuzzy(String field, String term, int maxEdits) {
+        return new FuzzyObjectFilter(field, term, maxEdits);
+    }
+
     /**
      * Creates a string filter which provides regular expression capabilities
      * for pattern matching strings in objects.
@@ -19,7 +19,9 @@
 package org.dizitart.no2.store;
 
 import org.dizitart.no2.meta.Attributes;
+import org.h2.mvstore.Cursor;
 import org.h2.mvstore.MVMap;
+import org.h2.mvstore.type.DataType;
 
 import java.util.*;
 
@@ -110,6 +112,50 @@ class NitriteMVMap<Key, Value> implements NitriteMap<Key, Value> {
         return mvMap.entrySet();
     }
 
+    @Override
+    public Key firstKey() {
+        return mvMap.firstKey();
+    }
+
+    @Override
+    public Key lastKey() {
+        return mvMap.lastKey();
+    }
+
+    @Override
+    public Key getKey(long index) {
+        return mvMap.getKey(index);
+    }
+
+    @Override
+    public Iterator<Map.Entry<Key, Value>> entryIterator(Key from) {
+        final Cursor<Key, Value> cursor = mvMap.cursor(from);
+        return new Iterator<Map.Entry<Key, Value>>() {
+            @Override
+            public boolean hasNext() {
+                return cursor.hasNext();
+            }
+
+            @Override
+            public Map.Entry<Key, Value> next() {
+                Key key = cursor.next();
+                return new AbstractMap.SimpleImmutableEntry<>(key, cursor.getValue());
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("remove");
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Map.Entry<Key, Value>> entries(Key from, boolean fromInclusive,
+                                                   Key to, boolean toInclusive,
+                                                   boolean descending) {
+        return new RangeIterator(from, fromInclusive, to, toInclusive, descending);
+    }
+
     @Override
     public Key higherKey(Key key) {
         return mvMap.higherKey(key);
@@ -157,6 +203,11 @@ class NitriteMVMap<Key, Value> implements NitriteMap<Key, Value> {
         }
     }
 
+    @Override
+    public NitriteMap<Key, Value> snapshot() {
+        return new NitriteMVMap<>(mvMap.openVersion(mvMap.getVersion()), nitriteStore);
+    }
+
     MVMap<Key, Value> getUnderlyingMVMap() {
         return mvMap;
     }
@@ -175,4 +226,95 @@ class NitriteMVMap<Key, Value> implements NitriteMap<Key, Value> {
             attributes.setLastModifiedTime(System.currentTimeMillis());
         }
     }
+
+    /**
+     * Iterates a key range of the underlying map. An ascending range is
+     * read on a single cursor of the map, and a descending range steps
+     * from key to key with {@link MVMap#lowerKey(Object)}, as a cursor of
+     * the map only moves forward. The bounds are checked with the key type
+     * of the map, the same way the map orders its keys.
+     */
+    private class RangeIterator implements Iterator<Map.Entry<Key, Value>> {
+        private final Cursor<Key, Value> cursor;
+        private final DataType keyType;
+        private final Key from;
+        private final boolean fromInclusive;
+        private final Key to;
+        private final boolean toInclusive;
+        private final boolean descending;
+        private Key lastKey;
+        private Map.Entry<Key, Value> nextEntry;
+
+        RangeIterator(Key from, boolean fromInclusive,
+                      Key to, boolean toInclusive, boolean descending) {
+            this.cursor = descending ? null : mvMap.cursor(from);
+            this.keyType = mvMap.getKeyType();
+            this.from = from;
+            this.fromInclusive = fromInclusive;
+            this.to = to;
+            this.toInclusive = toInclusive;
+            this.descending = descending;
+            this.nextEntry = descending ? fetchDescending() : fetchAscending();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextEntry != null;
+        }
+
+        @Override
+        public Map.Entry<Key, Value> next() {
+            if (nextEntry == null) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<Key, Value> entry = nextEntry;
+            nextEntry = descending ? fetchDescending() : fetchAscending();
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove");
+        }
+
+        private Map.Entry<Key, Value> fetchAscending() {
+            while (cursor.hasNext()) {
+                Key key = cursor.next();
+                if (!fromInclusive && from != null && keyType.compare(key, from) == 0) {
+                    continue;
+                }
+
+                if (isPastEnd(key, 1)) return null;
+                return new AbstractMap.SimpleImmutableEntry<>(key, cursor.getValue());
+            }
+            return null;
+        }
+
+        private Map.Entry<Key, Value> fetchDescending() {
+            while (true) {
+                Key key;
+                if (lastKey != null) {
+                    key = mvMap.lowerKey(lastKey);
+                } else if (from == null) {
+                    key = mvMap.lastKey();
+                } else {
+                    key = fromInclusive ? mvMap.floorKey(from) : mvMap.lowerKey(from);
+                }
+                if (key == null || isPastEnd(key, -1)) return null;
+
+                lastKey = key;
+                Value value = mvMap.get(key);
+                // a key removed since it was found is skipped
+                if (value != null) {
+                    return new AbstractMap.SimpleImmutableEntry<>(key, value);
+                }
+            }
+        }
+
+        private boolean isPastEnd(Key key, int direction) {
+            if (to == null) return false;
+            int position = Integer.signum(keyType.compare(key, to)) * direction;
+            return position > 0 || (position == 0 && !toInclusive);
+        }
+    }
 }
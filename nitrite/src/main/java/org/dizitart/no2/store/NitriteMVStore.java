@@ -90,6 +90,13 @@ public final class NitriteMVStore implements NitriteStore {
         return new NitriteMVMap<>(mvMap, this);
     }
 
+    @Override
+    public NitriteMap<Comparable, PostingList> openIndexMap(String mapName) {
+        MVMap<Comparable, PostingList> mvMap = mvStore.openMap(mapName,
+                new MVMap.Builder<Comparable, PostingList>().valueType(new PostingListDataType()));
+        return new NitriteMVMap<>(mvMap, this);
+    }
+
     @Override
     public <Key, Value> void removeMap(NitriteMap<Key, Value> map) {
         NitriteMVMap<Key, Value> nitriteMVMap = (NitriteMVMap<Key, Value>) map;
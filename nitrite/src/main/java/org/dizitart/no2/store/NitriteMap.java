@@ -21,6 +21,7 @@ package org.dizitart.no2.store;
 import org.dizitart.no2.meta.MetadataAware;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -135,6 +136,59 @@ public interface NitriteMap<Key, Value> extends MetadataAware {
      */
     Set<Map.Entry<Key, Value>> entrySet();
 
+    /**
+     * Get the first key, or null if the map is empty.
+     *
+     * @return the first key.
+     */
+    Key firstKey();
+
+    /**
+     * Get the last key, or null if the map is empty.
+     *
+     * @return the last key.
+     */
+    Key lastKey();
+
+    /**
+     * Get the key at the given index, in ascending order of keys.
+     *
+     * @param index the index
+     * @return the key, or `null` if the index is out of range.
+     */
+    Key getKey(long index);
+
+    /**
+     * Gets an iterator over the mappings of this map, in ascending
+     * order of keys, starting from the specified key.
+     *
+     * @param from the first key to return, or `null` to start from
+     *             the first key of the map.
+     * @return an iterator over the mappings starting from `from`.
+     */
+    Iterator<Map.Entry<Key, Value>> entryIterator(Key from);
+
+    /**
+     * Gets an iterator over the mappings of this map whose keys lie
+     * between two keys, in ascending or descending order of keys. The
+     * mappings are read from the map as the iterator advances, so a range
+     * can be scanned without looking up each key separately.
+     *
+     * @param from          the key to start from, in the order of iteration,
+     *                      or `null` to start from the first (or the last if
+     *                      `descending`) key of the map.
+     * @param fromInclusive if `true`, a mapping of `from` is returned.
+     * @param to            the key to stop at, in the order of iteration,
+     *                      or `null` to continue to the end of the map.
+     * @param toInclusive   if `true`, a mapping of `to` is returned.
+     * @param descending    if `true`, iterates in descending order of keys.
+     * @return an iterator over the mappings in the range.
+     * @since 3.4.3
+     */
+    Iterator<Map.Entry<Key, Value>> entries(Key from, boolean fromInclusive,
+                                            Key to, boolean toInclusive,
+                                            boolean descending);
+
     /**
      * Get the smallest key that is larger than the given key, or null if no
      * such key exists.
@@ -182,4 +236,13 @@ public interface NitriteMap<Key, Value> extends MetadataAware {
      * @return list of all keys.
      * */
     List<Key> keyList();
+
+    /**
+     * Gets a read-only view of this map as it is now. Writes to this
+     * map after the call are not seen through the view.
+     *
+     * @return a read-only view of the current version of the map.
+     * @since 3.4.3
+     */
+    NitriteMap<Key, Value> snapshot();
 }
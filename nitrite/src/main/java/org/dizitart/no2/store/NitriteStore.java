@@ -93,6 +93,15 @@ public interface NitriteStore {
      */
     <Key, Value> NitriteMap<Key, Value> openMap(String mapName);
 
+    /**
+     * Opens an index map, whose values are {@link PostingList}s
+     * stored in a compact, delta-encoded form.
+     *
+     * @param mapName the map name
+     * @return the index map.
+     */
+    NitriteMap<Comparable, PostingList> openIndexMap(String mapName);
+
     /**
      * Removes a map from the store.
      *
@@ -0,0 +1,256 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.dizitart.no2.store;
+
+import org.dizitart.no2.NitriteId;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable, sorted set of {@link NitriteId}s associated with
+ * an index key. Ids are kept as a sorted array of primitive longs,
+ * which is stored in a delta-encoded form in an index map.
+ *
+ * Every modification returns a new posting list, so that a list
+ * already stored in a map is never changed in place.
+ *
+ * @author Anindya Chatterjee.
+ * @since 3.4.3
+ */
+public final class PostingList extends AbstractSet<NitriteId> implements Serializable {
+    private static final long serialVersionUID = 1560321487L;
+    private static final PostingList EMPTY = new PostingList(new long[0]);
+
+    private final long[] ids;
+
+    PostingList(long[] ids) {
+        this.ids = ids;
+    }
+
+    /**
+     * Gets an empty posting list.
+     *
+     * @return the empty posting list.
+     */
+    public static PostingList empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates a posting list containing the given ids.
+     *
+     * @param nitriteIds the ids
+     * @return the posting list.
+     */
+    public static PostingList of(Collection<NitriteId> nitriteIds) {
+        if (nitriteIds instanceof PostingList) {
+            return (PostingList) nitriteIds;
+        }
+
+        long[] values = new long[nitriteIds.size()];
+        int count = 0;
+        for (NitriteId nitriteId : nitriteIds) {
+            values[count++] = nitriteId.getIdValue();
+        }
+        Arrays.sort(values, 0, count);
+        return new PostingList(distinct(values, count));
+    }
+
+    /**
+     * Returns a posting list with the id added.
+     *
+     * @param nitriteId the id
+     * @return the posting list containing the id.
+     */
+    public PostingList with(NitriteId nitriteId) {
+        long value = nitriteId.getIdValue();
+        int index = Arrays.binarySearch(ids, value);
+        if (index >= 0) return this;
+
+        int insertAt = -(index + 1);
+        long[] values = new long[ids.length + 1];
+        System.arraycopy(ids, 0, values, 0, insertAt);
+        values[insertAt] = value;
+        System.arraycopy(ids, insertAt, values, insertAt + 1, ids.length - insertAt);
+        return new PostingList(values);
+    }
+
+    /**
+     * Returns a posting list with the id removed.
+     *
+     * @param nitriteId the id
+     * @return the posting list without the id.
+     */
+    public PostingList without(NitriteId nitriteId) {
+        int index = Arrays.binarySearch(ids, nitriteId.getIdValue());
+        if (index < 0) return this;
+
+        long[] values = new long[ids.length - 1];
+        System.arraycopy(ids, 0, values, 0, index);
+        System.arraycopy(ids, index + 1, values, index, ids.length - index - 1);
+        return new PostingList(values);
+    }
+
+    /**
+     * Merges two posting lists into a list of the ids present in any of them.
+     *
+     * @param other the other posting list
+     * @return the union of the posting lists.
+     */
+    public PostingList union(PostingList other) {
+        if (other.ids.length == 0) return this;
+        if (ids.length == 0) return other;
+
+        long[] values = new long[ids.length + other.ids.length];
+        int i = 0, j = 0, count = 0;
+        while (i < ids.length && j < other.ids.length) {
+            if (ids[i] < other.ids[j]) {
+                values[count++] = ids[i++];
+            } else if (ids[i] > other.ids[j]) {
+                values[count++] = other.ids[j++];
+            } else {
+                values[count++] = ids[i++];
+                j++;
+            }
+        }
+        while (i < ids.length) values[count++] = ids[i++];
+        while (j < other.ids.length) values[count++] = other.ids[j++];
+
+        return new PostingList(Arrays.copyOf(values, count));
+    }
+
+    /**
+     * Merges two posting lists into a list of the ids present in both of them.
+     *
+     * @param other the other posting list
+     * @return the intersection of the posting lists.
+     */
+    public PostingList intersect(PostingList other) {
+        long[] values = new long[Math.min(ids.length, other.ids.length)];
+        int i = 0, j = 0, count = 0;
+        while (i < ids.length && j < other.ids.length) {
+            if (ids[i] < other.ids[j]) {
+                i++;
+            } else if (ids[i] > other.ids[j]) {
+                j++;
+            } else {
+                values[count++] = ids[i++];
+                j++;
+            }
+        }
+        return new PostingList(Arrays.copyOf(values, count));
+    }
+
+    /**
+     * Gets the value of the id at a position of the list, in ascending
+     * order of ids.
+     *
+     * @param position the position
+     * @return the value of the id.
+     */
+    public long idAt(int position) {
+        return ids[position];
+    }
+
+    /**
+     * Gets the position of the first id not less than `idValue`, searching
+     * from the position `from` onwards. A list visited in ascending order of
+     * ids can skip ahead this way, instead of checking every id.
+     *
+     * @param idValue the value of the id to find
+     * @param from    the position to start searching from
+     * @return the position, or the size of the list if there is no such id.
+     */
+    public int seek(long idValue, int from) {
+        if (from >= ids.length) return ids.length;
+
+        int index = Arrays.binarySearch(ids, from, ids.length, idValue);
+        return index >= 0 ? index : -(index + 1);
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        if (object instanceof NitriteId) {
+            Long value = ((NitriteId) object).getIdValue();
+            return value != null && Arrays.binarySearch(ids, value) >= 0;
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    @Override
+    public Iterator<NitriteId> iterator() {
+        return new Iterator<NitriteId>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < ids.length;
+            }
+
+            @Override
+            public NitriteId next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return NitriteId.createId(ids[index++]);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("posting list is immutable");
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other instanceof PostingList) {
+            return Arrays.equals(ids, ((PostingList) other).ids);
+        }
+        return super.equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    long[] getIds() {
+        return ids;
+    }
+
+    private static long[] distinct(long[] sorted, int length) {
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if (count == 0 || sorted[count - 1] != sorted[i]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return count == sorted.length ? sorted : Arrays.copyOf(sorted, count);
+    }
+}
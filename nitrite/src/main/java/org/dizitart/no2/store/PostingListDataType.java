@@ -0,0 +1,118 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.dizitart.no2.store;
+
+import org.dizitart.no2.NitriteId;
+import org.h2.mvstore.DataUtils;
+import org.h2.mvstore.WriteBuffer;
+import org.h2.mvstore.type.DataType;
+import org.h2.mvstore.type.ObjectDataType;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+/**
+ * A {@link DataType} which writes a {@link PostingList} as the number
+ * of ids followed by the first id and the variable length encoded
+ * differences between consecutive ids.
+ *
+ * Index entries written by an earlier version as serialized sets
+ * are still readable, and are rewritten in the compact form on
+ * their next update.
+ *
+ * @author Anindya Chatterjee.
+ * @since 3.4.3
+ */
+class PostingListDataType implements DataType {
+    // a tag which is never written by ObjectDataType, to tell
+    // a posting list apart from a legacy serialized set
+    private static final byte POSTING_LIST_TAG = (byte) 0xF0;
+
+    private final ObjectDataType legacyType = new ObjectDataType();
+
+    @Override
+    public int compare(Object first, Object second) {
+        return legacyType.compare(first, second);
+    }
+
+    @Override
+    public int getMemory(Object object) {
+        if (object instanceof PostingList) {
+            return 24 + 8 * ((PostingList) object).size();
+        }
+        return legacyType.getMemory(object);
+    }
+
+    @Override
+    public void write(WriteBuffer buff, Object object) {
+        PostingList postingList = toPostingList(object);
+        long[] ids = postingList.getIds();
+
+        buff.put(POSTING_LIST_TAG);
+        buff.putVarInt(ids.length);
+        long previous = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (i == 0) {
+                buff.putVarLong(ids[i]);
+            } else {
+                buff.putVarLong(ids[i] - previous);
+            }
+            previous = ids[i];
+        }
+    }
+
+    @Override
+    public void write(WriteBuffer buff, Object[] objects, int len, boolean key) {
+        for (int i = 0; i < len; i++) {
+            write(buff, objects[i]);
+        }
+    }
+
+    @Override
+    public Object read(ByteBuffer buff) {
+        if (buff.get(buff.position()) != POSTING_LIST_TAG) {
+            return toPostingList(legacyType.read(buff));
+        }
+
+        buff.get();
+        int length = DataUtils.readVarInt(buff);
+        long[] ids = new long[length];
+        long previous = 0;
+        for (int i = 0; i < length; i++) {
+            long value = DataUtils.readVarLong(buff);
+            ids[i] = i == 0 ? value : previous + value;
+            previous = ids[i];
+        }
+        return new PostingList(ids);
+    }
+
+    @Override
+    public void read(ByteBuffer buff, Object[] objects, int len, boolean key) {
+        for (int i = 0; i < len; i++) {
+            objects[i] = read(buff);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private PostingList toPostingList(Object object) {
+        if (object == null) {
+            return PostingList.empty();
+        }
+        return PostingList.of((Collection<NitriteId>) object);
+    }
+}
@@ -29,13 +29,13 @@ import uk.co.jemos.podam.api.PodamFactoryImpl;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
 import static org.dizitart.no2.Constants.DOC_ID;
-import static org.dizitart.no2.exceptions.ErrorCodes.*;
 import static org.dizitart.no2.exceptions.ErrorMessage.*;
 import static org.dizitart.no2.filters.Filters.eq;
 import static org.dizitart.no2.util.StringUtils.isNullOrEmpty;
@@ -73,13 +73,42 @@ public class DocumentUtils {
      * @return the value of the value.
      */
     public static Object getFieldValue(Document document, String field) {
-        Object fieldValue;
-        if (field.contains(FIELD_SEPARATOR)) {
-            fieldValue = getEmbeddedValue(document, field);
-        } else {
-            fieldValue = document.get(field);
+        return FieldPath.of(field).getValue(document);
+    }
+
+    /**
+     * Gets all values of a field inside a document, descending into every
+     * element of the arrays and {@link Iterable}s found along the field path.
+     * If the value of the field is itself an array or an {@link Iterable},
+     * its elements are returned instead.
+     *
+     * @param document the document
+     * @param field    the field
+     * @return the values of the field.
+     */
+    public static List<Object> getElementValues(Document document, String field) {
+        return FieldPath.of(field).getElementValues(document);
+    }
+
+    /**
+     * Gets the elements of an array or an {@link Iterable} value.
+     *
+     * @param value the value
+     * @return the elements of the value, or `null` if it is not an
+     * array or an {@link Iterable}.
+     */
+    public static Iterable<?> getElements(Object value) {
+        if (value == null || value instanceof Document) return null;
+        if (value instanceof Iterable) return (Iterable<?>) value;
+        if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            List<Object> list = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                list.add(Array.get(value, i));
+            }
+            return list;
         }
-        return fieldValue;
+        return null;
     }
 
     /**
@@ -163,74 +192,6 @@ public class DocumentUtils {
         return fields;
     }
 
-    @SuppressWarnings("unchecked")
-    private static Object getEmbeddedValue(Document document, String embeddedField) {
-        String regex = "\\" + FIELD_SEPARATOR;
-        String[] split = embeddedField.split(regex, 2);
-        String key = split[0];
-
-        if (isNullOrEmpty(key)) {
-            throw new ValidationException(INVALID_EMBEDDED_FIELD);
-        }
-
-        Object object = document.get(key);
-        if (object == null) return null;
-
-        String remainingKey = split[1];
-
-        if (object instanceof Document) {
-            return getFieldValue((Document) object, remainingKey);
-        } else if (object instanceof List) {
-            int index = asInteger(remainingKey);
-            if (index == -1) {
-                throw new ValidationException(errorMessage(
-                        "invalid index " + remainingKey + " for collection",
-                        VE_NEGATIVE_LIST_INDEX_FIELD));
-            }
-            List collection = (List) object;
-            if (index >= collection.size()) {
-                throw new ValidationException(errorMessage("index = " + remainingKey +
-                        " is not less than the size of the collection '" + key +
-                        "' = " + collection.size(), VE_INVALID_LIST_INDEX_FIELD));
-            }
-            return collection.get(index);
-        } else if (object.getClass().isArray()) {
-            int index = asInteger(remainingKey);
-            if (index == -1) {
-                throw new ValidationException(errorMessage(
-                        "invalid index " + remainingKey + " for collection",
-                        VE_NEGATIVE_ARRAY_INDEX_FIELD));
-            }
-            Object[] array = getArray(object);
-            if (index >= array.length) {
-                throw new ValidationException(errorMessage("index = " + remainingKey +
-                        " is not less than the size of the collection '" + key +
-                        "' = " + array.length, VE_INVALID_ARRAY_INDEX_FIELD));
-            }
-            return array[index];
-        } else {
-            throw new ValidationException(errorMessage("invalid remaining field "
-                    + remainingKey, VE_INVALID_REMAINING_FIELD));
-        }
-    }
-
-    private static int asInteger(String number) {
-        try {
-            return Integer.parseInt(number);
-        } catch (NumberFormatException e) {
-            return -1;
-        }
-    }
-
-    private Object[] getArray(Object val){
-        int length = Array.getLength(val);
-        Object[] outputArray = new Object[length];
-        for(int i = 0; i < length; ++i){
-            outputArray[i] = Array.get(val, i);
-        }
-        return outputArray;
-    }
-
     private static Document removeValues(Document dummyDoc) {
         if (dummyDoc == null) return null;
         for (KeyValuePair entry : dummyDoc) {
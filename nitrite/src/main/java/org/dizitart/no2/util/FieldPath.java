@@ -0,0 +1,218 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.util;
+
+import org.dizitart.no2.Document;
+import org.dizitart.no2.exceptions.ValidationException;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.dizitart.no2.exceptions.ErrorCodes.*;
+import static org.dizitart.no2.exceptions.ErrorMessage.INVALID_EMBEDDED_FIELD;
+import static org.dizitart.no2.exceptions.ErrorMessage.errorMessage;
+import static org.dizitart.no2.util.DocumentUtils.FIELD_SEPARATOR;
+import static org.dizitart.no2.util.DocumentUtils.getElements;
+import static org.dizitart.no2.util.StringUtils.isNullOrEmpty;
+
+/**
+ * A compiled path of a field inside a document, like `address.city`
+ * or `phones.0`. The path is split into its segments once, so that the
+ * value of the field can be read from any number of documents without
+ * parsing the field name again.
+ *
+ * @since 3.4.3
+ * @author Anindya Chatterjee
+ */
+public final class FieldPath {
+    // field names are few in practice, the bound only guards
+    // against an unbounded stream of generated field names
+    private static final int MAX_CACHED_PATHS = 4096;
+    private static final Map<String, FieldPath> cache = new ConcurrentHashMap<>();
+
+    private final String field;
+    private final String[] segments;
+    // the path remaining after each segment, and the same as a list or
+    // array index, or -1 if it is not one
+    private final String[] remainingPaths;
+    private final int[] indexes;
+    // the segments of a path descending into arrays and iterables
+    private final String[] elementSegments;
+
+    private FieldPath(String field) {
+        this.field = field;
+
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        int separator;
+        while ((separator = field.indexOf(FIELD_SEPARATOR, start)) != -1) {
+            parts.add(field.substring(start, separator));
+            start = separator + FIELD_SEPARATOR.length();
+        }
+        parts.add(field.substring(start));
+        this.segments = parts.toArray(new String[0]);
+
+        this.remainingPaths = new String[segments.length];
+        this.indexes = new int[segments.length];
+        int offset = 0;
+        for (int i = 0; i < segments.length - 1; i++) {
+            offset += segments[i].length() + FIELD_SEPARATOR.length();
+            remainingPaths[i] = field.substring(offset);
+            indexes[i] = asInteger(remainingPaths[i]);
+        }
+        this.elementSegments = field.split("\\" + FIELD_SEPARATOR);
+    }
+
+    /**
+     * Gets the compiled path of a field.
+     *
+     * @param field the field
+     * @return the compiled path of the field.
+     */
+    public static FieldPath of(String field) {
+        FieldPath path = cache.get(field);
+        if (path == null) {
+            path = new FieldPath(field);
+            if (cache.size() < MAX_CACHED_PATHS) {
+                cache.put(field, path);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Gets the field the path is compiled from.
+     *
+     * @return the field.
+     */
+    public String getField() {
+        return field;
+    }
+
+    /**
+     * Gets the value of the field inside a document.
+     *
+     * @param document the document
+     * @return the value of the field.
+     */
+    public Object getValue(Document document) {
+        Document current = document;
+        int last = segments.length - 1;
+        for (int i = 0; i < last; i++) {
+            String key = segments[i];
+            if (isNullOrEmpty(key)) {
+                throw new ValidationException(INVALID_EMBEDDED_FIELD);
+            }
+
+            Object object = current.get(key);
+            if (object == null) return null;
+
+            if (object instanceof Document) {
+                current = (Document) object;
+            } else {
+                return getIndexedValue(object, i);
+            }
+        }
+        return current.get(segments[last]);
+    }
+
+    /**
+     * Gets all values of the field inside a document, descending into
+     * every element of the arrays and {@link Iterable}s found along the
+     * path.
+     *
+     * @param document the document
+     * @return the values of the field.
+     * @see DocumentUtils#getElementValues(Document, String)
+     */
+    public List<Object> getElementValues(Document document) {
+        List<Object> values = new ArrayList<>();
+        collectElementValues(document, 0, values);
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return field;
+    }
+
+    private void collectElementValues(Object value, int position, List<Object> values) {
+        if (value == null) return;
+
+        Iterable<?> elements = getElements(value);
+        if (elements != null) {
+            for (Object element : elements) {
+                collectElementValues(element, position, values);
+            }
+        } else if (position == elementSegments.length) {
+            values.add(value);
+        } else if (value instanceof Document) {
+            collectElementValues(((Document) value).get(elementSegments[position]),
+                    position + 1, values);
+        }
+    }
+
+    private Object getIndexedValue(Object object, int position) {
+        String key = segments[position];
+        String remainingPath = remainingPaths[position];
+        int index = indexes[position];
+
+        if (object instanceof List) {
+            if (index == -1) {
+                throw new ValidationException(errorMessage(
+                        "invalid index " + remainingPath + " for collection",
+                        VE_NEGATIVE_LIST_INDEX_FIELD));
+            }
+            List collection = (List) object;
+            if (index >= collection.size()) {
+                throw new ValidationException(errorMessage("index = " + remainingPath +
+                        " is not less than the size of the collection '" + key +
+                        "' = " + collection.size(), VE_INVALID_LIST_INDEX_FIELD));
+            }
+            return collection.get(index);
+        } else if (object.getClass().isArray()) {
+            if (index == -1) {
+                throw new ValidationException(errorMessage(
+                        "invalid index " + remainingPath + " for collection",
+                        VE_NEGATIVE_ARRAY_INDEX_FIELD));
+            }
+            int length = Array.getLength(object);
+            if (index >= length) {
+                throw new ValidationException(errorMessage("index = " + remainingPath +
+                        " is not less than the size of the collection '" + key +
+                        "' = " + length, VE_INVALID_ARRAY_INDEX_FIELD));
+            }
+            return Array.get(object, index);
+        } else {
+            throw new ValidationException(errorMessage("invalid remaining field "
+                    + remainingPath, VE_INVALID_REMAINING_FIELD));
+        }
+    }
+
+    private static int asInteger(String number) {
+        try {
+            return Integer.parseInt(number);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
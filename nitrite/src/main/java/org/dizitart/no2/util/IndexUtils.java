@@ -20,11 +20,18 @@ package org.dizitart.no2.util;
 
 import lombok.experimental.UtilityClass;
 import org.dizitart.no2.Index;
+import org.dizitart.no2.NitriteId;
+import org.dizitart.no2.exceptions.IndexingException;
 
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
 import java.util.*;
+import java.util.regex.Pattern;
 
+import static org.dizitart.no2.Constants.COMPOUND_INDEX_SEPARATOR;
 import static org.dizitart.no2.Constants.INDEX_PREFIX;
 import static org.dizitart.no2.Constants.INTERNAL_NAME_SEPARATOR;
+import static org.dizitart.no2.exceptions.ErrorCodes.IE_INDEX_ON_UNSTABLE_HASH_VALUE;
 import static org.dizitart.no2.exceptions.ErrorCodes.VE_INDEX_NULL_INDEX;
 import static org.dizitart.no2.exceptions.ErrorMessage.errorMessage;
 import static org.dizitart.no2.util.ValidationUtils.notNull;
@@ -55,6 +62,34 @@ public class IndexUtils {
                 index.getIndexType();
     }
 
+    /**
+     * Gets the name of a compound index on `fields`, which is used in
+     * place of a field name to find, rebuild or drop the index.
+     *
+     * @param fields the indexed fields, in the order of significance
+     * @return the compound index name.
+     */
+    public static String compoundIndexName(String... fields) {
+        StringBuilder name = new StringBuilder();
+        for (String field : fields) {
+            if (name.length() > 0) {
+                name.append(COMPOUND_INDEX_SEPARATOR);
+            }
+            name.append(field);
+        }
+        return name.toString();
+    }
+
+    /**
+     * Gets the indexed fields from the name of an index.
+     *
+     * @param indexName the index name
+     * @return the fields of the index.
+     */
+    public static String[] indexFields(String indexName) {
+        return indexName.split(Pattern.quote(COMPOUND_INDEX_SEPARATOR));
+    }
+
     /**
      * Sorts a map against it values. It is used to sort a score map during
      * full-text index search.
@@ -80,4 +115,88 @@ public class IndexUtils {
 
         return result;
     }
+
+    /**
+     * Computes a hash code of a value which is stable across JVM runs, so
+     * that it can be persisted as the bucket of a hash index.
+     *
+     * Values which are equal by {@link EqualsUtils#deepEquals(Object, Object)}
+     * have the same hash code, but not the other way round. The hash code of
+     * a map does not depend on the order of its entries, while `deepEquals`
+     * does, so the values in a bucket are still compared with `deepEquals`.
+     *
+     * @param value the value
+     * @return the stable hash code.
+     * @throws IndexingException if the value does not have a stable hash code.
+     * @since 3.4.3
+     */
+    public static int stableHash(Object value) {
+        if (value == null) return 0;
+
+        if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            return decimal.signum() == 0 ? 0 : decimal.stripTrailingZeros().hashCode();
+        }
+
+        if (value instanceof Double || value instanceof Float) {
+            // 0.0 and -0.0 are equal to each other
+            double number = ((Number) value).doubleValue();
+            return number == 0 ? 0 : value.hashCode();
+        }
+
+        if (value instanceof Number || value instanceof String
+                || value instanceof Boolean || value instanceof Character
+                || value instanceof NitriteId) {
+            return value.hashCode();
+        }
+
+        if (value instanceof Enum) {
+            return ((Enum) value).name().hashCode();
+        }
+
+        if (value instanceof Date) {
+            return Long.valueOf(((Date) value).getTime()).hashCode();
+        }
+
+        if (value instanceof Map) {
+            // same as Map.hashCode, independent of the order of the entries,
+            // so maps which deepEquals tells apart may share a bucket
+            int hash = 0;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                hash += stableHash(entry.getKey()) ^ stableHash(entry.getValue());
+            }
+            return hash;
+        }
+
+        if (value instanceof Iterable) {
+            int hash = 1;
+            for (Object element : (Iterable) value) {
+                hash = 31 * hash + stableHash(element);
+            }
+            return hash;
+        }
+
+        if (value.getClass().isArray()) {
+            int hash = 1;
+            int length = Array.getLength(value);
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + stableHash(Array.get(value, i));
+            }
+            return hash;
+        }
+
+        if (!overridesHashCode(value.getClass())) {
+            throw new IndexingException(errorMessage(value.getClass().getName()
+                    + " does not have a stable hash code", IE_INDEX_ON_UNSTABLE_HASH_VALUE));
+        }
+        return value.hashCode();
+    }
+
+    private static boolean overridesHashCode(Class<?> type) {
+        try {
+            return type.getMethod("hashCode").getDeclaringClass() != Object.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
 }
@@ -51,6 +51,42 @@ public class NumberUtils {
             return toBigDecimal(x).compareTo(toBigDecimal(y));
     }
 
+    /**
+     * Converts a number to the given number type, if it is
+     * numerically equal in that type.
+     *
+     * @param number the number to convert.
+     * @param type   the number type to convert to.
+     * @return the converted number, or `null` if `number` can not be
+     * represented exactly as a `type`.
+     * @since 3.4.3
+     */
+    public static Number convert(Number number, Class<?> type) {
+        if (type.isInstance(number)) return number;
+
+        Number converted;
+        if (type == Byte.class) {
+            converted = number.byteValue();
+        } else if (type == Short.class) {
+            converted = number.shortValue();
+        } else if (type == Integer.class) {
+            converted = number.intValue();
+        } else if (type == Long.class) {
+            converted = number.longValue();
+        } else if (type == Float.class) {
+            converted = number.floatValue();
+        } else if (type == Double.class) {
+            converted = number.doubleValue();
+        } else if (type == BigInteger.class) {
+            converted = toBigDecimal(number).toBigInteger();
+        } else if (type == BigDecimal.class) {
+            converted = toBigDecimal(number);
+        } else {
+            return null;
+        }
+        return compare(converted, number) == 0 ? converted : null;
+    }
+
     private static boolean isSpecial(Number number) {
         boolean specialDouble = number instanceof Double
                 && (Double.isNaN((Double) number) || Double.isInfinite((Double) number));
@@ -21,6 +21,7 @@ package org.dizitart.no2.util;
 import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
 import org.dizitart.no2.Document;
+import org.dizitart.no2.IndexType;
 import org.dizitart.no2.NitriteId;
 import org.dizitart.no2.exceptions.IndexingException;
 import org.dizitart.no2.exceptions.InvalidIdException;
@@ -268,7 +269,11 @@ public class ObjectUtils {
             String name = index.value();
             Field field = getField(type, name, true);
             if (field != null) {
-                validateObjectIndexField(nitriteMapper, field.getType(), field.getName());
+                // a multikey index holds the elements of an array or a collection,
+                // and a hash index does not need its values to be comparable
+                if (index.type() != IndexType.Multikey && index.type() != IndexType.Hash) {
+                    validateObjectIndexField(nitriteMapper, field.getType(), field.getName());
+                }
                 indexSet.add(index);
             } else {
                 throw new IndexingException(errorMessage(
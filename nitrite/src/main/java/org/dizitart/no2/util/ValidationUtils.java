@@ -29,7 +29,10 @@ import org.dizitart.no2.exceptions.ValidationException;
 import org.dizitart.no2.mapper.NitriteMapper;
 
 import java.lang.reflect.Modifier;
+import java.util.HashSet;
+import java.util.Set;
 
+import static org.dizitart.no2.Constants.COMPOUND_INDEX_SEPARATOR;
 import static org.dizitart.no2.Constants.RESERVED_NAMES;
 import static org.dizitart.no2.exceptions.ErrorCodes.*;
 import static org.dizitart.no2.exceptions.ErrorMessage.*;
@@ -142,6 +145,21 @@ public class ValidationUtils {
         }
     }
 
+    /**
+     * Validates if a field of a document can be indexed by a hash index.
+     *
+     * @param fieldValue the field value
+     * @param field      the field
+     * @since 3.4.3
+     */
+    public static void validateHashIndexField(Object fieldValue, String field) {
+        if (!(fieldValue instanceof Document)
+                && (fieldValue instanceof Iterable || fieldValue.getClass().isArray())) {
+            throw new IndexingException(errorMessage("indexing on arrays or collections " +
+                    "are not supported for field " + field, IE_INDEX_ON_ARRAY_NOT_SUPPORTED));
+        }
+    }
+
     /**
      * Validates if a field of a document can be indexed.
      *
@@ -166,6 +184,28 @@ public class ValidationUtils {
         }
     }
 
+    /**
+     * Validates the fields of a compound index.
+     *
+     * @param fields the fields
+     */
+    public static void validateCompoundIndexFields(String[] fields) {
+        notNull(fields, errorMessage("fields can not be null", VE_CREATE_COMPOUND_INDEX_INVALID_FIELDS));
+        if (fields.length == 0) {
+            throw new ValidationException(errorMessage("fields can not be empty",
+                    VE_CREATE_COMPOUND_INDEX_INVALID_FIELDS));
+        }
+
+        Set<String> fieldSet = new HashSet<>();
+        for (String field : fields) {
+            if (isNullOrEmpty(field) || field.contains(COMPOUND_INDEX_SEPARATOR)
+                    || !fieldSet.add(field)) {
+                throw new ValidationException(errorMessage("invalid field " + field
+                        + " for compound index", VE_CREATE_COMPOUND_INDEX_INVALID_FIELDS));
+            }
+        }
+    }
+
     /**
      * Validates a search term.
      *
@@ -23,9 +23,13 @@ import org.junit.Test;
 
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Random;
 
+import static org.dizitart.no2.Document.createDocument;
+import static org.dizitart.no2.FindOptions.limit;
 import static org.dizitart.no2.FindOptions.sort;
 import static org.dizitart.no2.filters.Filters.*;
 import static org.dizitart.no2.util.Iterables.isSorted;
@@ -271,6 +275,114 @@ public class CollectionFindByIndexTest extends BaseCollectionTest {
         }
     }
 
+    @Test
+    public void testFindByFullTextWildCards() {
+        collection.createIndex("text", IndexOptions.indexOptions(IndexType.Fulltext));
+        collection.insert(createDocument("text", "running and jumping"));
+        collection.insert(createDocument("text", "jogging"));
+        collection.insert(createDocument("text", "sprinters run"));
+
+        assertEquals(collection.find(text("text", "run*")).size(), 2);
+        assertEquals(collection.find(text("text", "*ing")).size(), 2);
+        assertEquals(collection.find(text("text", "*ump*")).size(), 1);
+        assertEquals(collection.find(text("text", "*inter*")).size(), 1);
+        assertEquals(collection.find(text("text", "*in*")).size(), 3);
+        assertEquals(collection.find(text("text", "*xyz*")).size(), 0);
+
+        collection.remove(text("text", "jogging"));
+        assertEquals(collection.find(text("text", "*ing")).size(), 1);
+        assertEquals(collection.find(text("text", "*ogg*")).size(), 0);
+
+        collection.update(text("text", "running"), createDocument("text", "walking"));
+        assertEquals(collection.find(text("text", "*ump*")).size(), 0);
+        assertEquals(collection.find(text("text", "*alk*")).size(), 1);
+        assertEquals(collection.find(text("text", "*ing")).size(), 1);
+    }
+
+    @Test
+    public void testFindByFullTextFuzzy() {
+        collection.createIndex("text", IndexOptions.indexOptions(IndexType.Fulltext));
+        collection.insert(createDocument("text", "running and jumping"));
+        collection.insert(createDocument("text", "jogging"));
+        collection.insert(createDocument("text", "sprinters run"));
+        collection.insert(createDocument("text", "he runs"));
+
+        assertEquals(collection.find(fuzzy("text", "run", 0)).size(), 1);
+        assertEquals(collection.find(fuzzy("text", "rum", 1)).size(), 1);
+        assertEquals(collection.find(fuzzy("text", "Runing", 1)).size(), 1);
+        assertEquals(collection.find(fuzzy("text", "jumpin", 2)).size(), 1);
+        assertEquals(collection.find(fuzzy("text", "xyz", 2)).size(), 0);
+
+        Cursor cursor = collection.find(fuzzy("text", "runs", 1));
+        assertEquals(cursor.size(), 2);
+        assertEquals(cursor.firstOrDefault().get("text"), "he runs");
+
+        collection.remove(text("text", "runs"));
+        assertEquals(collection.find(fuzzy("text", "runs", 1)).size(), 1);
+    }
+
+    @Test
+    public void testFindByFullTextRanked() {
+        collection.createIndex("text", IndexOptions.indexOptions(IndexType.Fulltext));
+        collection.insert(createDocument("text", "nitrite database"));
+        collection.insert(createDocument("text", "nitrite nitrite nitrite embedded"));
+        collection.insert(createDocument("text", "embedded database engine"));
+        for (int i = 0; i < 5; i++) {
+            collection.insert(createDocument("text", "database storage"));
+        }
+
+        Cursor cursor = collection.find(text("text", "nitrite database"));
+        assertEquals(cursor.size(), 8);
+        List<Document> ranked = cursor.toList();
+        assertEquals(ranked.get(0).get("text"), "nitrite nitrite nitrite embedded");
+        assertEquals(ranked.get(1).get("text"), "nitrite database");
+
+        cursor = collection.find(text("text", "nitrite database"), limit(0, 2));
+        assertEquals(cursor.size(), 2);
+        assertEquals(cursor.totalCount(), 8);
+        assertTrue(cursor.hasMore());
+        assertEquals(cursor.toList(), ranked.subList(0, 2));
+
+        cursor = collection.find(text("text", "nitrite database"), limit(1, 3));
+        assertEquals(cursor.toList(), ranked.subList(1, 4));
+
+        collection.update(text("text", "engine"),
+                createDocument("text", "nitrite nitrite nitrite nitrite"));
+        cursor = collection.find(text("text", "nitrite"), limit(0, 1));
+        assertEquals(cursor.totalCount(), 3);
+        assertEquals(cursor.firstOrDefault().get("text"), "nitrite nitrite nitrite nitrite");
+    }
+
+    @Test
+    public void testFullTextBulkBuild() {
+        String[] words = {"quick", "brown", "fox", "jumping", "lazy", "dog", "running", "cat"};
+        NitriteCollection incremental = db.getCollection("incremental");
+        incremental.createIndex("text", IndexOptions.indexOptions(IndexType.Fulltext));
+
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int j = random.nextInt(6); j >= 0; j--) {
+                text.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            collection.insert(createDocument("text", text.toString()));
+            incremental.insert(createDocument("text", text.toString()));
+        }
+        collection.createIndex("text", IndexOptions.indexOptions(IndexType.Fulltext));
+
+        for (String search : new String[] {"fox", "lazy dog", "cat brown quick", "run*", "*ing", "*az*"}) {
+            List<Object> built = new ArrayList<>();
+            for (Document document : collection.find(text("text", search))) {
+                built.add(document.get("text"));
+            }
+            List<Object> expected = new ArrayList<>();
+            for (Document document : incremental.find(text("text", search))) {
+                expected.add(document.get("text"));
+            }
+            assertEquals(built, expected);
+        }
+    }
+
     @Test
     public void testFindByIndexSortAscending() {
         insert();
@@ -371,4 +483,80 @@ public class CollectionFindByIndexTest extends BaseCollectionTest {
         assertEquals(cursor.size(), 0);
     }
 
+    @Test
+    public void testFindAndWithIndexedAndScannedFilters() throws ParseException {
+        insert();
+        collection.createIndex("lastName", IndexOptions.indexOptions(IndexType.NonUnique));
+        collection.createIndex("firstName", IndexOptions.indexOptions(IndexType.Unique));
+        collection.createIndex("body", IndexOptions.indexOptions(IndexType.Fulltext));
+
+        Cursor cursor = collection.find(
+                and(
+                        eq("lastName", "ln2"),
+                        regex("body", "hello"),
+                        gt("birthDay", simpleDateFormat.parse("2010-01-01T16:02:48.440Z"))
+                ));
+        assertEquals(cursor.size(), 1);
+        assertEquals(cursor.firstOrDefault().get("firstName"), "fn2");
+
+        cursor = collection.find(
+                and(
+                        eq("lastName", "ln2"),
+                        and(
+                                eq("firstName", "fn3"),
+                                regex("body", "ipsum")
+                        )
+                ));
+        assertEquals(cursor.size(), 1);
+        assertEquals(cursor.firstOrDefault().get("firstName"), "fn3");
+
+        cursor = collection.find(
+                and(
+                        eq("lastName", "ln2"),
+                        text("body", "hello"),
+                        eq("firstName", "fn1")
+                ));
+        assertEquals(cursor.size(), 0);
+
+        cursor = collection.find(
+                and(
+                        regex("body", "quick"),
+                        lt("birthDay", simpleDateFormat.parse("2013-01-01T16:02:48.440Z"))
+                ));
+        assertEquals(cursor.size(), 2);
+    }
+
+    @Test
+    public void testSortByIndex() {
+        insert();
+        collection.createIndex("birthDay", IndexOptions.indexOptions(IndexType.NonUnique));
+        Document doc4 = new Document().put("firstName", "fn4").put("lastName", "ln2");
+        collection.insert(doc4);
+
+        Cursor cursor = collection.find(sort("birthDay", SortOrder.Descending).thenLimit(0, 2));
+        assertEquals(cursor.size(), 2);
+        assertTrue(cursor.hasMore());
+        List<Object> names = new ArrayList<>();
+        for (Document document : cursor) {
+            names.add(document.get("firstName"));
+        }
+        assertEquals(names, Arrays.<Object>asList("fn3", "fn1"));
+
+        cursor = collection.find(eq("lastName", "ln2"),
+                sort("birthDay", SortOrder.Ascending).thenLimit(1, 2));
+        assertEquals(cursor.size(), 2);
+        names = new ArrayList<>();
+        for (Document document : cursor) {
+            names.add(document.get("firstName"));
+        }
+        assertEquals(names, Arrays.<Object>asList("fn2", "fn3"));
+
+        cursor = collection.find(sort("birthDay", SortOrder.Ascending, NullOrder.Last));
+        assertEquals(cursor.size(), 4);
+        names = new ArrayList<>();
+        for (Document document : cursor) {
+            names.add(document.get("firstName"));
+        }
+        assertEquals(names, Arrays.<Object>asList("fn2", "fn1", "fn3", "fn4"));
+    }
 }
@@ -79,6 +79,13 @@ public class CollectionFindNegativeTest extends BaseCollectionTest {
         collection.find(text("body", "Lorem"));
     }
 
+    @Test(expected = FilterException.class)
+    public void testFindFuzzyInvalidMaxEdits() {
+        insert();
+        collection.createIndex("body", IndexOptions.indexOptions(IndexType.Fulltext));
+        collection.find(fuzzy("body", "Lorem", 3));
+    }
+
     @Test(expected = FilterException.class)
     public void testFindWithRegexInvalidValue() {
         insert();
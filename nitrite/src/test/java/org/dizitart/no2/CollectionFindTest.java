@@ -19,6 +19,7 @@
 package org.dizitart.no2;
 
 import org.dizitart.no2.exceptions.IndexingException;
+import org.dizitart.no2.exceptions.ValidationException;
 import org.dizitart.no2.filters.Filters;
 import org.dizitart.no2.mapper.JacksonFacade;
 import org.dizitart.no2.mapper.MapperFacade;
@@ -344,6 +345,39 @@ public class CollectionFindTest extends BaseCollectionTest {
         assertEquals(iteration, 3);
     }
 
+    @Test
+    public void testProjectEmbeddedFields() {
+        Document address = createDocument("city", "Kolkata")
+                .put("zip", "700001")
+                .put("location", createDocument("lat", 22.57).put("lon", 88.36));
+        collection.insert(createDocument("name", "nitrite")
+                .put("address", address)
+                .put("payload", new byte[1024]));
+
+        Document projection = createDocument("name", null)
+                .put("address.city", null)
+                .put("address.location.lat", null)
+                .put("address.country", null);
+        Document document = collection.find(eq("name", "nitrite")).project(projection).firstOrDefault();
+
+        Document expected = createDocument("name", "nitrite")
+                .put("address", createDocument("city", "Kolkata")
+                        .put("location", createDocument("lat", 22.57)));
+        assertEquals(document, expected);
+
+        // the whole parent is projected along with its field
+        projection = createDocument("address", null).put("address.city", null);
+        document = collection.find(eq("name", "nitrite")).project(projection).firstOrDefault();
+        assertEquals(document, createDocument("address", address));
+        assertEquals(address.size(), 3);
+
+        NitriteId id = collection.find(eq("name", "nitrite")).firstOrDefault().getId();
+        // an id can not be put in a document as null
+        projection = new Document(Collections.<String, Object>singletonMap(DOC_ID, null));
+        document = collection.find().project(projection).firstOrDefault();
+        assertEquals(document, createDocument(DOC_ID, id.getIdValue()));
+    }
+
     @Test
     public void testFindWithArrayEqual() {
         insert();
@@ -548,6 +582,74 @@ public class CollectionFindTest extends BaseCollectionTest {
         assertNull(projection);
     }
 
+    @Test
+    public void testFindOrAndNotInSinglePass() throws ParseException {
+        insert();
+
+        Cursor cursor = collection.find(
+                or(
+                        regex("body", "hello"),
+                        eq("lastName", "ln1"),
+                        lt("birthDay", simpleDateFormat.parse("2011-01-01T16:02:48.440Z"))
+                ));
+        assertEquals(cursor.size(), 2);
+
+        cursor = collection.find(
+                not(
+                        or(
+                                eq("firstName", "fn1"),
+                                eq("firstName", "fn2")
+                        )
+                ));
+        assertEquals(cursor.size(), 1);
+        assertEquals(cursor.firstOrDefault().get("firstName"), "fn3");
+
+        cursor = collection.find(
+                or(
+                        and(
+                                eq("lastName", "ln2"),
+                                regex("body", "Lorem")
+                        ),
+                        or(
+                                eq("firstName", "fn1"),
+                                elemMatch("list", eq("$", "four"))
+                        )
+                ));
+        assertEquals(cursor.size(), 3);
+    }
+
+    @Test
+    public void testFindWithLimitOnScannedFilter() {
+        insert();
+
+        Cursor cursor = collection.find(regex("firstName", "fn"), limit(0, 1));
+        assertEquals(cursor.size(), 1);
+        assertTrue(cursor.hasMore());
+        assertEquals(cursor.totalCount(), 3);
+
+        cursor = collection.find(not(eq("firstName", "fn1")), limit(1, 2));
+        assertEquals(cursor.size(), 1);
+        assertFalse(cursor.hasMore());
+        assertEquals(cursor.totalCount(), 2);
+        assertEquals(cursor.firstOrDefault().get("firstName"), "fn3");
+
+        cursor = collection.find(regex("firstName", "fn"), limit(3, 2));
+        assertEquals(cursor.size(), 0);
+        assertFalse(cursor.hasMore());
+        assertEquals(cursor.totalCount(), 3);
+
+        // the total is counted as of the find, not as of the count
+        cursor = collection.find(regex("firstName", "fn"), limit(0, 1));
+        collection.insert(createDocument("firstName", "fn4"));
+        assertEquals(cursor.totalCount(), 3);
+
+        NitriteId first = cursor.idSet().iterator().next();
+        cursor = collection.find(regex("firstName", "fn"), FindOptions.after(first, 1));
+        collection.remove(eq("firstName", "fn4"));
+        assertEquals(cursor.size(), 1);
+        assertEquals(cursor.totalCount(), 4);
+    }
+
     @Test
     public void testFilterAll() {
         Cursor cursor = collection.find(Filters.ALL);
@@ -696,6 +798,43 @@ public class CollectionFindTest extends BaseCollectionTest {
         assertThat(Arrays.asList(doc2, doc3, doc1), is(cursor.toList()));
     }
 
+    @Test
+    public void testNullOrderWithLimit() {
+        NitriteCollection coll = db.getCollection("test");
+        coll.remove(Filters.ALL);
+
+        Document doc1 = new Document().put("id", "test-1").put("group", "groupA");
+        assertEquals(1, coll.insert(doc1).getAffectedCount());
+
+        Document doc2 = new Document().put("id", "test-2").put("group", "groupA").put("startTime", DateTime.now());
+        assertEquals(1, coll.insert(doc2).getAffectedCount());
+
+        Document doc3 = new Document().put("id", "test-3").put("group", "groupA").put("startTime", DateTime.now().plusMinutes(1));
+        assertEquals(1, coll.insert(doc3).getAffectedCount());
+
+        Document doc4 = new Document().put("id", "test-4").put("group", "groupA").put("startTime", DateTime.now().plusMinutes(2));
+        assertEquals(1, coll.insert(doc4).getAffectedCount());
+
+        Cursor cursor = coll.find(Filters.eq("group", "groupA"),
+                FindOptions.sort("startTime", SortOrder.Descending).thenLimit(0, 2));
+        assertThat(Arrays.asList(doc4, doc3), is(cursor.toList()));
+        assertTrue(cursor.hasMore());
+        assertEquals(4, cursor.totalCount());
+
+        cursor = coll.find(Filters.eq("group", "groupA"),
+                FindOptions.sort("startTime", SortOrder.Descending, NullOrder.First).thenLimit(1, 2));
+        assertThat(Arrays.asList(doc4, doc3), is(cursor.toList()));
+
+        cursor = coll.find(Filters.eq("group", "groupA"),
+                FindOptions.sort("startTime", SortOrder.Ascending).thenLimit(0, 2));
+        assertThat(Arrays.asList(doc1, doc2), is(cursor.toList()));
+
+        cursor = coll.find(Filters.eq("group", "groupA"),
+                FindOptions.sort("startTime", SortOrder.Ascending, NullOrder.Last).thenLimit(2, 5));
+        assertThat(Arrays.asList(doc4, doc1), is(cursor.toList()));
+        assertFalse(cursor.hasMore());
+    }
+
     @Test
     public void testIssue144(){
         Document doc1 = new Document().put("id", "test-1").put("fruit", "Apple");
@@ -724,4 +863,109 @@ public class CollectionFindTest extends BaseCollectionTest {
         Document byId = collection.getById(nitriteId);
         assertEquals(byId.get("lastName"), "ln1");
     }
+
+    @Test
+    public void testFindWithKeysetPagination() {
+        NitriteCollection coll = db.getCollection("keyset");
+        for (int score : new int[] {30, 10, 20, 10, 40, 20, 10}) {
+            coll.insert(createDocument("score", score));
+        }
+        coll.insert(createDocument("name", "no score"));
+
+        List<Document> descending = coll.find(sort("score", SortOrder.Descending)).toList();
+        List<Document> ascending = coll.find(sort("score", SortOrder.Ascending)).toList();
+        assertEquals(keysetPages(coll, null, SortOrder.Descending), descending);
+        assertEquals(keysetPages(coll, null, SortOrder.Ascending), ascending);
+
+        coll.createIndex("score", IndexOptions.indexOptions(IndexType.NonUnique));
+        assertEquals(keysetPages(coll, null, SortOrder.Descending), descending);
+        assertEquals(keysetPages(coll, null, SortOrder.Ascending), ascending);
+
+        List<Document> filtered = coll.find(gte("score", 20),
+                sort("score", SortOrder.Ascending)).toList();
+        assertEquals(filtered.size(), 4);
+        assertEquals(keysetPages(coll, gte("score", 20), SortOrder.Ascending), filtered);
+
+        // unsorted pages are in the order of the ids
+        Cursor cursor = coll.find(FindOptions.after(null, 5));
+        assertEquals(cursor.size(), 5);
+        assertTrue(cursor.hasMore());
+        assertEquals(cursor.totalCount(), 8);
+        List<NitriteId> ids = new ArrayList<>(cursor.idSet());
+
+        cursor = coll.find(FindOptions.after(ids.get(4), 5));
+        assertEquals(cursor.size(), 3);
+        assertFalse(cursor.hasMore());
+        assertEquals(cursor.totalCount(), 8);
+        ids.addAll(cursor.idSet());
+        assertTrue(isSorted(ids, true));
+        assertEquals(new HashSet<>(ids).size(), 8);
+
+        cursor = coll.find(not(eq("score", 10)), FindOptions.after(ids.get(1), 2));
+        assertEquals(cursor.size(), 2);
+        assertTrue(cursor.hasMore());
+        assertEquals(cursor.totalCount(), 5);
+    }
+
+    @Test
+    public void testKeysetPageAfterValueOfOtherType() {
+        NitriteCollection coll = db.getCollection("keysetLong");
+        for (long score = 1; score <= 10; score++) {
+            coll.insert(createDocument("score", score));
+        }
+        NitriteId fifth = coll.find(eq("score", 5L)).firstOrDefault().getId();
+
+        assertKeysetPageAfter(coll, 5, fifth);
+        coll.createIndex("score", IndexOptions.indexOptions(IndexType.NonUnique));
+        assertKeysetPageAfter(coll, 5, fifth);
+        assertKeysetPageAfter(coll, 5.0, fifth);
+
+        boolean rejected = false;
+        try {
+            coll.find(sort("score", SortOrder.Ascending).thenLimit(0, 3).thenAfter("5", fifth));
+        } catch (ValidationException ve) {
+            rejected = true;
+        }
+        assertTrue(rejected);
+
+        coll.dropIndex("score");
+        rejected = false;
+        try {
+            coll.find(sort("score", SortOrder.Ascending).thenLimit(0, 3).thenAfter("5", fifth));
+        } catch (ValidationException ve) {
+            rejected = true;
+        }
+        assertTrue(rejected);
+    }
+
+    private void assertKeysetPageAfter(NitriteCollection coll, Object afterValue, NitriteId afterId) {
+        Cursor cursor = coll.find(sort("score", SortOrder.Ascending)
+                .thenLimit(0, 3).thenAfter(afterValue, afterId));
+        List<Object> scores = new ArrayList<>();
+        for (Document document : cursor) {
+            scores.add(document.get("score"));
+        }
+        assertEquals(scores, Arrays.<Object>asList(6L, 7L, 8L));
+        assertTrue(cursor.hasMore());
+    }
+
+    private List<Document> keysetPages(NitriteCollection coll, Filter filter, SortOrder sortOrder) {
+        List<Document> documents = new ArrayList<>();
+        Document last = null;
+        Cursor cursor;
+        do {
+            FindOptions findOptions = sort("score", sortOrder).thenLimit(0, 3);
+            if (last != null) {
+                findOptions.thenAfter(last.get("score"), last.getId());
+            }
+            cursor = coll.find(filter, findOptions);
+            List<Document> page = cursor.toList();
+            assertTrue(page.size() <= 3);
+            documents.addAll(page);
+            if (!page.isEmpty()) {
+                last = page.get(page.size() - 1);
+            }
+        } while (cursor.hasMore());
+        return documents;
+    }
 }
@@ -20,8 +20,10 @@ package org.dizitart.no2;
 
 import org.dizitart.no2.exceptions.IndexingException;
 import org.dizitart.no2.exceptions.UniqueConstraintException;
+import org.dizitart.no2.filters.Filters;
 import org.junit.Test;
 
+import static org.dizitart.no2.Document.createDocument;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -56,6 +58,35 @@ public class CollectionIndexNegativeTest extends BaseCollectionTest {
         assertTrue(collection.hasIndex("birthDay"));
     }
 
+    @Test(expected = IndexingException.class)
+    public void testCreateFullTextCompoundIndex() {
+        collection.createIndex(new String[]{"body", "lastName"}, IndexOptions.indexOptions(IndexType.Fulltext));
+    }
+
+    @Test(expected = IndexingException.class)
+    public void testCreateMultikeyCompoundIndex() {
+        collection.createIndex(new String[]{"lastName", "body"}, IndexOptions.indexOptions(IndexType.Multikey));
+    }
+
+    @Test(expected = IndexingException.class)
+    public void testCreateHashCompoundIndex() {
+        collection.createIndex(new String[]{"lastName", "body"}, IndexOptions.indexOptions(IndexType.Hash));
+    }
+
+    @Test(expected = IndexingException.class)
+    public void testCreatePartialFullTextIndex() {
+        IndexOptions options = IndexOptions.indexOptions(IndexType.Fulltext);
+        options.setPartialFilter(Filters.eq("lastName", "ln1"));
+        collection.createIndex("body", options);
+    }
+
+    @Test(expected = UniqueConstraintException.class)
+    public void testCreateInvalidUniqueCompoundIndex() {
+        collection.createIndex(new String[]{"lastName", "body"}, IndexOptions.indexOptions(IndexType.Unique));
+        insert();
+        collection.insert(createDocument("lastName", "ln1").put("body", doc1.get("body")));
+    }
+
     @Test(expected = IndexingException.class)
     public void testDropIndexOnNonIndexedField() {
         collection.dropIndex("data");
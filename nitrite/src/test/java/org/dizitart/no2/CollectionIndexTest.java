@@ -19,23 +19,32 @@
 package org.dizitart.no2;
 
 import org.dizitart.no2.exceptions.IndexingException;
+import org.dizitart.no2.exceptions.UniqueConstraintException;
 import org.dizitart.no2.filters.Filters;
+import org.dizitart.no2.filters.IndexAwareFilter;
 import org.dizitart.no2.services.LuceneService;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.awaitility.Awaitility.await;
 import static org.dizitart.no2.DbTestOperations.getRandomTempDbFile;
 import static org.dizitart.no2.Document.createDocument;
 import static org.dizitart.no2.IndexOptions.indexOptions;
-import static org.dizitart.no2.filters.Filters.eq;
-import static org.dizitart.no2.filters.Filters.text;
+import static org.dizitart.no2.filters.Filters.*;
 import static org.junit.Assert.*;
 
 /**
@@ -127,6 +136,328 @@ public class CollectionIndexTest extends BaseCollectionTest {
         assertEquals(cursor.size(), 1);
     }
 
+    @Test
+    public void testCompoundIndex() throws ParseException {
+        collection.createIndex(new String[]{"lastName", "birthDay"}, indexOptions(IndexType.NonUnique));
+        assertTrue(collection.hasIndex("lastName,birthDay"));
+        assertFalse(collection.hasIndex("lastName"));
+
+        insert();
+
+        Cursor cursor = collection.find(and(eq("lastName", "ln2"),
+                gt("birthDay", simpleDateFormat.parse("2012-01-01T16:02:48.440Z"))));
+        assertEquals(cursor.size(), 1);
+        assertEquals(cursor.firstOrDefault().get("firstName"), "fn3");
+
+        cursor = collection.find(and(eq("lastName", "ln2"),
+                lt("birthDay", simpleDateFormat.parse("2015-01-01T16:02:48.440Z")),
+                eq("firstName", "fn2")));
+        assertEquals(cursor.size(), 1);
+
+        collection.update(eq("firstName", "fn3"), createDocument("lastName", "ln1"));
+        cursor = collection.find(and(eq("lastName", "ln2"),
+                gt("birthDay", simpleDateFormat.parse("2012-01-01T16:02:48.440Z"))));
+        assertEquals(cursor.size(), 0);
+
+        cursor = collection.find(and(eq("lastName", "ln1"),
+                gte("birthDay", simpleDateFormat.parse("2012-07-01T16:02:48.440Z"))));
+        assertEquals(cursor.size(), 2);
+
+        collection.remove(eq("firstName", "fn1"));
+        cursor = collection.find(and(eq("lastName", "ln1"),
+                gte("birthDay", simpleDateFormat.parse("2012-07-01T16:02:48.440Z"))));
+        assertEquals(cursor.size(), 1);
+
+        collection.dropIndex("lastName,birthDay");
+        assertFalse(collection.hasIndex("lastName,birthDay"));
+    }
+
+    @Test
+    public void testMultikeyIndex() {
+        Document doc1 = createDocument("name", "a")
+                .put("tags", new String[]{"red", "green"})
+                .put("items", Arrays.asList(createDocument("sku", "s1").put("qty", 1),
+                        createDocument("sku", "s2").put("qty", 5)));
+        Document doc2 = createDocument("name", "b")
+                .put("tags", Arrays.asList("green", "blue"))
+                .put("items", Collections.singletonList(createDocument("sku", "s2").put("qty", 2)));
+        Document doc3 = createDocument("name", "c")
+                .put("tags", Collections.singletonList("blue"));
+        collection.insert(doc1, doc2, doc3);
+
+        collection.createIndex("tags", indexOptions(IndexType.Multikey));
+        collection.createIndex("items.sku", indexOptions(IndexType.Multikey));
+
+        assertEquals(collection.find(eq("tags", "green")).size(), 2);
+        assertEquals(collection.find(in("tags", "red", "blue")).size(), 3);
+        assertEquals(collection.find(elemMatch("tags", regex("$", "^gr"))).size(), 2);
+        assertEquals(collection.find(elemMatch("items",
+                and(eq("sku", "s2"), gt("qty", 3)))).size(), 1);
+
+        collection.update(eq("name", "c"), createDocument("tags", new String[]{"green"}));
+        assertEquals(collection.find(eq("tags", "green")).size(), 3);
+        assertEquals(collection.find(eq("tags", "blue")).size(), 1);
+
+        collection.remove(eq("name", "a"));
+        assertEquals(collection.find(eq("tags", "green")).size(), 2);
+        assertEquals(collection.find(elemMatch("items", eq("sku", "s2"))).size(), 1);
+    }
+
+    @Test
+    public void testHashIndex() {
+        Document doc1 = createDocument("code", "x1").put("rank", 1)
+                .put("address", createDocument("city", "Kolkata").put("zip", 700001));
+        Document doc2 = createDocument("code", "x2").put("rank", 2)
+                .put("address", createDocument("zip", 700001).put("city", "Kolkata"));
+        Document doc3 = createDocument("code", "x3").put("rank", 3)
+                .put("address", createDocument("city", "Delhi").put("zip", 110001));
+        collection.insert(doc1, doc2, doc3);
+
+        // embedded documents are equal only with their fields in the same
+        // order, so the address of doc2 does not match, with or without index
+        Document kolkata = createDocument("city", "Kolkata").put("zip", 700001);
+        int scanned = collection.find(eq("address", kolkata)).size();
+        assertEquals(scanned, 1);
+
+        collection.createIndex("code", indexOptions(IndexType.Hash));
+        collection.createIndex("rank", indexOptions(IndexType.Hash));
+        collection.createIndex("address", indexOptions(IndexType.Hash));
+
+        assertEquals(collection.find(eq("code", "x2")).size(), 1);
+        assertEquals(collection.find(in("code", "x1", "x3", "x4")).size(), 2);
+        assertEquals(collection.find(gt("rank", 1)).size(), 2);
+        assertEquals(collection.find(eq("address", kolkata)).size(), scanned);
+        assertEquals(collection.find(eq("address", kolkata)).firstOrDefault().get("code"), "x1");
+
+        collection.update(eq("code", "x1"), createDocument("code", "x4")
+                .put("address", createDocument("city", "Delhi").put("zip", 110001)));
+        assertEquals(collection.find(eq("code", "x1")).size(), 0);
+        assertEquals(collection.find(eq("code", "x4")).size(), 1);
+        assertEquals(collection.find(eq("address",
+                createDocument("city", "Delhi").put("zip", 110001))).size(), 2);
+
+        collection.remove(eq("code", "x3"));
+        assertEquals(collection.find(eq("address",
+                createDocument("city", "Delhi").put("zip", 110001))).size(), 1);
+    }
+
+    @Test
+    public void testPartialIndex() {
+        collection.insert(createDocument("ticket", 1).put("status", "open").put("assignee", "a"),
+                createDocument("ticket", 2).put("status", "closed").put("assignee", "a"),
+                createDocument("ticket", 3).put("status", "closed").put("assignee", "b"),
+                createDocument("ticket", 4).put("status", "open").put("assignee", "b"));
+
+        IndexOptions options = indexOptions(IndexType.NonUnique);
+        options.setPartialFilter(eq("status", "open"));
+        collection.createIndex("assignee", options);
+        assertTrue(collection.listIndices().iterator().next().isPartial());
+
+        assertEquals(collection.find(and(eq("status", "open"), eq("assignee", "a"))).size(), 1);
+        assertEquals(collection.find(eq("assignee", "a")).size(), 2);
+        assertEquals(collection.find(or(eq("assignee", "a"), eq("assignee", "b"))).size(), 4);
+        assertEquals(collection.find(FindOptions.sort("assignee", SortOrder.Ascending)).size(), 4);
+
+        collection.update(eq("ticket", 2), createDocument("status", "open"));
+        collection.update(eq("ticket", 4), createDocument("status", "closed"));
+        assertEquals(collection.find(and(eq("status", "open"), eq("assignee", "a"))).size(), 2);
+        assertEquals(collection.find(and(eq("status", "open"), eq("assignee", "b"))).size(), 0);
+        assertEquals(collection.find(and(eq("status", "closed"), eq("assignee", "b"))).size(), 2);
+    }
+
+    @Test
+    public void testCountAndCoveredProjection() {
+        collection.insert(createDocument("status", "open").put("priority", 1),
+                createDocument("status", "open").put("priority", 3),
+                createDocument("status", "closed").put("priority", 4),
+                createDocument("status", "open").put("priority", 5),
+                createDocument("status", "closed"));
+        collection.createIndex("status", indexOptions(IndexType.NonUnique));
+        collection.createIndex("priority", indexOptions(IndexType.Unique));
+
+        assertEquals(collection.count(null), 5);
+        assertEquals(collection.count(eq("status", "open")), 3);
+        assertEquals(collection.count(gt("priority", 3)), 2);
+        assertEquals(collection.count(lte("priority", 3)), 2);
+        assertEquals(collection.count(and(eq("status", "open"), gt("priority", 2))), 2);
+        assertEquals(collection.count(regex("status", "^cl")), 2);
+        for (Filter filter : new Filter[] {eq("status", "open"), gt("priority", 3),
+                lte("priority", 3), and(eq("status", "open"), gt("priority", 2)),
+                regex("status", "^cl")}) {
+            assertEquals(collection.count(filter), collection.find(filter).size());
+        }
+
+        // a projection on the indexed field alone is answered from the index
+        List<Document> covered = collection.find(gte("priority", 4))
+                .project(createDocument("priority", null)).toList();
+        assertEquals(covered.size(), 2);
+        assertEquals(covered.get(0).get("priority"), 4);
+        assertEquals(covered.get(1).get("priority"), 5);
+
+        // and matches a projection which has to read the documents
+        List<Document> documents = collection.find(gte("priority", 4))
+                .project(createDocument("priority", null).put("status", null)).toList();
+        assertEquals(documents.size(), covered.size());
+        for (int i = 0; i < covered.size(); i++) {
+            assertEquals(covered.get(i).size(), 1);
+            assertFalse(covered.get(i).containsKey("_id"));
+            assertEquals(covered.get(i).get("priority"), documents.get(i).get("priority"));
+        }
+        assertEquals(documents.get(0).get("status"), "closed");
+        assertEquals(documents.get(1).get("status"), "open");
+    }
+
+    @Test
+    public void testIndexStatistics() {
+        Document[] documents = new Document[200];
+        for (int i = 0; i < documents.length; i++) {
+            documents[i] = createDocument("score", i % 50).put("serial", i);
+        }
+        collection.insert(documents);
+        collection.createIndex("score", indexOptions(IndexType.NonUnique));
+        assertNull(collection.getIndexStatistics("serial"));
+
+        IndexStatistics statistics = collection.getIndexStatistics("score");
+        assertEquals(statistics.getKeyCount(), 50);
+        assertEquals(statistics.getEntryCount(), 200);
+        assertEquals(statistics.getAveragePostingSize(), 4.0, 0.0);
+        assertEquals(statistics.getPostingSizeDistribution().get(4).longValue(), 50);
+        assertFalse(statistics.getHistogram().isEmpty());
+        assertEquals(statistics.getHistogram().get(0).getLower(), 0);
+        long estimate = statistics.estimateEntries(
+                ((IndexAwareFilter) gte("score", 25)).getKeyRange());
+        assertTrue(estimate > 50 && estimate < 150);
+
+        collection.insert(createDocument("score", 100));
+        collection.remove(eq("score", 0));
+        statistics = collection.getIndexStatistics("score");
+        assertEquals(statistics.getKeyCount(), 50);
+        assertEquals(statistics.getEntryCount(), 197);
+        assertEquals(statistics.getPostingSizeDistribution().get(1).longValue(), 1);
+
+        collection.rebuildIndex("score", false);
+        assertEquals(collection.getIndexStatistics("score").getEntryCount(), 197);
+
+        // a write made during a build is counted, whether it is
+        // journaled and replayed or written after the build
+        collection.rebuildIndex("score", true);
+        collection.insert(createDocument("score", 101));
+        await().until(indexingCompleted("score"));
+        statistics = collection.getIndexStatistics("score");
+        assertEquals(statistics.getKeyCount(), 51);
+        assertEquals(statistics.getEntryCount(), 198);
+    }
+
+    @Test
+    public void testCreateIndexWithProgress() {
+        int count = 25000;
+        Document[] documents = new Document[count];
+        for (int i = 0; i < count; i++) {
+            documents[i] = createDocument("serial", i).put("group", i % 100);
+        }
+        collection.insert(documents);
+
+        final AtomicLong processed = new AtomicLong();
+        final AtomicLong total = new AtomicLong();
+        IndexOptions options = indexOptions(IndexType.NonUnique);
+        options.setProgressListener(new IndexProgressListener() {
+            @Override
+            public void onProgress(Index index, long processedCount, long totalCount) {
+                assertEquals(index.getField(), "group");
+                processed.set(processedCount);
+                total.set(totalCount);
+            }
+        });
+        collection.createIndex("group", options);
+        collection.createIndex("serial", indexOptions(IndexType.Unique));
+
+        assertEquals(processed.get(), count);
+        assertEquals(total.get(), count);
+        assertEquals(collection.find(eq("group", 7)).size(), count / 100);
+        assertEquals(collection.find(eq("serial", 24999)).size(), 1);
+        assertEquals(collection.find(and(eq("group", 42), gt("serial", 20000))).size(), 50);
+    }
+
+    @Test
+    public void testWriteWhileIndexing() {
+        int count = 25000;
+        Document[] documents = new Document[count];
+        for (int i = 0; i < count; i++) {
+            documents[i] = createDocument("serial", i).put("group", i % 100);
+        }
+        collection.insert(documents);
+        collection.createIndex("group", indexOptions(IndexType.NonUnique, true));
+
+        // writes racing with the build are journaled and replayed
+        collection.update(eq("serial", 10), createDocument("group", 1000));
+        collection.remove(eq("serial", 20));
+        collection.insert(createDocument("serial", count).put("group", 1000));
+
+        await().until(indexingCompleted("group"));
+        assertEquals(collection.find(eq("group", 1000)).size(), 2);
+        assertEquals(collection.find(eq("group", 10)).size(), count / 100 - 1);
+        assertEquals(collection.find(eq("group", 20)).size(), count / 100 - 1);
+        assertEquals(collection.find(eq("group", 30)).size(), count / 100);
+    }
+
+    @Test
+    public void testWriteDuplicateWhileIndexing() {
+        int count = 25000;
+        Document[] documents = new Document[count];
+        for (int i = 0; i < count; i++) {
+            documents[i] = createDocument("serial", i);
+        }
+        collection.insert(documents);
+
+        // the build is held, once it has scanned the collection and written
+        // the index, until the writes below are done. the progress is complete
+        // once at the end of the scan, and once more when the index is written
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger completions = new AtomicInteger();
+        IndexOptions options = indexOptions(IndexType.Unique, true);
+        options.setProgressListener(new IndexProgressListener() {
+            @Override
+            public void onProgress(Index index, long processedCount, long totalCount) {
+                if (processedCount < totalCount || completions.incrementAndGet() < 2) return;
+                try {
+                    latch.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        try {
+            collection.createIndex("serial", options);
+            assertTrue(collection.isIndexing("serial"));
+
+            // a write right after the build is started waits for the scan,
+            // and then a duplicate of an indexed or of a journaled document
+            // is rejected
+            assertTrue(isRejected(createDocument("serial", 5)));
+            collection.insert(createDocument("serial", count));
+            assertTrue(isRejected(createDocument("serial", count)));
+            assertTrue(isRejected(createDocument("serial", 7)));
+            assertTrue(collection.isIndexing("serial"));
+        } finally {
+            latch.countDown();
+        }
+
+        await().until(indexingCompleted("serial"));
+        assertEquals(collection.size(), count + 1);
+        assertEquals(collection.find(eq("serial", 5)).size(), 1);
+        assertEquals(collection.find(eq("serial", count)).size(), 1);
+    }
+
+    private boolean isRejected(Document document) {
+        try {
+            collection.insert(document);
+            return false;
+        } catch (UniqueConstraintException uce) {
+            return true;
+        }
+    }
+
     @Test
     public void testCreateIndexAsync() throws InterruptedException {
         insert();
@@ -179,9 +510,13 @@ public class CollectionIndexTest extends BaseCollectionTest {
     }
 
     private Callable<Boolean> bodyIndexingCompleted() {
+        return indexingCompleted("body");
+    }
+
+    private Callable<Boolean> indexingCompleted(final String field) {
         return new Callable<Boolean>() {
             public Boolean call() throws Exception {
-                return !collection.isIndexing("body");
+                return !collection.isIndexing(field);
             }
         };
     }
@@ -26,6 +26,8 @@ import java.util.Collection;
 
 import static org.dizitart.no2.Document.createDocument;
 import static org.dizitart.no2.filters.Filters.ALL;
+import static org.dizitart.no2.filters.Filters.eq;
+import static org.dizitart.no2.filters.Filters.not;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -97,4 +99,64 @@ public class CollectionJoinTest extends BaseCollectionTest {
             System.out.println(document);
         }
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testJoinWithForeignIndex() {
+        insert();
+        foreignCollection.createIndex("fName", IndexOptions.indexOptions(IndexType.NonUnique));
+
+        Lookup lookup = new Lookup();
+        lookup.setLocalField("firstName");
+        lookup.setForeignField("fName");
+        lookup.setTargetField("personalDetails");
+
+        // fewer local documents than foreign ones probe the foreign index
+        RecordIterable<Document> result = collection.find(eq("firstName", "fn2"))
+                .join(foreignCollection.find(), lookup);
+        assertEquals(result.size(), 1);
+        Collection<Document> personalDetails
+                = (Collection<Document>) result.firstOrDefault().get("personalDetails");
+        assertEquals(personalDetails.size(), 2);
+
+        // only the documents of the foreign cursor are joined
+        result = collection.find(eq("firstName", "fn2"))
+                .join(foreignCollection.find(not(eq("telephone", "7893141321"))), lookup);
+        personalDetails = (Collection<Document>) result.firstOrDefault().get("personalDetails");
+        assertEquals(personalDetails.size(), 1);
+        assertEquals(personalDetails.iterator().next().get("telephone"), "000000000");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testJoinByHashTable() {
+        NitriteCollection orders = db.getCollection("orders");
+        NitriteCollection customers = db.getCollection("customers");
+        for (long i = 0; i < 1000; i++) {
+            customers.insert(createDocument("customerId", i).put("name", "customer " + i));
+        }
+        for (long i = 0; i < 2000; i++) {
+            orders.insert(createDocument("orderId", i).put("customerId", i % 500));
+        }
+        // a value of another type is never equal to the long ids
+        orders.insert(createDocument("orderId", 2000L).put("customerId", 1));
+
+        Lookup lookup = new Lookup();
+        lookup.setLocalField("customerId");
+        lookup.setForeignField("customerId");
+        lookup.setTargetField("customer");
+
+        int joined = 0;
+        for (Document order : orders.find().join(customers.find(), lookup)) {
+            Collection<Document> customer = (Collection<Document>) order.get("customer");
+            if (order.get("orderId", Long.class) == 2000L) {
+                assertNull(customer);
+            } else {
+                assertEquals(customer.size(), 1);
+                assertEquals(customer.iterator().next().get("customerId"), order.get("customerId"));
+                joined++;
+            }
+        }
+        assertEquals(joined, 2000);
+    }
 }
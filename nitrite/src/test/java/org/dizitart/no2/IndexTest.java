@@ -20,7 +20,10 @@ package org.dizitart.no2;
 
 import org.junit.Test;
 
-import static org.junit.Assert.assertEquals;
+import java.io.*;
+
+import static org.dizitart.no2.filters.Filters.*;
+import static org.junit.Assert.*;
 
 /**
  * @author Anindya Chatterjee.
@@ -42,4 +45,35 @@ public class IndexTest {
         assertEquals(index.toString(), "Index(indexType=Fulltext, field=test, collectionName=testColl)");
         assertEquals(index.compareTo(index2), 0);
     }
+
+    @Test
+    public void testReadIndexOfPreviousVersion() throws IOException, ClassNotFoundException {
+        // index metadata as written by nitrite 3.4.2
+        InputStream stream = getClass().getClassLoader().getResourceAsStream("index-3.4.2.ser");
+        try (ObjectInputStream inputStream = new ObjectInputStream(stream)) {
+            Index index = (Index) inputStream.readObject();
+            assertEquals(index, new Index(IndexType.NonUnique, "firstName", "test"));
+            assertNull(index.getPartialFilter());
+            assertFalse(index.isPartial());
+        }
+    }
+
+    @Test
+    public void testSerializePartialIndex() throws IOException, ClassNotFoundException {
+        Index index = new Index(IndexType.NonUnique, "firstName", "test",
+                and(eq("active", true), gt("age", 18)));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream outputStream = new ObjectOutputStream(bytes)) {
+            outputStream.writeObject(index);
+        }
+
+        try (ObjectInputStream inputStream = new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()))) {
+            Index copy = (Index) inputStream.readObject();
+            assertEquals(copy, index);
+            assertTrue(copy.isPartial());
+            assertEquals(copy.getPartialFilter().toString(), index.getPartialFilter().toString());
+        }
+    }
 }
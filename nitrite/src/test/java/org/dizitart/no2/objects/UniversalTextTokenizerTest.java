@@ -21,7 +21,9 @@ package org.dizitart.no2.objects;
 import org.dizitart.no2.IndexType;
 import org.dizitart.no2.Nitrite;
 import org.dizitart.no2.NitriteBuilder;
+import org.dizitart.no2.fulltext.BaseTextTokenizer;
 import org.dizitart.no2.fulltext.Languages;
+import org.dizitart.no2.fulltext.TokenConsumer;
 import org.dizitart.no2.fulltext.UniversalTextTokenizer;
 import org.junit.After;
 import org.junit.Before;
@@ -30,6 +32,7 @@ import org.junit.Test;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.*;
 
 import static org.dizitart.no2.DbTestOperations.getRandomTempDbFile;
 import static org.dizitart.no2.objects.filters.ObjectFilters.ALL;
@@ -178,4 +181,46 @@ public class UniversalTextTokenizerTest extends BaseObjectRepositoryTest {
             assertEquals(cursor.size(), 0);
         }
     }
+
+    @Test
+    public void testTokenizeUnicodeText() throws IOException {
+        UniversalTextTokenizer tokenizer = new UniversalTextTokenizer();
+        tokenizer.loadLanguage(Languages.English);
+
+        Set<String> tokens = tokenizer.tokenize("The “Quick” brown—fox, ÉCOLE。結果 and the fox");
+        assertEquals(new HashSet<>(Arrays.asList("quick", "brown", "fox", "école", "結果")), tokens);
+
+        final List<String> streamed = new ArrayList<>();
+        tokenizer.tokenize("The fox and the FOX", new TokenConsumer() {
+            @Override
+            public void accept(CharSequence token) {
+                streamed.add(token.toString());
+            }
+        });
+        assertEquals(Arrays.asList("fox", "fox"), streamed);
+        assertEquals(2, (int) tokenizer.termFrequencies("The fox and the FOX").get("fox"));
+    }
+
+    @Test
+    public void testTokenizeWithStopWordsCreatedAnew() throws IOException {
+        final Set<String> stopWords = new HashSet<>(Arrays.asList("a", "the"));
+        BaseTextTokenizer tokenizer = new BaseTextTokenizer() {
+            @Override
+            public Set<String> stopWords() {
+                return new HashSet<>(stopWords);
+            }
+        };
+
+        String text = "The cat and a hat";
+        assertEquals(new HashSet<>(Arrays.asList("cat", "and", "hat")), tokenizer.tokenize(text));
+        assertEquals(new HashSet<>(Arrays.asList("cat", "and", "hat")), tokenizer.tokenize(text));
+
+        stopWords.add("and");
+        assertEquals(new HashSet<>(Arrays.asList("cat", "hat")), tokenizer.tokenize(text));
+
+        // as many stop words as before, but not the same
+        stopWords.remove("and");
+        stopWords.add("cat");
+        assertEquals(new HashSet<>(Arrays.asList("and", "hat")), tokenizer.tokenize(text));
+    }
 }
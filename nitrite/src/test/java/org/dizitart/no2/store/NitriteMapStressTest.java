@@ -26,10 +26,10 @@ import org.junit.Test;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.Map;
-import java.util.UUID;
+import java.util.*;
 
 import static org.dizitart.no2.DbTestOperations.getRandomTempDbFile;
+import static org.junit.Assert.*;
 
 /**
  * @author Anindya Chatterjee.
@@ -68,4 +68,77 @@ public class NitriteMapStressTest {
 
         Files.delete(Paths.get(dbPath));
     }
+
+    @Test
+    public void testRangeEntries() {
+        MVStore store = MVStore.open(null);
+        MVMap<Integer, String> map = store.openMap("range-test");
+        NitriteMap<Integer, String> nitriteMap = new NitriteMVMap<>(map, new NitriteMVStore(store));
+        for (int i = 0; i < 10; i++) {
+            nitriteMap.put(i, "value" + i);
+        }
+
+        assertEquals(Arrays.asList(3, 4, 5, 6, 7, 8, 9),
+                keys(nitriteMap.entries(3, true, null, false, false)));
+        assertEquals(Arrays.asList(4, 5, 6),
+                keys(nitriteMap.entries(3, false, 7, false, false)));
+        assertEquals(Arrays.asList(7, 6, 5, 4, 3),
+                keys(nitriteMap.entries(7, true, 3, true, true)));
+        assertEquals(Arrays.asList(2, 1, 0),
+                keys(nitriteMap.entries(3, false, null, false, true)));
+        assertEquals(Arrays.asList(9, 8),
+                keys(nitriteMap.entries(null, false, 7, false, true)));
+        assertEquals(Arrays.asList(0, 1),
+                keys(nitriteMap.entries(null, false, 1, true, false)));
+        assertTrue(keys(nitriteMap.entries(9, false, null, false, false)).isEmpty());
+        assertTrue(keys(nitriteMap.entries(20, true, null, false, false)).isEmpty());
+
+        Iterator<Map.Entry<Integer, String>> entries
+                = nitriteMap.entries(5, true, 5, true, false);
+        assertEquals("value5", entries.next().getValue());
+        assertFalse(entries.hasNext());
+
+        store.close();
+    }
+
+    @Test
+    public void testDescendingRangeEntries() {
+        MVStore store = MVStore.open(null);
+        MVMap<Integer, String> map = store.openMap("descending-range-test");
+        NitriteMap<Integer, String> nitriteMap = new NitriteMVMap<>(map, new NitriteMVStore(store));
+        assertTrue(keys(nitriteMap.entries(null, false, null, false, true)).isEmpty());
+
+        for (int i = 0; i < 10; i += 2) {
+            nitriteMap.put(i, "value" + i);
+        }
+
+        assertEquals(Arrays.asList(8, 6, 4, 2, 0),
+                keys(nitriteMap.entries(null, false, null, false, true)));
+        // a bound which is not a key of the map
+        assertEquals(Arrays.asList(4, 2),
+                keys(nitriteMap.entries(5, true, 1, true, true)));
+        assertEquals(Arrays.asList(6, 4),
+                keys(nitriteMap.entries(6, true, 2, false, true)));
+        assertEquals(Arrays.asList(4),
+                keys(nitriteMap.entries(6, false, 2, false, true)));
+        assertTrue(keys(nitriteMap.entries(-1, true, null, false, true)).isEmpty());
+        assertTrue(keys(nitriteMap.entries(4, true, 6, true, true)).isEmpty());
+
+        // a key removed ahead of the iteration is not returned
+        Iterator<Map.Entry<Integer, String>> entries
+                = nitriteMap.entries(null, false, null, false, true);
+        assertEquals("value8", entries.next().getValue());
+        nitriteMap.remove(4);
+        assertEquals(Arrays.asList(6, 2, 0), keys(entries));
+
+        store.close();
+    }
+
+    private List<Integer> keys(Iterator<Map.Entry<Integer, String>> entries) {
+        List<Integer> keys = new ArrayList<>();
+        while (entries.hasNext()) {
+            keys.add(entries.next().getKey());
+        }
+        return keys;
+    }
 }
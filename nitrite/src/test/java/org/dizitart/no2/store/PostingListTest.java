@@ -0,0 +1,96 @@
+/*
+ *
+ * Copyright 2017-2018 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.dizitart.no2.store;
+
+import org.dizitart.no2.NitriteId;
+import org.h2.mvstore.WriteBuffer;
+import org.h2.mvstore.type.ObjectDataType;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Anindya Chatterjee.
+ */
+public class PostingListTest {
+
+    @Test
+    public void testModification() {
+        PostingList postingList = PostingList.empty()
+                .with(NitriteId.createId(30L))
+                .with(NitriteId.createId(10L))
+                .with(NitriteId.createId(20L))
+                .with(NitriteId.createId(10L));
+
+        assertEquals(postingList.size(), 3);
+        assertEquals(postingList.iterator().next(), NitriteId.createId(10L));
+        assertTrue(postingList.contains(NitriteId.createId(20L)));
+
+        PostingList removed = postingList.without(NitriteId.createId(20L));
+        assertEquals(removed.size(), 2);
+        assertFalse(removed.contains(NitriteId.createId(20L)));
+        assertEquals(postingList.size(), 3);
+    }
+
+    @Test
+    public void testUnionAndIntersection() {
+        PostingList first = PostingList.of(Arrays.asList(NitriteId.createId(1L),
+                NitriteId.createId(3L), NitriteId.createId(5L)));
+        PostingList second = PostingList.of(Arrays.asList(NitriteId.createId(5L),
+                NitriteId.createId(3L), NitriteId.createId(4L)));
+
+        assertEquals(first.union(second), PostingList.of(Arrays.asList(NitriteId.createId(1L),
+                NitriteId.createId(3L), NitriteId.createId(4L), NitriteId.createId(5L))));
+        assertEquals(first.intersect(second), PostingList.of(Arrays.asList(NitriteId.createId(3L),
+                NitriteId.createId(5L))));
+        assertTrue(first.intersect(PostingList.empty()).isEmpty());
+    }
+
+    @Test
+    public void testDataType() {
+        PostingListDataType dataType = new PostingListDataType();
+        PostingList postingList = PostingList.of(Arrays.asList(NitriteId.newId(),
+                NitriteId.newId(), NitriteId.createId(-5L), NitriteId.createId(Long.MAX_VALUE)));
+
+        WriteBuffer writeBuffer = new WriteBuffer();
+        dataType.write(writeBuffer, postingList);
+        ByteBuffer buffer = writeBuffer.getBuffer();
+        buffer.flip();
+        assertEquals(dataType.read(buffer), postingList);
+    }
+
+    @Test
+    public void testReadLegacySet() {
+        ConcurrentSkipListSet<NitriteId> legacySet = new ConcurrentSkipListSet<>();
+        legacySet.add(NitriteId.createId(2L));
+        legacySet.add(NitriteId.createId(1L));
+
+        WriteBuffer writeBuffer = new WriteBuffer();
+        new ObjectDataType().write(writeBuffer, legacySet);
+        ByteBuffer buffer = writeBuffer.getBuffer();
+        buffer.flip();
+
+        Object value = new PostingListDataType().read(buffer);
+        assertTrue(value instanceof PostingList);
+        assertEquals(value, legacySet);
+    }
+}
@@ -24,12 +24,14 @@ import org.dizitart.no2.mapper.MapperFacade;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Set;
 
 import static org.dizitart.no2.util.DocumentUtils.getFieldValue;
 import static org.dizitart.no2.util.DocumentUtils.getFields;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 
 public class DocumentUtilsTest {
     private Document doc;
@@ -85,4 +87,22 @@ public class DocumentUtilsTest {
             System.out.println(string);
         }
     }
+
+    @Test
+    public void testFieldPath() {
+        FieldPath path = FieldPath.of("location.address.house.1");
+        assertSame(path, FieldPath.of("location.address.house.1"));
+        assertEquals(path.getField(), "location.address.house.1");
+        assertEquals(path.getValue(doc), "2");
+
+        Document other = new Document();
+        assertEquals(path.getValue(other), null);
+
+        other.put("location", new Document().put("address",
+                new Document().put("house", new int[] {7, 8, 9})));
+        assertEquals(path.getValue(other), 8);
+
+        assertEquals(FieldPath.of("objArray.value").getElementValues(doc),
+                Arrays.<Object>asList(1, 2));
+    }
 }